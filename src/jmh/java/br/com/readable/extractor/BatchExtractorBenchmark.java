@@ -0,0 +1,56 @@
+package br.com.readable.extractor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Documents per second (parse plus extraction) of the batch API, to check scaling with the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchExtractorBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"germany_military"})
+    public String page;
+
+    private List<HtmlInput> inputs;
+    private BatchExtractor batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        byte[] html = BenchmarkCorpus.load(page);
+        inputs = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            inputs.add(HtmlInput.of(html, BenchmarkCorpus.BASE_URI));
+        }
+        batch = BatchExtractor.builder().threads(threads).ordered(false).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batch.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void extract(Blackhole blackhole) {
+        Iterator<BatchResult> results = batch.extract(inputs);
+        while (results.hasNext()) {
+            blackhole.consume(results.next());
+        }
+    }
+}
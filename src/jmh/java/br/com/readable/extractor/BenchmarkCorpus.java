@@ -0,0 +1,89 @@
+package br.com.readable.extractor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+
+import org.htmlcleaner.CleanerProperties;
+import org.htmlcleaner.DomSerializer;
+import org.htmlcleaner.HtmlCleaner;
+import org.htmlcleaner.TagNode;
+import org.w3c.dom.Document;
+
+/**
+ * Pages used by the benchmarks, from a small blog post up to a synthetic multi-megabyte page.
+ */
+final class BenchmarkCorpus {
+
+    static final String BASE_URI = "http://www.bbc.co.uk/portuguese/noticias/2015/02/150203_presa_indonesia_brasil_pai";
+
+    private final static CleanerProperties props = new CleanerProperties();
+
+    static {
+        props.setRecognizeUnicodeChars(false);
+        props.setAdvancedXmlEscape(true);
+        props.setAllowMultiWordAttributes(true);
+        props.setAllowHtmlInsideAttributes(true);
+        props.setIgnoreQuestAndExclam(false);
+        props.setOmitUnknownTags(false);
+        props.setOmitComments(false);
+        props.setNamespacesAware(false);
+        props.setTranslateSpecialEntities(false);
+        props.setTransSpecialEntitiesToNCR(true);
+        props.setTreatUnknownTagsAsContent(false);
+        props.setUseEmptyElementTags(false);
+        props.setUseCdataForScriptAndStyle(false);
+    }
+
+    private BenchmarkCorpus() {
+    }
+
+    // Page names accepted by the benchmarks "page" parameter:
+    //   tm_sample1 (~25 KB), germany_military (~160 KB) and germany_military_x10 (~1.6 MB, body repeated)
+    static byte[] load(String page) throws IOException {
+        if (page.endsWith("_x10"))
+            return repeatBody(load(page.substring(0, page.length() - 4)), 10);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = BenchmarkCorpus.class.getResourceAsStream("/" + page + ".html")) {
+            if (in == null)
+                throw new IllegalArgumentException("Unknown benchmark page: " + page);
+            IOUtils.copy(in, out);
+        }
+        return out.toByteArray();
+    }
+
+    static Document parse(byte[] html) throws Exception {
+        TagNode node = new HtmlCleaner(props).clean(new ByteArrayInputStream(html), "UTF-8");
+        Document document = new DomSerializer(new CleanerProperties(), false).createDOM(node);
+        document.setDocumentURI(BASE_URI);
+        return document;
+    }
+
+    // Fresh copy of a parsed page, for benchmarks of passes that mutate the tree
+    static Document copy(Document template) {
+        Document document = (Document) template.cloneNode(true);
+        document.setDocumentURI(BASE_URI);
+        return document;
+    }
+
+    private static byte[] repeatBody(byte[] html, int times) {
+        String page = new String(html, StandardCharsets.UTF_8);
+        int open = page.indexOf('>', page.indexOf("<body")) + 1;
+        int close = page.lastIndexOf("</body>");
+        if (open <= 0 || close < open)
+            throw new IllegalArgumentException("Page has no body to repeat");
+
+        StringBuilder builder = new StringBuilder(page.length() * times);
+        builder.append(page, 0, open);
+        for (int i = 0; i < times; i++) {
+            builder.append(page, open, close);
+        }
+        builder.append(page, close, page.length());
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
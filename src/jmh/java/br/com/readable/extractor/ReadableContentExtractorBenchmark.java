@@ -0,0 +1,148 @@
+package br.com.readable.extractor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Throughput of the extractor and of its cleaning passes over the benchmark corpus; passes that rewrite the page
+ * report the time of a batch of POOL calls instead.
+ * Run with: mvn -Pbenchmark test-compile exec:exec (the gc profiler is enabled by default).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadableContentExtractorBenchmark {
+
+    private static final ReadableContentExtractor extractor = new ReadableContentExtractor();
+
+    @State(Scope.Benchmark)
+    public static class Page {
+
+        @Param({"tm_sample1", "germany_military", "germany_military_x10"})
+        public String page;
+
+        Document template;
+        Element body;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            template = BenchmarkCorpus.parse(BenchmarkCorpus.load(page));
+            body = (Element) template.getElementsByTagName("body").item(0);
+        }
+    }
+
+    // Passes below rewrite the tree they run on, so each call takes a copy of its own from a pool filled before the
+    // iteration: copying outside the measured calls keeps cloning out of the timings. These benchmarks run as
+    // single-shot batches of exactly POOL calls, so a copy is never handed out twice.
+    static final int POOL = 16;
+
+    @State(Scope.Thread)
+    public static class FreshPages {
+
+        final Document[] docs = new Document[POOL];
+        final Element[] bodies = new Element[POOL];
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void setUp(Page page) {
+            for (int i = 0; i < POOL; i++) {
+                docs[i] = BenchmarkCorpus.copy(page.template);
+                bodies[i] = (Element) docs[i].getElementsByTagName("body").item(0);
+            }
+            next = 0;
+        }
+
+        Document doc() {
+            return docs[take()];
+        }
+
+        Element body() {
+            return bodies[take()];
+        }
+
+        private int take() {
+            if (next == POOL)
+                throw new IllegalStateException("Pool of " + POOL + " pages used up, batch size must match it.");
+            return next++;
+        }
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10, batchSize = POOL)
+    @Measurement(iterations = 20, batchSize = POOL)
+    @Benchmark
+    public Element extract(FreshPages fresh) {
+        return extractor.extract(fresh.doc());
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10, batchSize = POOL)
+    @Measurement(iterations = 20, batchSize = POOL)
+    @Benchmark
+    public Element getMainContent(FreshPages fresh) {
+        return extractor.getMainContent(fresh.doc(), null, null);
+    }
+
+    // Selection and scoring alone, the read-only variant leaves the page as it is
+    @Benchmark
+    public Element findTopDiv(Page page) {
+        return extractor.findTopDivReadOnly(extractor.newContext(page.template), page.body);
+    }
+
+    @Benchmark
+    public String getTitle(Page page) {
+        return extractor.getTitle(page.template);
+    }
+
+    @Benchmark
+    public String getDescription(Page page) {
+        return extractor.getDescription(page.template);
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10, batchSize = POOL)
+    @Measurement(iterations = 20, batchSize = POOL)
+    @Benchmark
+    public Element killDivs(FreshPages fresh) {
+        Element body = fresh.body();
+        extractor.killDivs(body);
+        return body;
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10, batchSize = POOL)
+    @Measurement(iterations = 20, batchSize = POOL)
+    @Benchmark
+    public Element killBrWrapPattern(FreshPages fresh) {
+        Element body = fresh.body();
+        extractor.killBrWrapPattern(body);
+        return body;
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10, batchSize = POOL)
+    @Measurement(iterations = 20, batchSize = POOL)
+    @Benchmark
+    public boolean killCodeSpansAndBreaks(FreshPages fresh) {
+        return extractor.killCodeSpansAndBreaks(fresh.body());
+    }
+
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10, batchSize = POOL)
+    @Measurement(iterations = 20, batchSize = POOL)
+    @Benchmark
+    public boolean cleanIrrelevantAttributes(FreshPages fresh) {
+        return extractor.cleanIrrelevantAttributes(fresh.body());
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.readable.extractor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Element;
+
+/**
+ * Parse plus main content extraction through the full DOM and through the streaming extractor;
+ * compare gc.alloc.rate.norm to see the memory saved by not building the page DOM.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingExtractorBenchmark {
+
+    private static final ReadableContentExtractor extractor = new ReadableContentExtractor();
+    private static final HtmlDocumentParser parser = new HtmlDocumentParser();
+    private static final StreamingExtractor streaming = new StreamingExtractor(extractor, parser);
+
+    @Param({"tm_sample1", "germany_military", "germany_military_x10"})
+    public String page;
+
+    private HtmlInput input;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        input = HtmlInput.of(BenchmarkCorpus.load(page), BenchmarkCorpus.BASE_URI);
+    }
+
+    @Benchmark
+    public Element dom() throws Exception {
+        return extractor.getMainContent(parser.parse(input), null, null);
+    }
+
+    @Benchmark
+    public Element streaming() throws Exception {
+        return streaming.getMainContent(input);
+    }
+}
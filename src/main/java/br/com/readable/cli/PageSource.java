@@ -0,0 +1,165 @@
+package br.com.readable.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import br.com.readable.extractor.HtmlInput;
+import br.com.readable.warc.WarcReader;
+
+/**
+ * Pages of the files, directories and WARC archives given on the command line, pulled one at a time as the batch
+ * asks for them. Directories are walked lazily for HTML files and archives; files given by name are read as HTML
+ * unless their name says they are archives. A file that cannot be read is reported and left behind.
+ */
+final class PageSource implements Iterator<HtmlInput>, Closeable {
+
+    private final Deque<Path> paths;
+    private final int maxPageSize;
+    private final PrintStream err;
+
+    private Stream<Path> walk;
+    private Iterator<Path> walked;
+    private WarcReader archive;
+    private HtmlInput next;
+
+    private int unreadable;
+    private int skipped;
+
+    PageSource(List<Path> paths, int maxPageSize, PrintStream err) {
+        this.paths = new ArrayDeque<>(paths);
+        this.maxPageSize = maxPageSize;
+        this.err = err;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            try {
+                next = pull();
+            } catch (IOException e) {
+                unreadable++;
+                err.println("Could not read " + e.getMessage());
+                closeArchive();
+                continue;
+            }
+            if (next == null)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public HtmlInput next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        HtmlInput page = next;
+        next = null;
+        return page;
+    }
+
+    // Files and archives that could not be read, or could not be read to their end
+    int getUnreadable() {
+        return unreadable;
+    }
+
+    // Pages of archives left out for their size or an undecodable body
+    int getSkipped() {
+        return skipped + (archive != null ? archive.getSkipped() : 0);
+    }
+
+    @Override
+    public void close() {
+        closeArchive();
+        if (walk != null)
+            walk.close();
+    }
+
+    // Next page, null once every path is done
+    private HtmlInput pull() throws IOException {
+        while (true) {
+            if (archive != null) {
+                HtmlInput page = archive.next();
+                if (page != null)
+                    return page;
+                closeArchive();
+                continue;
+            }
+
+            Path path = nextPath();
+            if (path == null)
+                return null;
+            if (isArchive(path)) {
+                InputStream in = Files.newInputStream(path);
+                try {
+                    archive = new WarcReader(in, maxPageSize);
+                } catch (IOException e) {
+                    in.close();
+                    throw new IOException(path + ": " + e.getMessage(), e);
+                }
+                continue;
+            }
+
+            try {
+                if (Files.size(path) > maxPageSize) {
+                    skipped++;
+                    continue;
+                }
+                return HtmlInput.of(path, path.toUri().toString());
+            } catch (IOException e) {
+                throw new IOException(path + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Next file to read: given ones in order, directories walked as they come up
+    private Path nextPath() throws IOException {
+        while (true) {
+            if (walked != null) {
+                while (walked.hasNext()) {
+                    Path path = walked.next();
+                    if (Files.isRegularFile(path) && (isArchive(path) || isHtml(path)))
+                        return path;
+                }
+                walk.close();
+                walk = null;
+                walked = null;
+            }
+
+            Path path = paths.poll();
+            if (path == null)
+                return null;
+            if (!Files.isDirectory(path))
+                return path;
+            walk = Files.walk(path);
+            walked = walk.iterator();
+        }
+    }
+
+    private void closeArchive() {
+        if (archive == null)
+            return;
+        skipped += archive.getSkipped();
+        try {
+            archive.close();
+        } catch (IOException e) {
+            // Nothing more is read from it
+        }
+        archive = null;
+    }
+
+    static boolean isArchive(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".warc") || name.endsWith(".warc.gz");
+    }
+
+    static boolean isHtml(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".html") || name.endsWith(".htm") || name.endsWith(".xhtml");
+    }
+}
@@ -0,0 +1,230 @@
+package br.com.readable.cli;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import br.com.readable.extractor.*;
+import br.com.readable.server.ExtractionServer;
+
+/**
+ * Extracts the readable content of HTML files, directories of them and WARC archives, writing one JSON object per
+ * page. Pages are read as the workers ask for them and results are written as they come, so memory stays bounded
+ * by the pages in flight whatever the size of the input. Throughput and failure counts go to the standard error.
+ */
+public final class ReadableCli {
+
+    static final String USAGE = "Usage: readable [options] <file|directory|archive.warc[.gz]>...\n"
+            + "       readable [options] --serve PORT\n"
+            + "  -o, --output FILE        write JSON lines to FILE instead of the standard output\n"
+            + "  -t, --threads N          worker threads, one per processor by default\n"
+            + "  -f, --format FORMAT      content as text, markdown or html (text by default)\n"
+            + "      --unordered          write results as they complete rather than in input order\n"
+            + "      --strip-scripts      drop script, style, noscript and svg before parsing\n"
+            + "      --max-page-size N    skip pages larger than N bytes (16777216 by default)\n"
+            + "      --max-time MS        give up on a page after MS milliseconds of extraction\n"
+            + "      --serve PORT         serve POST /extract, POST /batch and GET /metrics over HTTP on PORT\n";
+
+    private final PrintStream stdout;
+    private final PrintStream stderr;
+
+    ReadableCli(PrintStream stdout, PrintStream stderr) {
+        this.stdout = stdout;
+        this.stderr = stderr;
+    }
+
+    public static void main(String[] args) {
+        int status = new ReadableCli(System.out, System.err).run(args);
+        if (status != 0)
+            System.exit(status);
+    }
+
+    // Exit status: 0 when done, 1 when the output could not be written or the port bound, 2 for invalid arguments
+    int run(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.print(USAGE);
+            return 2;
+        }
+
+        HtmlDocumentParser parser = new HtmlDocumentParser(options.stripScripts);
+        ExtractorConfig.Builder config = ExtractorConfig.builder();
+        if (options.maxTime > 0)
+            config.budget(ExtractionBudget.builder().maxTime(options.maxTime, TimeUnit.MILLISECONDS).build());
+        if (options.serve > 0)
+            return serve(options, config.build(), parser);
+
+        BatchExtractor batch = BatchExtractor.builder()
+                .extractor(new ReadableContentExtractor(config.build(), parser))
+                .parser(parser)
+                .threads(options.threads)
+                .ordered(options.ordered)
+                .build();
+
+        long start = System.nanoTime();
+        long pages = 0;
+        long failed = 0;
+        long bytes = 0;
+        PageSource source = new PageSource(options.paths, options.maxPageSize, stderr);
+        try (BatchExtractor.ResultIterator results = batch.extract(source);
+             Writer out = open(options.output)) {
+            while (results.hasNext()) {
+                BatchResult result = results.next();
+                bytes += result.getInput().getLength();
+                if (!result.isSuccess()) {
+                    failed++;
+                    stderr.println("Failed " + result.getInput().getBaseUri() + ": " + result.getError());
+                    continue;
+                }
+                // Serialized on this thread straight into the buffered output
+                ContentSerializer.writeJson(result.getResult(), options.format, out);
+                out.write('\n');
+                pages++;
+            }
+        } catch (IOException e) {
+            stderr.println("Could not write " + (options.output != null ? options.output : "the output") + ": " + e.getMessage());
+            return 1;
+        } finally {
+            batch.close();
+            source.close();
+        }
+
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        stderr.println(String.format(Locale.ROOT, "%d pages extracted, %d failed, %d skipped, %d unreadable in %.2fs"
+                        + " (%.1f pages/s, %.2f MB/s)", pages, failed, source.getSkipped(), source.getUnreadable(),
+                seconds, (pages + failed) / seconds, bytes / seconds / (1024 * 1024)));
+        return 0;
+    }
+
+    // Serves until the process is stopped
+    private int serve(Options options, ExtractorConfig config, HtmlDocumentParser parser) {
+        final ExtractionServer server;
+        try {
+            server = ExtractionServer.builder()
+                    .port(options.serve)
+                    .config(config)
+                    .parser(parser)
+                    .threads(options.threads)
+                    .maxPageSize(options.maxPageSize)
+                    .start();
+        } catch (IOException e) {
+            stderr.println("Could not listen on port " + options.serve + ": " + e.getMessage());
+            return 1;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        stderr.println("Listening on port " + server.getPort());
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            server.close();
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    // UTF-8 output, the standard output is flushed and left open
+    private Writer open(Path output) throws IOException {
+        if (output != null)
+            return Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+        return new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8), 64 * 1024) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    static final class Options {
+
+        final List<Path> paths = new ArrayList<>();
+        Path output;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ContentFormat format = ContentFormat.TEXT;
+        boolean ordered = true;
+        boolean stripScripts = false;
+        int maxPageSize = 16 * 1024 * 1024;
+        long maxTime = 0;
+        int serve = 0;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-o":
+                    case "--output":
+                        options.output = Paths.get(value(args, ++i, arg));
+                        break;
+                    case "-t":
+                    case "--threads":
+                        options.threads = number(args, ++i, arg);
+                        break;
+                    case "-f":
+                    case "--format":
+                        options.format = format(value(args, ++i, arg));
+                        break;
+                    case "--unordered":
+                        options.ordered = false;
+                        break;
+                    case "--strip-scripts":
+                        options.stripScripts = true;
+                        break;
+                    case "--max-page-size":
+                        options.maxPageSize = number(args, ++i, arg);
+                        break;
+                    case "--max-time":
+                        options.maxTime = number(args, ++i, arg);
+                        break;
+                    case "--serve":
+                        options.serve = number(args, ++i, arg);
+                        break;
+                    default:
+                        if (arg.startsWith("-") && arg.length() > 1)
+                            throw new IllegalArgumentException("Unknown option " + arg);
+                        options.paths.add(Paths.get(arg));
+                }
+            }
+            if (options.serve > 0 && !options.paths.isEmpty())
+                throw new IllegalArgumentException("No input is read when serving");
+            if (options.serve == 0 && options.paths.isEmpty())
+                throw new IllegalArgumentException("No input given");
+            return options;
+        }
+
+        private static String value(String[] args, int i, String option) {
+            if (i >= args.length)
+                throw new IllegalArgumentException("Missing value for " + option);
+            return args[i];
+        }
+
+        private static int number(String[] args, int i, String option) {
+            String value = value(args, i, option);
+            try {
+                int number = Integer.parseInt(value);
+                if (number >= 1)
+                    return number;
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+
+        private static ContentFormat format(String value) {
+            for (ContentFormat format : ContentFormat.values()) {
+                if (format.getField().equals(value))
+                    return format;
+            }
+            throw new IllegalArgumentException("Unknown format " + value);
+        }
+    }
+}
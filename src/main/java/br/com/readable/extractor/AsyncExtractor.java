@@ -0,0 +1,118 @@
+package br.com.readable.extractor;
+
+import java.util.concurrent.*;
+
+/**
+ * Extraction that never blocks the caller: single pages come back as {@link CompletableFuture}s, streams of pages go
+ * through an {@link ExtractionProcessor} that extracts as many pages at once as its parallelism allows and no more
+ * than its subscriber asked for. Pages are extracted by a {@link BatchExtractor}, on its fixed pool of threads, on
+ * virtual threads or on a given executor.
+ */
+public class AsyncExtractor implements AutoCloseable {
+
+    private final BatchExtractor batch;
+    private final int parallelism;
+    private final boolean ordered;
+
+    private AsyncExtractor(Builder builder) {
+        this.batch = builder.batch.build();
+        this.parallelism = builder.parallelism > 0 ? builder.parallelism : builder.batch.getThreads();
+        this.ordered = builder.ordered;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Completes exceptionally with the error that stopped the extraction
+    public CompletableFuture<ExtractionResult> extractAsync(HtmlInput input) {
+        if (input == null)
+            throw new IllegalArgumentException("Input must not be null.");
+        CompletableFuture<ExtractionResult> future = new CompletableFuture<>();
+        submit(input).thenAccept(result -> {
+            if (result.isSuccess())
+                future.complete(result.getResult());
+            else
+                future.completeExceptionally(result.getError());
+        });
+        return future;
+    }
+
+    // A new processor for one subscriber, with the extractor's parallelism and ordering
+    public ExtractionProcessor processor() {
+        return new ExtractionProcessor(this, parallelism, ordered);
+    }
+
+    // Never completes exceptionally, a page that fails yields a failed result
+    CompletableFuture<BatchResult> submit(HtmlInput input) {
+        CompletableFuture<BatchResult> future = new CompletableFuture<>();
+        try {
+            batch.execute(() -> future.complete(batch.process(input)));
+        } catch (RejectedExecutionException e) {
+            future.complete(BatchResult.failure(input, e));
+        }
+        return future;
+    }
+
+    // Shuts down the executor if the async extractor created it
+    @Override
+    public void close() {
+        batch.close();
+    }
+
+    // Extractor, parser and threads are those of the underlying batch extractor
+    public static final class Builder {
+
+        private final BatchExtractor.Builder batch = BatchExtractor.builder();
+        private int parallelism = 0;
+        private boolean ordered = true;
+
+        private Builder() {
+        }
+
+        public Builder extractor(ReadableContentExtractor extractor) {
+            batch.extractor(extractor);
+            return this;
+        }
+
+        public Builder parser(HtmlDocumentParser parser) {
+            batch.parser(parser);
+            return this;
+        }
+
+        // Runs on the given executor, which is left running on close
+        public Builder executor(ExecutorService executor) {
+            batch.executor(executor);
+            return this;
+        }
+
+        // Runs every page on its own virtual thread when available, on a fixed pool otherwise
+        public Builder virtualThreads() {
+            batch.virtualThreads();
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            batch.threads(threads);
+            return this;
+        }
+
+        // Pages a processor extracts at once, as many as the threads by default
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1)
+                throw new IllegalArgumentException("Parallelism need to be bigger or equal to 1.");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        // Whether processors publish results in input order, or as they complete
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        public AsyncExtractor build() {
+            return new AsyncExtractor(this);
+        }
+    }
+}
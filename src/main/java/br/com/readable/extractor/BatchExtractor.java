@@ -0,0 +1,230 @@
+package br.com.readable.extractor;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses and extracts many pages in parallel. At most {@code maxInFlight} documents are submitted ahead of the
+ * consumer, so inputs are pulled only as fast as results are taken. Results come back in input order or as they
+ * complete; a document that fails yields a failed {@link BatchResult} instead of ending the batch.
+ */
+public class BatchExtractor implements AutoCloseable {
+
+    private final ReadableContentExtractor extractor;
+    private final HtmlDocumentParser parser;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    private BatchExtractor(Builder builder) {
+        this.extractor = builder.extractor;
+        this.parser = builder.parser;
+        this.maxInFlight = builder.maxInFlight > 0 ? builder.maxInFlight : builder.threads * 4;
+        this.ordered = builder.ordered;
+
+        if (builder.executor != null) {
+            this.executor = builder.executor;
+            this.ownsExecutor = false;
+        } else {
+            ExecutorService virtual = builder.virtualThreads ? newVirtualThreadExecutor() : null;
+            this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(builder.threads, new WorkerFactory());
+            this.ownsExecutor = true;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Close the results to stop early: documents in flight are interrupted and dropped
+    public ResultIterator extract(Iterator<HtmlInput> inputs) {
+        return new ResultIterator(inputs);
+    }
+
+    public ResultIterator extract(Iterable<HtmlInput> inputs) {
+        return extract(inputs.iterator());
+    }
+
+    // Closing the stream cancels the documents in flight, then closes the inputs
+    public Stream<BatchResult> extract(Stream<HtmlInput> inputs) {
+        ResultIterator iterator = extract(inputs.iterator());
+        Spliterator<BatchResult> results = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.NONNULL | (ordered ? Spliterator.ORDERED : 0));
+        return StreamSupport.stream(results, false).onClose(iterator::close).onClose(inputs::close);
+    }
+
+    protected BatchResult process(HtmlInput input) {
+        try {
+            return BatchResult.success(input, extractor.extractResult(input, parser));
+        } catch (Exception | StackOverflowError e) {
+            return BatchResult.failure(input, e);
+        }
+    }
+
+    // Runs a task on the batch's threads, for extraction paths other than the result iterators
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    // Shuts down the executor if the batch extractor created it
+    @Override
+    public void close() {
+        if (ownsExecutor)
+            executor.shutdown();
+    }
+
+    // Virtual threads are used when the running JVM has them (Java 21+)
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // Results of one batch, taken by a single consumer
+    public final class ResultIterator implements Iterator<BatchResult>, AutoCloseable {
+
+        private final Iterator<HtmlInput> inputs;
+        // Every document submitted and not yet taken, in input order, whether results come back ordered or not
+        private final Deque<Future<BatchResult>> pending = new ArrayDeque<>();
+        private final CompletionService<BatchResult> completion;
+        private boolean cancelled = false;
+
+        private ResultIterator(Iterator<HtmlInput> inputs) {
+            this.inputs = inputs;
+            this.completion = ordered ? null : new ExecutorCompletionService<BatchResult>(executor);
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public BatchResult next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            try {
+                Future<BatchResult> future = ordered ? pending.poll() : completion.take();
+                if (!ordered)
+                    pending.remove(future);
+                return future.get();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for batch results");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Batch worker failed", e.getCause());
+            }
+        }
+
+        private void fill() {
+            while (!cancelled && pending.size() < maxInFlight && inputs.hasNext()) {
+                final HtmlInput input = inputs.next();
+                Callable<BatchResult> task = () -> process(input);
+                pending.add(ordered ? executor.submit(task) : completion.submit(task));
+            }
+        }
+
+        // Interrupts the documents being extracted and drops the rest, no more inputs are pulled
+        @Override
+        public void close() {
+            cancel();
+        }
+
+        private void cancel() {
+            cancelled = true;
+            for (Future<BatchResult> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "readable-batch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static final class Builder {
+
+        private ReadableContentExtractor extractor = new ReadableContentExtractor();
+        private HtmlDocumentParser parser = new HtmlDocumentParser();
+        private ExecutorService executor;
+        private boolean virtualThreads = false;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int maxInFlight = 0;
+        private boolean ordered = true;
+
+        private Builder() {
+        }
+
+        public Builder extractor(ReadableContentExtractor extractor) {
+            this.extractor = extractor;
+            return this;
+        }
+
+        public Builder parser(HtmlDocumentParser parser) {
+            this.parser = parser;
+            return this;
+        }
+
+        // Runs on the given executor, which is left running on close
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        // Runs every document on its own virtual thread when available, on a fixed pool otherwise
+        public Builder virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            if (threads < 1)
+                throw new IllegalArgumentException("Number of threads need to be bigger or equal to 1.");
+            this.threads = threads;
+            return this;
+        }
+
+        // Documents submitted but not yet taken by the consumer, four per thread by default
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1)
+                throw new IllegalArgumentException("Max in-flight documents need to be bigger or equal to 1.");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        int getThreads() {
+            return threads;
+        }
+
+        public BatchExtractor build() {
+            if (extractor == null || parser == null)
+                throw new IllegalArgumentException("Extractor and parser must not be null.");
+            return new BatchExtractor(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.readable.extractor;
+
+import org.w3c.dom.Element;
+
+/**
+ * Outcome of one document of a batch: either the extracted content or the error that stopped it. Results are
+ * detached, so the parsed page can be collected as soon as it has been extracted.
+ */
+public final class BatchResult {
+
+    private final HtmlInput input;
+    private final ExtractionResult result;
+    private final Throwable error;
+
+    private BatchResult(HtmlInput input, ExtractionResult result, Throwable error) {
+        this.input = input;
+        this.result = result;
+        this.error = error;
+    }
+
+    static BatchResult success(HtmlInput input, ExtractionResult result) {
+        return new BatchResult(input, result, null);
+    }
+
+    static BatchResult failure(HtmlInput input, Throwable error) {
+        return new BatchResult(input, null, error);
+    }
+
+    public HtmlInput getInput() {
+        return input;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    // Detached extraction result, null on failure
+    public ExtractionResult getResult() {
+        return result;
+    }
+
+    // Article element as ReadableContentExtractor.extract builds it, null on failure
+    public Element getContent() {
+        return result != null ? result.getArticle() : null;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+}
@@ -0,0 +1,25 @@
+package br.com.readable.extractor;
+
+/**
+ * Thrown when an extraction goes over one of the limits of its {@link ExtractionBudget}.
+ */
+public class BudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Limit {
+        NODES, DEPTH, TIME, CANDIDATES
+    }
+
+    private final Limit limit;
+
+    public BudgetExceededException(Limit limit, long max) {
+        super("Extraction budget exceeded: more than " + max + " " + limit.name().toLowerCase()
+                + (limit == Limit.TIME ? " nanoseconds" : "") + ".");
+        this.limit = limit;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.readable.extractor;
+
+import org.w3c.dom.Element;
+
+/**
+ * A container scoring ranked, with its score split in the parts it was made of: the class/id bonus, the length and
+ * comma points of the paragraphs it holds, and the points propagated from the paragraphs of its child divs. The parts
+ * add up to the score. The element belongs to the page it was ranked on.
+ */
+public final class Candidate {
+
+    private final Element element;
+    private final int score;
+    private final int classIdScore;
+    private final int lengthScore;
+    private final int commaScore;
+    private final int grandparentScore;
+
+    Candidate(Element element, int score, int classIdScore, int lengthScore, int commaScore, int grandparentScore) {
+        this.element = element;
+        this.score = score;
+        this.classIdScore = classIdScore;
+        this.lengthScore = lengthScore;
+        this.commaScore = commaScore;
+        this.grandparentScore = grandparentScore;
+    }
+
+    public Element getElement() {
+        return element;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    // Content bonus and stopword penalty of its class, id and itemprop
+    public int getClassIdScore() {
+        return classIdScore;
+    }
+
+    // Length points of the paragraphs it directly holds
+    public int getLengthScore() {
+        return lengthScore;
+    }
+
+    // Commas of the paragraphs it directly holds
+    public int getCommaScore() {
+        return commaScore;
+    }
+
+    // Length and comma points of the paragraphs two levels down, through a child div
+    public int getGrandparentScore() {
+        return grandparentScore;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(element.getTagName());
+        if (!element.getAttribute("id").isEmpty())
+            out.append('#').append(element.getAttribute("id"));
+        if (!element.getAttribute("class").isEmpty())
+            out.append('.').append(element.getAttribute("class").trim().replaceAll("\\s+", "."));
+        return out.append(' ').append(score)
+                .append(" (class/id ").append(classIdScore)
+                .append(", length ").append(lengthScore)
+                .append(", commas ").append(commaScore)
+                .append(", grandparent ").append(grandparentScore).append(')')
+                .toString();
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Works out the charset of raw HTML the way browsers do: a byte order mark wins, then an HTTP-style
+ * Content-Type hint, then a &lt;meta charset&gt; or http-equiv declaration in the first bytes of the page.
+ */
+public final class CharsetDetector {
+
+    // How far into the page a meta declaration is looked for, as in the HTML prescan
+    static final int PRESCAN_LENGTH = 1024;
+
+    private CharsetDetector() {
+    }
+
+    // Charset of the content, falling back to the default when nothing declares one
+    public static String detect(ByteBuffer content, String contentType) {
+        String charset = fromBom(content);
+        if (charset == null)
+            charset = fromContentType(contentType);
+        if (charset == null)
+            charset = fromMeta(content);
+        return charset != null ? charset : HtmlInput.DEFAULT_CHARSET;
+    }
+
+    // Charset named by a leading byte order mark, null when there is none
+    public static String fromBom(ByteBuffer content) {
+        switch (bomLength(content)) {
+            case 3:
+                return "UTF-8";
+            case 2:
+                return (content.get(content.position()) & 0xFF) == 0xFE ? "UTF-16BE" : "UTF-16LE";
+            default:
+                return null;
+        }
+    }
+
+    // Length of the byte order mark the content starts with, 0 when there is none
+    public static int bomLength(ByteBuffer content) {
+        int p = content.position();
+        int remaining = content.remaining();
+        if (remaining >= 3 && (content.get(p) & 0xFF) == 0xEF && (content.get(p + 1) & 0xFF) == 0xBB
+                && (content.get(p + 2) & 0xFF) == 0xBF)
+            return 3;
+        if (remaining >= 2) {
+            int first = content.get(p) & 0xFF;
+            int second = content.get(p + 1) & 0xFF;
+            if ((first == 0xFE && second == 0xFF) || (first == 0xFF && second == 0xFE))
+                return 2;
+        }
+        return 0;
+    }
+
+    // Charset parameter of a value such as "text/html; charset=ISO-8859-1", null when absent or unsupported
+    public static String fromContentType(String contentType) {
+        if (contentType == null)
+            return null;
+
+        int index = contentType.toLowerCase().indexOf("charset");
+        if (index < 0)
+            return null;
+        index += "charset".length();
+        while (index < contentType.length() && Character.isWhitespace(contentType.charAt(index))) {
+            index++;
+        }
+        if (index >= contentType.length() || contentType.charAt(index) != '=')
+            return null;
+
+        int end = contentType.indexOf(';', index + 1);
+        String value = contentType.substring(index + 1, end < 0 ? contentType.length() : end).trim();
+        if (value.length() > 1 && (value.charAt(0) == '"' || value.charAt(0) == '\'')) {
+            int close = value.indexOf(value.charAt(0), 1);
+            value = value.substring(1, close > 0 ? close : value.length());
+        }
+        return supported(value);
+    }
+
+    // Charset declared by a meta tag near the start of the page, null when there is none
+    static String fromMeta(ByteBuffer content) {
+        int length = Math.min(content.remaining(), PRESCAN_LENGTH);
+        byte[] prefix = new byte[length];
+        content.duplicate().get(prefix);
+
+        // Declarations are ASCII, so any ASCII compatible decoding finds them
+        HtmlTokenizer tokenizer = new HtmlTokenizer(new StringReader(new String(prefix, StandardCharsets.ISO_8859_1)));
+        try {
+            HtmlTokenizer.Token token;
+            while ((token = tokenizer.next()) != HtmlTokenizer.Token.EOF) {
+                if (token != HtmlTokenizer.Token.START_TAG)
+                    continue;
+                if ("body".equals(tokenizer.getTagName()))
+                    return null;
+                if (!"meta".equals(tokenizer.getTagName()))
+                    continue;
+
+                String charset = tokenizer.getAttribute("charset");
+                if (charset != null) {
+                    charset = supported(charset.trim());
+                } else if ("content-type".equalsIgnoreCase(tokenizer.getAttribute("http-equiv"))) {
+                    charset = fromContentType(tokenizer.getAttribute("content"));
+                }
+
+                if (charset != null) {
+                    // A page that could be read as ASCII to find this cannot really be UTF-16
+                    return charset.startsWith("UTF-16") ? "UTF-8" : charset;
+                }
+            }
+        } catch (IOException e) {
+            // Cannot happen reading from a string
+        }
+        return null;
+    }
+
+    private static String supported(String name) {
+        if (name == null || name.isEmpty())
+            return null;
+        try {
+            return Charset.isSupported(name) ? Charset.forName(name).name() : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.readable.extractor;
+
+import java.net.URI;
+
+import org.w3c.dom.Element;
+
+/**
+ * What the stages of a {@link CleaningPipeline} work with: the content being cleaned, the extraction it belongs to
+ * and an {@link ElementIndex} of the content, built on first use and kept up to date by element walks.
+ */
+public class CleaningContext {
+
+    private final ExtractionContext extraction;
+    private final ExtractorConfig config;
+    private final Element root;
+    private final String title;
+    private final String description;
+    private final URI baseUri;
+    private final WorkTracker work;
+    private ElementIndex index;
+
+    // Elements detached through remove, for the per-stage counts of the listener
+    int removals = 0;
+
+    // Content cleaned outside of an extraction, as when a stage is run on its own
+    public CleaningContext(ExtractorConfig config, Element root, String title, String description) {
+        this(null, config, root, title, description);
+    }
+
+    // Without an extraction, the content gets one of its own
+    public CleaningContext(ExtractionContext extraction, ExtractorConfig config, Element root, String title,
+                           String description) {
+        this.extraction = extraction != null ? extraction : new ExtractionContext(root.getOwnerDocument(), config);
+        this.config = config;
+        this.root = root;
+        this.title = title;
+        this.description = description;
+        this.baseUri = ReadableContentExtractor.baseURI(root.getOwnerDocument());
+        this.work = this.extraction.work;
+    }
+
+    // Where what the stages find is recorded, such as an image before the first paragraph
+    public ExtractionContext getExtraction() {
+        return extraction;
+    }
+
+    public ExtractorConfig getConfig() {
+        return config;
+    }
+
+    // Main content being cleaned, stages never remove it
+    public Element getRoot() {
+        return root;
+    }
+
+    // Page title, duplicates of it are dropped from the content; may be null
+    public String getTitle() {
+        return title;
+    }
+
+    // Page description, duplicates of it are dropped from the content; may be null
+    public String getDescription() {
+        return description;
+    }
+
+    // URI relative links resolve against, null when the page has none
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    // Link resolved against the base URI
+    public String resolve(String link) {
+        return ReadableContentExtractor.resolve(baseUri, link);
+    }
+
+    // Counts of the content as it is now
+    public ElementIndex getIndex() {
+        if (index == null)
+            index = new ElementIndex(root, config.getSphereitKeywords());
+        return index;
+    }
+
+    // Removals go through the given index, which is kept up to date instead of building one
+    void useIndex(ElementIndex index) {
+        this.index = index;
+    }
+
+    WorkTracker work() {
+        return work;
+    }
+
+    // Detaches the element, keeping the index (if any) up to date
+    void remove(Element element) {
+        if (element.getParentNode() != null)
+            removals++;
+        if (index != null)
+            index.remove(element);
+        else if (element.getParentNode() != null)
+            element.getParentNode().removeChild(element);
+    }
+
+    // Tree stages may reshape the content freely, so the index is rebuilt after them
+    void invalidateIndex() {
+        index = null;
+    }
+}
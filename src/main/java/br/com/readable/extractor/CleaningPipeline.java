@@ -0,0 +1,230 @@
+package br.com.readable.extractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Ordered cleaning stages run on the chosen main content. Consecutive {@link ElementStage}s are fused into one walk
+ * over the tree; a {@link TreeStage}, or an explicit {@link Builder#newWalk()}, ends the current walk. Immutable.
+ */
+public final class CleaningPipeline {
+
+    // Same rules as the original clean-up passes, in four passes instead of one per rule: two element walks and the
+    // collapsing and normalizing tree stages
+    public static final CleaningPipeline DEFAULT = builder()
+            .add(CleaningStages.removeTags("form", "nav", "iframe", "font", "script", "aside", "button", "hr"))
+            .add(CleaningStages.removeSmallTables())
+            .add(CleaningStages.removeBoilerplateDivs())
+            .add(CleaningStages.collapseCodeSpansAndBreaks())
+            .add(CleaningStages.cleanImages())
+            .add(CleaningStages.cleanAttributes())
+            .add(CleaningStages.removeMoveLinks())
+            .add(CleaningStages.removeDuplicates())
+            .add(CleaningStages.normalize())
+            .build();
+
+    // Each group is either a single tree stage or the element stages of one walk
+    private final List<List<CleaningStage>> groups;
+
+    private CleaningPipeline(List<List<CleaningStage>> groups) {
+        this.groups = groups;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static CleaningPipeline of(CleaningStage... stages) {
+        Builder builder = builder();
+        for (CleaningStage stage : stages) {
+            builder.add(stage);
+        }
+        return builder.build();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        for (List<CleaningStage> group : groups) {
+            builder.newWalk();
+            for (CleaningStage stage : group) {
+                builder.add(stage);
+            }
+        }
+        return builder;
+    }
+
+    public List<CleaningStage> getStages() {
+        List<CleaningStage> stages = new ArrayList<>();
+        for (List<CleaningStage> group : groups) {
+            stages.addAll(group);
+        }
+        return Collections.unmodifiableList(stages);
+    }
+
+    // Number of tree walks and tree stages one run takes
+    public int getPassCount() {
+        return groups.size();
+    }
+
+    public void run(CleaningContext ctx) {
+        ExtractionListener listener = ctx.getConfig().getListener();
+        boolean instrumented = listener != ExtractionListener.NOOP;
+        int visited = 0;
+
+        for (List<CleaningStage> group : groups) {
+            long start = instrumented ? System.nanoTime() : 0;
+            if (group.get(0) instanceof TreeStage) {
+                ((TreeStage) group.get(0)).clean(ctx, ctx.getRoot());
+                ctx.invalidateIndex();
+            } else {
+                visited += walk(ctx, group, instrumented ? listener : null);
+            }
+            if (instrumented)
+                listener.cleaningPassCompleted(group, System.nanoTime() - start);
+        }
+
+        if (instrumented)
+            listener.nodesVisited(ExtractionPhase.CLEAN, visited);
+    }
+
+    // Returns the number of elements entered; removals are counted per stage when there is a listener
+    private static int walk(CleaningContext ctx, List<CleaningStage> stages, ExtractionListener listener) {
+        ElementStage.Visitor[] visitors = new ElementStage.Visitor[stages.size()];
+        for (int i = 0; i < visitors.length; i++) {
+            visitors[i] = ((ElementStage) stages.get(i)).begin(ctx);
+        }
+        int[] removed = new int[visitors.length];
+        List<Element> deferred = new ArrayList<>();
+        List<Integer> deferredBy = new ArrayList<>();
+        Element root = ctx.getRoot();
+        int visited = 0;
+
+        // Pre-order over the descendants of root, exiting elements on the way back up
+        Node node = root.getFirstChild();
+        while (node != null) {
+            Node sibling = node.getNextSibling();
+            Node parent = node.getParentNode();
+
+            if (node instanceof Element) {
+                Element element = (Element) node;
+                ctx.work().visit();
+                visited++;
+                int remover = enter(visitors, element, deferred, deferredBy);
+                if (remover >= 0) {
+                    ctx.remove(element);
+                    removed[remover]++;
+                } else if (element.getFirstChild() != null) {
+                    node = element.getFirstChild();
+                    continue;
+                } else {
+                    exit(ctx, visitors, element, deferred, deferredBy, removed);
+                }
+            }
+
+            // Climb until a following sibling is found, exiting the elements left behind
+            while (sibling == null && parent != root) {
+                Element finished = (Element) parent;
+                sibling = finished.getNextSibling();
+                parent = finished.getParentNode();
+                exit(ctx, visitors, finished, deferred, deferredBy, removed);
+            }
+            node = sibling;
+        }
+
+        for (int i = 0; i < deferred.size(); i++) {
+            int before = ctx.removals;
+            ctx.remove(deferred.get(i));
+            removed[deferredBy.get(i)] += ctx.removals - before;
+        }
+        for (int i = 0; i < visitors.length; i++) {
+            int before = ctx.removals;
+            visitors[i].end();
+            removed[i] += ctx.removals - before;
+        }
+
+        if (listener != null) {
+            for (int i = 0; i < visitors.length; i++) {
+                listener.nodesRemoved(stages.get(i), removed[i]);
+            }
+        }
+        return visited;
+    }
+
+    // Index of the stage removing the element right away, -1 when it stays for now
+    private static int enter(ElementStage.Visitor[] visitors, Element element, List<Element> deferred,
+                             List<Integer> deferredBy) {
+        boolean marked = false;
+        for (int i = 0; i < visitors.length; i++) {
+            ElementStage.Verdict verdict = visitors[i].enter(element);
+            if (verdict == ElementStage.Verdict.REMOVE)
+                return i;
+            if (verdict == ElementStage.Verdict.REMOVE_AFTER_WALK && !marked) {
+                deferred.add(element);
+                deferredBy.add(i);
+                marked = true;
+            }
+        }
+        return -1;
+    }
+
+    private static void exit(CleaningContext ctx, ElementStage.Visitor[] visitors, Element element,
+                             List<Element> deferred, List<Integer> deferredBy, int[] removed) {
+        for (int i = 0; i < visitors.length; i++) {
+            ElementStage.Verdict verdict = visitors[i].exit(element);
+            if (verdict == ElementStage.Verdict.REMOVE) {
+                ctx.remove(element);
+                removed[i]++;
+                return;
+            }
+            // Removing an element twice is harmless, the index skips what is already detached
+            if (verdict == ElementStage.Verdict.REMOVE_AFTER_WALK) {
+                deferred.add(element);
+                deferredBy.add(i);
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<List<CleaningStage>> groups = new ArrayList<>();
+        private boolean walkOpen = false;
+
+        private Builder() {
+        }
+
+        public Builder add(CleaningStage stage) {
+            if (stage instanceof TreeStage) {
+                List<CleaningStage> group = new ArrayList<>(1);
+                group.add(stage);
+                groups.add(group);
+                walkOpen = false;
+            } else if (stage instanceof ElementStage) {
+                if (!walkOpen)
+                    groups.add(new ArrayList<CleaningStage>());
+                groups.get(groups.size() - 1).add(stage);
+                walkOpen = true;
+            } else {
+                throw new IllegalArgumentException("Stage must be an ElementStage or a TreeStage.");
+            }
+            return this;
+        }
+
+        // Element stages added from now on get a walk of their own
+        public Builder newWalk() {
+            walkOpen = false;
+            return this;
+        }
+
+        public CleaningPipeline build() {
+            List<List<CleaningStage>> copy = new ArrayList<>(groups.size());
+            for (List<CleaningStage> group : groups) {
+                copy.add(Collections.unmodifiableList(new ArrayList<>(group)));
+            }
+            return new CleaningPipeline(Collections.unmodifiableList(copy));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.readable.extractor;
+
+/**
+ * One rule of a {@link CleaningPipeline}, applied to the chosen main content. Rules are either an
+ * {@link ElementStage}, which judges one element at a time and shares a tree walk with its neighbours, or a
+ * {@link TreeStage}, which gets the whole content to itself. Stages are shared by every extraction and must be
+ * thread-safe; per-extraction state belongs in the visitor an element stage begins.
+ */
+public interface CleaningStage {
+}
@@ -0,0 +1,584 @@
+package br.com.readable.extractor;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.w3c.dom.*;
+
+/**
+ * The built-in cleaning rules, as used by {@link CleaningPipeline#DEFAULT}. Each one can also be run on its own,
+ * through {@link CleaningPipeline#of(CleaningStage...)}.
+ */
+public final class CleaningStages {
+
+    private static final Pattern IMAGE_SIZE_PATTERN = Pattern.compile("(\\d+).*");
+
+    // Text length below which clean(e, tag) drops an element, i.e. any element
+    private static final int ANY_LENGTH = 1000000;
+
+    // Threshold taken from the extractor settings
+    private static final int CONFIGURED = -1;
+
+    private static final Set<String> CODE_SPANS_AND_BREAK_TAGS = new HashSet<>(Arrays.asList("br", "span"));
+
+    private CleaningStages() {
+    }
+
+    // Removes every element with one of the tags (pre elements excepted)
+    public static ElementStage removeTags(String... tags) {
+        return new RemoveTags(new HashSet<>(Arrays.asList(tags)), ANY_LENGTH);
+    }
+
+    // Removes elements with one of the tags holding less text than the given length (pre elements excepted)
+    public static ElementStage removeTags(int minTextLength, String... tags) {
+        return new RemoveTags(new HashSet<>(Arrays.asList(tags)), minTextLength);
+    }
+
+    // Removes tables with fewer cells than the configured minimum
+    public static ElementStage removeSmallTables() {
+        return SMALL_TABLES;
+    }
+
+    // Removes tables with fewer cells than the given minimum
+    public static ElementStage removeSmallTables(int minCells) {
+        return new SmallTables(minCells);
+    }
+
+    // Removes divs with more non paragraph stuff than paragraphs, or whose id is a stopword
+    public static ElementStage removeBoilerplateDivs() {
+        return BOILERPLATE_DIVS;
+    }
+
+    // Drops br and span elements and empty paragraphs, collapsing the text around them
+    public static TreeStage collapseCodeSpansAndBreaks() {
+        return CODE_SPANS_AND_BREAKS;
+    }
+
+    // Drops small images and resolves the source of the others
+    public static ElementStage cleanImages() {
+        return IMAGES;
+    }
+
+    // Drops attributes that are not allowed and javascript links, noting whether an image comes before the text
+    public static ElementStage cleanAttributes() {
+        return ATTRIBUTES;
+    }
+
+    // Removes links to anchors of the page itself
+    public static ElementStage removeMoveLinks() {
+        return MOVE_LINKS;
+    }
+
+    // Removes headings repeating the title and the paragraph repeating the description
+    public static ElementStage removeDuplicates() {
+        return DUPLICATES;
+    }
+
+    // Merges adjacent text nodes
+    public static TreeStage normalize() {
+        return NORMALIZE;
+    }
+
+    // Removes consecutive <br />'s and spans, returns whether anything visible is left. Elements are collapsed
+    // after all of their descendants, as the original recursion did, from a list instead of the stack. The children
+    // list and the text buffer are shared by every element of the walk
+    static boolean collapseCodeSpansAndBreaks(Element e) {
+        List<Element> elements = DomTraversal.preOrderElements(e, CODE_SPANS_AND_BREAK_TAGS, null);
+        Map<Element, Boolean> visible = new IdentityHashMap<>();
+        List<Node> children = new ArrayList<>();
+        TextAppender appender = new TextAppender();
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            Element element = elements.get(i);
+            visible.put(element, collapseChildren(element, visible, children, appender));
+        }
+        return visible.get(e);
+    }
+
+    private static boolean collapseChildren(Element e, Map<Element, Boolean> visible, List<Node> children,
+                                            TextAppender appender) {
+
+        children.clear();
+        for (Node child = e.getFirstChild(); child != null; child = child.getNextSibling()) {
+            children.add(child);
+        }
+
+        appender.reset();
+
+        boolean hasChild = false;
+
+        ReadableContentExtractor.removeChildren(e);
+
+        for(Node child: children){
+
+            if(child instanceof Element){
+
+                Element element = (Element) child;
+                String name = element.getTagName();
+
+                if("br".equals(name) || "span".equals(name))
+                    continue;
+
+                boolean hasGChild = visible.get(element);
+
+                if(("p".equals(name) || "div".equals(name)) && !hasGChild){
+                    appender.append(" ");
+                    continue;
+                }
+
+                // Empty text between two elements is left out, normalize would drop it anyway
+                if (!appender.isEmpty())
+                    e.appendChild(e.getOwnerDocument().createTextNode(appender.toString()));
+                appender.reset();
+                e.appendChild(element);
+                hasChild = child.hasChildNodes();
+
+            }else if(child instanceof Text){
+                appender.append(((Text)child).getData());
+            }
+        }
+
+        hasChild |= appender.hasVisibleChar;
+        if(!appender.isEmpty()) e.appendChild(e.getOwnerDocument().createTextNode(appender.finish()));
+
+        return hasChild;
+    }
+
+    private static final class RemoveTags implements ElementStage {
+
+        private final Set<String> tags;
+        private final int minTextLength;
+
+        RemoveTags(Set<String> tags, int minTextLength) {
+            this.tags = tags;
+            this.minTextLength = minTextLength;
+        }
+
+        @Override
+        public String toString() {
+            return "removeTags" + (minTextLength == ANY_LENGTH ? "" : "(" + minTextLength + ")") + new TreeSet<>(tags);
+        }
+
+        @Override
+        public Visitor begin(final CleaningContext ctx) {
+            return new Visitor() {
+                @Override
+                public Verdict enter(Element element) {
+                    String tagName = element.getTagName();
+                    if (!tags.contains(tagName) || tagName.equalsIgnoreCase("pre"))
+                        return Verdict.KEEP;
+                    return ctx.getIndex().textLength(element) < minTextLength ? Verdict.REMOVE : Verdict.KEEP;
+                }
+            };
+        }
+    }
+
+    private static final ElementStage SMALL_TABLES = new SmallTables(CONFIGURED);
+
+    private static final class SmallTables implements ElementStage {
+
+        private final int minCells;
+
+        SmallTables(int minCells) {
+            this.minCells = minCells;
+        }
+
+        @Override
+        public String toString() {
+            return "removeSmallTables" + (minCells == CONFIGURED ? "" : "(" + minCells + ")");
+        }
+
+        @Override
+        public Visitor begin(final CleaningContext ctx) {
+            final int min = minCells == CONFIGURED ? ctx.getConfig().getMinTableCells() : minCells;
+            return new Visitor() {
+                // Judged once the junk inside the table is gone
+                @Override
+                public Verdict exit(Element element) {
+                    if (!"table".equals(element.getTagName()))
+                        return Verdict.KEEP;
+                    return ctx.getIndex().count(element, "td") < min ? Verdict.REMOVE : Verdict.KEEP;
+                }
+            };
+        }
+    }
+
+    private static final ElementStage BOILERPLATE_DIVS = new ElementStage() {
+        @Override
+        public String toString() {
+            return "removeBoilerplateDivs";
+        }
+
+        @Override
+        public Visitor begin(final CleaningContext ctx) {
+            final KeywordMatcher stopwords = ctx.getConfig().getStopwordKeywords();
+            return new Visitor() {
+                // Removal is deferred so every div is judged on the same tree
+                @Override
+                public Verdict exit(Element div) {
+                    if (!"div".equals(div.getTagName()))
+                        return Verdict.KEEP;
+
+                    ElementIndex index = ctx.getIndex();
+                    int pCount = index.count(div, "p");
+                    int imgCount = index.count(div, "img");
+                    int liCount = index.count(div, "li");
+                    int aCount = index.count(div, "a");
+                    int embedCount = index.count(div, "embed");
+                    int objectCount = index.count(div, "object");
+                    int preCount = index.count(div, "pre");
+                    int codeCount = index.count(div, "code");
+
+                    int sphereit = index.hasMatchingComment(div) ? 0 : 1;
+
+                    int length = ctx.getConfig().isLengthScoring() ? index.textLength(div) : 0;
+                    if (length < 10) {
+                        // And the number of non-paragraph elements is more than paragraphs or other ominous signs :
+                        if ((imgCount > pCount || liCount > pCount || aCount > pCount || pCount == 0)
+                                && (preCount == 0 && codeCount == 0 && embedCount == 0 && objectCount == 0 && sphereit == 0)) {
+                            if (pCount != 0 && imgCount == 1)
+                                return Verdict.REMOVE_AFTER_WALK;
+                        }
+                    }
+
+                    // Removing elements by stopwords
+                    String divId = div.getAttribute("id");
+                    if (stopwords.find(divId))
+                        return Verdict.REMOVE_AFTER_WALK;
+                    return Verdict.KEEP;
+                }
+            };
+        }
+    };
+
+    private static final TreeStage CODE_SPANS_AND_BREAKS = new TreeStage() {
+        @Override
+        public String toString() {
+            return "collapseCodeSpansAndBreaks";
+        }
+
+        @Override
+        public void clean(CleaningContext ctx, Element root) {
+            collapseCodeSpansAndBreaks(root);
+        }
+    };
+
+    private static final ElementStage IMAGES = new ElementStage() {
+        @Override
+        public String toString() {
+            return "cleanImages";
+        }
+
+        @Override
+        public Visitor begin(final CleaningContext ctx) {
+            final Matcher imageSizePattern = IMAGE_SIZE_PATTERN.matcher("");
+            final int minImageSize = ctx.getConfig().getMinImageSize();
+            return new Visitor() {
+                @Override
+                public Verdict enter(Element image) {
+                    if (!"img".equals(image.getTagName()))
+                        return Verdict.KEEP;
+
+                    Integer width = size(image.getAttribute("width"));
+                    Integer height = size(image.getAttribute("height"));
+                    if ((width != null && width < minImageSize) || (height != null && height < minImageSize))
+                        return Verdict.REMOVE;
+
+                    // Remove "data-src" attr, if exists
+                    String copy = image.getAttribute("data-src");
+                    if (copy != null && !copy.isEmpty()) {
+                        image.setAttribute("src", copy);
+                        image.removeAttribute("data-src");
+                    }
+
+                    // Set absolute path for all images
+                    image.setAttribute("src", ctx.resolve(image.getAttribute("src")));
+                    return Verdict.KEEP;
+                }
+
+                private Integer size(String value) {
+                    if (value == null || value.isEmpty())
+                        return null;
+                    Matcher matcher = imageSizePattern.reset(value);
+                    return matcher.matches() ? Integer.valueOf(matcher.group(1)) : null;
+                }
+            };
+        }
+    };
+
+    private static final ElementStage ATTRIBUTES = new ElementStage() {
+        @Override
+        public String toString() {
+            return "cleanAttributes";
+        }
+
+        @Override
+        public Visitor begin(final CleaningContext ctx) {
+            final KeywordMatcher allowedAttributes = ctx.getConfig().getAllowedAttributes();
+            return new Visitor() {
+                private boolean foundParagraph = false;
+
+                // Attribute names repeat a lot, each one is looked up once per walk
+                private final Map<String, Boolean> allowed = new HashMap<>();
+
+                @Override
+                public Verdict enter(Element el) {
+                    String tagName = el.getTagName();
+                    if (tagName.equals("p") && ownTextLength(el) > 20)
+                        foundParagraph = true;
+                    else if (tagName.equals("img") && !foundParagraph)
+                        ctx.getExtraction().imageBeforeText = true;
+
+                    NamedNodeMap attributes = el.getAttributes();
+                    for (int j = 0; j < attributes.getLength(); j++) {
+                        Attr attribute = (Attr) attributes.item(j);
+                        String name = attribute.getName();
+                        if (!isAllowed(name) || (isHref(name) && attribute.getValue().startsWith("javascript:")))
+                            attributes.removeNamedItem(name);
+                    }
+                    return Verdict.KEEP;
+                }
+
+                private boolean isAllowed(String name) {
+                    Boolean result = allowed.get(name);
+                    if (result == null) {
+                        result = allowedAttributes.find(name);
+                        allowed.put(name, result);
+                    }
+                    return result;
+                }
+            };
+        }
+    };
+
+    private static final ElementStage MOVE_LINKS = new ElementStage() {
+        @Override
+        public String toString() {
+            return "removeMoveLinks";
+        }
+
+        @Override
+        public Visitor begin(CleaningContext ctx) {
+            return new Visitor() {
+                @Override
+                public Verdict enter(Element link) {
+                    if (!"a".equals(link.getTagName()))
+                        return Verdict.KEEP;
+
+                    NamedNodeMap attributes = link.getAttributes();
+                    for (int j = 0; j < attributes.getLength(); j++) {
+                        Attr attribute = (Attr) attributes.item(j);
+                        if (isHref(attribute.getName()) && attribute.getValue().startsWith("#"))
+                            return Verdict.REMOVE_AFTER_WALK;
+                    }
+                    return Verdict.KEEP;
+                }
+            };
+        }
+    };
+
+    private static final ElementStage DUPLICATES = new ElementStage() {
+        @Override
+        public String toString() {
+            return "removeDuplicates";
+        }
+
+        @Override
+        public Visitor begin(final CleaningContext ctx) {
+            final String title = ctx.getTitle();
+            final String description = ctx.getDescription();
+            return new Visitor() {
+                private final List<Element> headings = new ArrayList<>();
+                private final List<Element> emptyParagraphs = new ArrayList<>();
+
+                @Override
+                public Verdict enter(Element el) {
+                    String tagName = el.getTagName();
+                    if (title != null && (tagName.equals("h1") || tagName.equals("h2") || tagName.equals("h3"))
+                            && ownTextEquals(el, title))
+                        headings.add(el);
+                    else if (description != null && tagName.equals("p") && !hasVisibleOwnText(el))
+                        emptyParagraphs.add(el);
+                    return Verdict.KEEP;
+                }
+
+                // Candidates inside elements removed by the walk are gone already
+                @Override
+                public void end() {
+                    List<Element> toRemove = new ArrayList<>();
+                    for (Element heading : headings) {
+                        if (isAttached(heading, ctx.getRoot()))
+                            toRemove.add(heading);
+                    }
+
+                    // Only the first paragraph without text of its own is compared with the description
+                    for (Element paragraph : emptyParagraphs) {
+                        if (!isAttached(paragraph, ctx.getRoot()))
+                            continue;
+                        if (ownTextEquals(paragraph, description))
+                            toRemove.add(paragraph);
+                        break;
+                    }
+
+                    for (Element el : toRemove) {
+                        ctx.remove(el);
+                    }
+                }
+            };
+        }
+    };
+
+    private static final TreeStage NORMALIZE = new TreeStage() {
+        @Override
+        public String toString() {
+            return "normalize";
+        }
+
+        // Same merging as Node.normalize, element by element instead of recursively
+        @Override
+        public void clean(CleaningContext ctx, Element root) {
+            for (Node node = root; node != null; node = DomTraversal.next(node, root)) {
+                if (node instanceof Element)
+                    normalizeText((Element) node);
+            }
+        }
+    };
+
+    private static boolean isHref(String name) {
+        return name.length() == 4 && name.equalsIgnoreCase("href");
+    }
+
+    private static boolean hasVisibleOwnText(Element el) {
+        for (Node child = el.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Text) {
+                String text = ((Text) child).getData();
+                for (int j = 0; j < text.length(); j++) {
+                    char c = text.charAt(j);
+                    if (!Character.isWhitespace(c) && c != 160)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Length of ReadableContentExtractor.getFirstLevelTextContent, without building the string
+    private static int ownTextLength(Element el) {
+        int length = 0;
+        for (Node child = el.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.TEXT_NODE)
+                length += ((Text) child).getLength();
+        }
+        return length;
+    }
+
+    // Whether ReadableContentExtractor.getFirstLevelTextContent is the value, compared text node by text node
+    private static boolean ownTextEquals(Element el, String value) {
+        int offset = 0;
+        for (Node child = el.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() != Node.TEXT_NODE)
+                continue;
+            String data = ((Text) child).getData();
+            if (!value.regionMatches(offset, data, 0, data.length()))
+                return false;
+            offset += data.length();
+        }
+        return offset == value.length();
+    }
+
+    // Merges the adjacent text children of the element and drops the empty ones
+    private static void normalizeText(Element element) {
+        Node next;
+        for (Node kid = element.getFirstChild(); kid != null; kid = next) {
+            next = kid.getNextSibling();
+            if (kid.getNodeType() != Node.TEXT_NODE)
+                continue;
+            if (next != null && next.getNodeType() == Node.TEXT_NODE) {
+                ((Text) kid).appendData(next.getNodeValue());
+                element.removeChild(next);
+                // Stay on the same node, there might be more to merge
+                next = kid;
+            } else if (kid.getNodeValue() == null || kid.getNodeValue().isEmpty()) {
+                element.removeChild(kid);
+            }
+        }
+    }
+
+    private static boolean isAttached(Node node, Node root) {
+        for (Node n = node; n != null; n = n.getParentNode()) {
+            if (n == root)
+                return true;
+        }
+        return false;
+    }
+
+    private static class TextAppender {
+
+        private final StringBuilder buf = new StringBuilder();
+
+        private boolean lastIsWhiteSpace = false;
+        private boolean hasVisibleChar = false;
+
+        public void reset() {
+            lastIsWhiteSpace = false;
+            hasVisibleChar = false;
+            buf.setLength(0);
+        }
+
+        public boolean hasVisibleChar() {
+            return hasVisibleChar;
+        }
+
+        @Override
+        public String toString() {
+            if(lastIsWhiteSpace) buf.append(' ');
+            return buf.toString();
+        }
+
+        public int length() {
+            return buf.length();
+        }
+
+        public boolean isEmpty() {
+            return buf.length() == 0 && !lastIsWhiteSpace;
+        }
+
+        // Text at the end of an element, where trailing whitespace has always come out as two spaces
+        public String finish() {
+            if(lastIsWhiteSpace) buf.append("  ");
+            return buf.toString();
+        }
+
+        public void append(String str) {
+
+            int length = str.length();
+
+            for (int i = 0; i < length; i++) {
+
+                char c = str.charAt(i);
+                if (Character.isWhitespace(c) || c == 160){
+                    lastIsWhiteSpace = true;
+                    continue;
+                }
+
+                if (lastIsWhiteSpace) {
+                    buf.append(' ');
+                    lastIsWhiteSpace = false;
+                }
+
+                int j;
+                for (j = i + 1; j < length; j++) {
+                    c = str.charAt(j);
+                    if (Character.isWhitespace(c)  || c == 160) {
+                        lastIsWhiteSpace = true;
+                        break;
+                    }
+                }
+
+                buf.append(str, i, j);
+                hasVisibleChar = true;
+                i = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package br.com.readable.extractor;
+
+import java.util.Arrays;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * A subtree flattened into parallel arrays in pre-order, filled in a single traversal once its nodes are counted:
+ * tag, parent, subtree size, text length and comma count of every node. Nodes are addressed by ordinal, the root being 0, so scoring runs on
+ * primitives and only reaches back into the DOM for the elements it settles on. Values reflect the tree as it was
+ * at build time.
+ */
+final class CompactTree {
+
+    // Tags scoring tells apart, other elements are ELEMENT and other nodes (comments, ...) OTHER
+    static final short OTHER = 0;
+    static final short TEXT = 1;
+    static final short ELEMENT = 2;
+    static final short DIV = 3;
+    static final short P = 4;
+    static final short BR = 5;
+    static final short A = 6;
+
+    static final byte DIRECT_VISIBLE = 1;
+    static final byte VISIBLE = 2;
+    // A div or an article, in any case
+    static final byte CONTAINER = 4;
+
+    private Node[] nodes;
+    private short[] tags;
+    private byte[] flags;
+    private int[] parents;
+    private int[] subtreeSizes;
+    private int[] textLengths;
+    private int[] commas;
+    // Ordinal of the first visible text node at or after each ordinal, size when there is none
+    private int[] nextVisibleText;
+    private int size;
+    private int nodeCount;
+
+    // Counting every element and text node against the extraction's budget, when there is one
+    CompactTree(Node root, WorkTracker work) {
+        // Counted first, so every array is allocated once at its final size
+        int capacity = count(root);
+        nodes = new Node[capacity];
+        tags = new short[capacity];
+        flags = new byte[capacity];
+        parents = new int[capacity];
+        subtreeSizes = new int[capacity];
+        textLengths = new int[capacity];
+        commas = new int[capacity];
+        nextVisibleText = new int[capacity + 1];
+        build(root, work);
+    }
+
+    // Nodes of the subtree, ordinals run from 0 to size - 1
+    int size() {
+        return size;
+    }
+
+    // Elements and text nodes of the subtree, the ones counted against budgets
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    Node node(int ordinal) {
+        return nodes[ordinal];
+    }
+
+    short tag(int ordinal) {
+        return tags[ordinal];
+    }
+
+    boolean hasFlag(int ordinal, byte flag) {
+        return (flags[ordinal] & flag) != 0;
+    }
+
+    // -1 for the root
+    int parent(int ordinal) {
+        return parents[ordinal];
+    }
+
+    // Length of all text below the node (the node itself, for text nodes)
+    int textLength(int ordinal) {
+        return textLengths[ordinal];
+    }
+
+    int commaCount(int ordinal) {
+        return commas[ordinal];
+    }
+
+    // -1 when the node has no children
+    int firstChild(int ordinal) {
+        return subtreeSizes[ordinal] > 1 ? ordinal + 1 : -1;
+    }
+
+    // -1 for the last child
+    int nextSibling(int ordinal) {
+        int next = ordinal + subtreeSizes[ordinal];
+        return ordinal > 0 && next < size && parents[next] == parents[ordinal] ? next : -1;
+    }
+
+    // First text node with a visible character below the node, in document order; -1 when there is none
+    int firstVisibleText(int ordinal) {
+        if ((flags[ordinal] & VISIBLE) == 0)
+            return -1;
+
+        // Descendants directly follow their ancestor in pre-order
+        int next = nextVisibleText[ordinal + 1];
+        return next < ordinal + subtreeSizes[ordinal] ? next : -1;
+    }
+
+    private void build(Node root, WorkTracker work) {
+        add(root, -1);
+
+        // Pre-order walk, descending into elements only; children get greater ordinals than their parents
+        int current = 0;
+        int depth = 1;
+        Node node = root.getFirstChild();
+        while (node != null) {
+            int ordinal = add(node, current);
+            if (work != null && tags[ordinal] != OTHER)
+                work.visit(depth);
+
+            if (node instanceof Element && node.getFirstChild() != null) {
+                current = ordinal;
+                node = node.getFirstChild();
+                depth++;
+                continue;
+            }
+
+            while (node != root && node.getNextSibling() == null) {
+                node = node.getParentNode();
+                if (node == root)
+                    break;
+                current = parents[current];
+                depth--;
+            }
+            node = node == root ? null : node.getNextSibling();
+        }
+
+        Arrays.fill(subtreeSizes, 1);
+
+        // Bottom-up accumulation, every node is complete before it is added to its parent
+        for (int ordinal = size - 1; ordinal > 0; ordinal--) {
+            int parent = parents[ordinal];
+            subtreeSizes[parent] += subtreeSizes[ordinal];
+            textLengths[parent] += textLengths[ordinal];
+            commas[parent] += commas[ordinal];
+
+            if ((flags[ordinal] & VISIBLE) != 0) {
+                flags[parent] |= VISIBLE;
+                if (tags[ordinal] == TEXT)
+                    flags[parent] |= DIRECT_VISIBLE;
+            }
+        }
+
+        // Filled backwards, so finding the first visible text of a subtree takes no scan of it
+        nextVisibleText[size] = size;
+        for (int ordinal = size - 1; ordinal >= 0; ordinal--) {
+            boolean visibleText = tags[ordinal] == TEXT && (flags[ordinal] & VISIBLE) != 0;
+            nextVisibleText[ordinal] = visibleText ? ordinal : nextVisibleText[ordinal + 1];
+        }
+    }
+
+    // Same walk as build, without the bookkeeping
+    private static int count(Node root) {
+        int count = 1;
+        for (Node node = root.getFirstChild(); node != null; ) {
+            count++;
+            if (node instanceof Element && node.getFirstChild() != null) {
+                node = node.getFirstChild();
+                continue;
+            }
+            while (node != root && node.getNextSibling() == null) {
+                node = node.getParentNode();
+            }
+            node = node == root ? null : node.getNextSibling();
+        }
+        return count;
+    }
+
+    private int add(Node node, int parent) {
+        int ordinal = size++;
+        nodes[ordinal] = node;
+        parents[ordinal] = parent;
+        if (node instanceof Text) {
+            tags[ordinal] = TEXT;
+            scanText(ordinal, ((Text) node).getData());
+            nodeCount++;
+        } else if (node instanceof Element) {
+            String name = ((Element) node).getTagName();
+            tags[ordinal] = tagOf(name);
+            if (name.equalsIgnoreCase("div") || name.equalsIgnoreCase("article"))
+                flags[ordinal] |= CONTAINER;
+            nodeCount++;
+        }
+        return ordinal;
+    }
+
+    private static short tagOf(String name) {
+        switch (name) {
+            case "div":
+                return DIV;
+            case "p":
+                return P;
+            case "br":
+                return BR;
+            case "a":
+                return A;
+            default:
+                return ELEMENT;
+        }
+    }
+
+    private void scanText(int ordinal, String text) {
+        int length = text.length();
+        int commaCount = 0;
+        boolean visible = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == ',')
+                commaCount++;
+            if (!visible && !Character.isWhitespace(c) && c != 160)
+                visible = true;
+        }
+
+        textLengths[ordinal] = length;
+        commas[ordinal] = commaCount;
+        if (visible)
+            flags[ordinal] |= VISIBLE | DIRECT_VISIBLE;
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.readable.extractor;
+
+/**
+ * Formats {@link ContentSerializer} writes content in. Inside JSON, the content field is named after the format.
+ */
+public enum ContentFormat {
+    HTML("html"),
+    TEXT("text"),
+    MARKDOWN("markdown");
+
+    private final String field;
+
+    ContentFormat(String field) {
+        this.field = field;
+    }
+
+    // Name of the JSON field holding the content
+    public String getField() {
+        return field;
+    }
+}
@@ -0,0 +1,867 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
+
+/**
+ * Writes extracted content as minimal HTML, plain text, Markdown or JSON, straight into an {@link Appendable} (a
+ * Writer or a StringBuilder) or a {@link ByteBuffer} as UTF-8, without going through a JAXP Transformer. Every format
+ * walks the content once and allocates next to nothing beyond the output itself.
+ * <p>
+ * HTML keeps elements, attributes and text, escaped, and leaves comments out. Plain text puts block elements on lines
+ * of their own, with a blank line after paragraphs, headings, lists and tables, and collapses whitespace outside of
+ * pre elements. Markdown follows the same layout with headings, emphasis, links, images, lists, quotes and fenced
+ * code. Whole {@link ExtractionResult}s are written with their title, description and main image first; as JSON,
+ * they make a single object holding the content in any of these formats, HTML by default.
+ */
+public final class ContentSerializer {
+
+    private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track",
+            "wbr"));
+
+    // Followed by a blank line in plain text
+    private static final Set<String> PARAGRAPHS = new HashSet<>(Arrays.asList(
+            "p", "h1", "h2", "h3", "h4", "h5", "h6", "pre", "blockquote", "ul", "ol", "dl", "table", "figure"));
+
+    // On lines of their own in plain text
+    private static final Set<String> BLOCKS = new HashSet<>(Arrays.asList(
+            "address", "article", "aside", "dd", "div", "dt", "figcaption", "footer", "header", "hr", "li", "main",
+            "nav", "section", "tr"));
+
+    private ContentSerializer() {
+    }
+
+    public static void writeHtml(Node content, Appendable out) throws IOException {
+        new HtmlWriter(ContentWriter.Output.of(out)).write(content);
+    }
+
+    // Fails with a BufferOverflowException once the buffer is full, with what fit written
+    public static void writeHtml(Node content, ByteBuffer out) throws IOException {
+        new HtmlWriter(ContentWriter.Output.of(out)).write(content);
+    }
+
+    public static String toHtml(Node content) throws IOException {
+        StringBuilder out = new StringBuilder();
+        writeHtml(content, out);
+        return out.toString();
+    }
+
+    public static void writeText(Node content, Appendable out) throws IOException {
+        new TextWriter(ContentWriter.Output.of(out)).write(content);
+    }
+
+    // Fails with a BufferOverflowException once the buffer is full, with what fit written
+    public static void writeText(Node content, ByteBuffer out) throws IOException {
+        new TextWriter(ContentWriter.Output.of(out)).write(content);
+    }
+
+    public static String toText(Node content) throws IOException {
+        StringBuilder out = new StringBuilder();
+        writeText(content, out);
+        return out.toString();
+    }
+
+    // Title and description as paragraphs of their own, then the content
+    public static void writeText(ExtractionResult result, Appendable out) throws IOException {
+        writeText(result, ContentWriter.Output.of(out));
+    }
+
+    public static void writeText(ExtractionResult result, ByteBuffer out) throws IOException {
+        writeText(result, ContentWriter.Output.of(out));
+    }
+
+    public static void writeMarkdown(Node content, Appendable out) throws IOException {
+        new MarkdownWriter(ContentWriter.Output.of(out)).write(content);
+    }
+
+    public static void writeMarkdown(Node content, ByteBuffer out) throws IOException {
+        new MarkdownWriter(ContentWriter.Output.of(out)).write(content);
+    }
+
+    public static String toMarkdown(Node content) throws IOException {
+        StringBuilder out = new StringBuilder();
+        writeMarkdown(content, out);
+        return out.toString();
+    }
+
+    // Title as a heading, description and main image, then the content
+    public static void writeMarkdown(ExtractionResult result, Appendable out) throws IOException {
+        writeMarkdown(result, ContentWriter.Output.of(out));
+    }
+
+    public static void writeMarkdown(ExtractionResult result, ByteBuffer out) throws IOException {
+        writeMarkdown(result, ContentWriter.Output.of(out));
+    }
+
+    // One object: url, title, description, image (null when missing), the images of the content and the content as
+    // HTML. Nothing follows the closing brace, a line break after each result makes JSON lines
+    public static void writeJson(ExtractionResult result, Appendable out) throws IOException {
+        writeJson(result, ContentFormat.HTML, ContentWriter.Output.of(out));
+    }
+
+    public static void writeJson(ExtractionResult result, ByteBuffer out) throws IOException {
+        writeJson(result, ContentFormat.HTML, ContentWriter.Output.of(out));
+    }
+
+    // Same object with the content in the given format, under the format's field name
+    public static void writeJson(ExtractionResult result, ContentFormat format, Appendable out) throws IOException {
+        writeJson(result, format, ContentWriter.Output.of(out));
+    }
+
+    public static void writeJson(ExtractionResult result, ContentFormat format, ByteBuffer out) throws IOException {
+        writeJson(result, format, ContentWriter.Output.of(out));
+    }
+
+    // A JSON string, quotes included, or null for null
+    public static void writeJsonString(String value, Appendable out) throws IOException {
+        ContentWriter.Output output = ContentWriter.Output.of(out);
+        new JsonStringOutput(output).value(value);
+        output.flush();
+    }
+
+    private static void writeText(ExtractionResult result, ContentWriter.Output out) throws IOException {
+        TextWriter writer = new TextWriter(out);
+        writer.paragraph(result.getTitle());
+        writer.paragraph(result.getDescription());
+        writer.write(result.getContent());
+    }
+
+    private static void writeMarkdown(ExtractionResult result, ContentWriter.Output out) throws IOException {
+        MarkdownWriter writer = new MarkdownWriter(out);
+        writer.heading(result.getTitle());
+        writer.paragraph(result.getDescription());
+        writer.image(result.getImage(), null);
+        writer.write(result.getContent());
+    }
+
+    private static void writeJson(ExtractionResult result, ContentFormat format, ContentWriter.Output out)
+            throws IOException {
+        if (format == null)
+            throw new IllegalArgumentException("Format must not be null.");
+
+        JsonStringOutput string = new JsonStringOutput(out);
+        out.append("{\"url\":");
+        string.value(result.getDocument().getDocumentURI());
+        out.append(",\"title\":");
+        string.value(result.getTitle());
+        out.append(",\"description\":");
+        string.value(result.getDescription());
+        out.append(",\"image\":");
+        string.value(result.getImage());
+
+        // Sources of the content's images in document order, each once
+        out.append(",\"images\":[");
+        NodeList images = result.getContent().getElementsByTagName("img");
+        boolean first = true;
+        for (int i = 0; i < images.getLength(); i++) {
+            String src = ((Element) images.item(i)).getAttribute("src");
+            if (src.isEmpty() || isRepeated(images, i, src))
+                continue;
+            if (!first)
+                out.append(',');
+            string.value(src);
+            first = false;
+        }
+
+        out.append("],\"");
+        out.append(format.getField());
+        out.append("\":\"");
+        Node content = result.getContent();
+        switch (format) {
+            case TEXT:
+                new TextWriter(string).write(content);
+                break;
+            case MARKDOWN:
+                new MarkdownWriter(string).write(content);
+                break;
+            default:
+                new HtmlWriter(string).write(content);
+                break;
+        }
+        out.append("\"}");
+        out.flush();
+    }
+
+    private static boolean isRepeated(NodeList images, int index, String src) {
+        for (int i = 0; i < index; i++) {
+            if (src.equals(((Element) images.item(i)).getAttribute("src")))
+                return true;
+        }
+        return false;
+    }
+
+    // Whether any text below the element has a visible character, inline markup around nothing is left out
+    private static boolean hasVisibleText(Element element) {
+        for (Node node = element; node != null; node = DomTraversal.next(node, element)) {
+            if (!(node instanceof Text))
+                continue;
+            String data = ((Text) node).getData();
+            for (int i = 0; i < data.length(); i++) {
+                if (!ContentWriter.isSpace(data.charAt(i)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class HtmlWriter extends ContentWriter {
+
+        HtmlWriter(Output out) {
+            super(out);
+        }
+
+        @Override
+        void startElement(Element element) throws IOException {
+            out.append('<');
+            out.append(element.getTagName());
+            NamedNodeMap attributes = element.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attribute = (Attr) attributes.item(i);
+                out.append(' ');
+                out.append(attribute.getName());
+                out.append("=\"");
+                escape(attribute.getValue(), true);
+                out.append('"');
+            }
+            out.append('>');
+        }
+
+        @Override
+        void endElement(Element element) throws IOException {
+            String name = element.getTagName();
+            if (VOID_ELEMENTS.contains(name))
+                return;
+            out.append("</");
+            out.append(name);
+            out.append('>');
+        }
+
+        @Override
+        void text(String text) throws IOException {
+            escape(text, false);
+        }
+
+        // Copies the text in runs between the characters that need escaping
+        private void escape(String text, boolean attribute) throws IOException {
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                String entity;
+                switch (text.charAt(i)) {
+                    case '&':
+                        entity = "&amp;";
+                        break;
+                    case '<':
+                        entity = "&lt;";
+                        break;
+                    case '>':
+                        entity = "&gt;";
+                        break;
+                    case '"':
+                        entity = attribute ? "&quot;" : null;
+                        break;
+                    default:
+                        entity = null;
+                        break;
+                }
+                if (entity == null)
+                    continue;
+                out.append(text, start, i);
+                out.append(entity);
+                start = i + 1;
+            }
+            out.append(text, start, text.length());
+        }
+    }
+
+    // Text laid out in lines: whitespace collapsed outside of pre elements, line breaks owed by blocks written only
+    // once there is text to follow them, so there are none at the start or the end
+    private abstract static class LineWriter extends ContentWriter {
+
+        private int breaks;
+        private boolean space;
+        private boolean written;
+        protected int pre;
+
+        LineWriter(Output out) {
+            super(out);
+        }
+
+        void lineBreak(int count) {
+            breaks = Math.max(breaks, count);
+        }
+
+        boolean hasBreak() {
+            return breaks > 0;
+        }
+
+        // Keeps what comes next apart from the text before it, as whitespace would
+        void whitespace() {
+            space = true;
+        }
+
+        // A paragraph of text outside of the content, nothing for null
+        void paragraph(String text) throws IOException {
+            if (text == null)
+                return;
+            text(text);
+            lineBreak(2);
+        }
+
+        @Override
+        void text(String text) throws IOException {
+            if (pre > 0) {
+                if (!text.isEmpty()) {
+                    separate();
+                    out.append(text);
+                }
+                return;
+            }
+
+            int length = text.length();
+            int i = 0;
+            while (i < length) {
+                if (isSpace(text.charAt(i))) {
+                    space = true;
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (i < length && !isSpace(text.charAt(i))) {
+                    i++;
+                }
+                separate();
+                run(text, start, i);
+            }
+        }
+
+        // Whatever goes between the text written so far and what comes next: line breaks or a space, nothing at the
+        // start, then the start of the line
+        void separate() throws IOException {
+            if (!written) {
+                startLine();
+            } else if (breaks > 0) {
+                endLine(breaks);
+                out.append('\n');
+                for (int i = 1; i < breaks; i++) {
+                    blankLine();
+                    out.append('\n');
+                }
+                startLine();
+            } else if (space) {
+                between();
+            }
+            breaks = 0;
+            space = false;
+            written = true;
+        }
+
+        // A run of text with no whitespace in it
+        void run(String text, int start, int end) throws IOException {
+            out.append(text, start, end);
+        }
+
+        void endLine(int breaks) throws IOException {
+        }
+
+        void blankLine() throws IOException {
+        }
+
+        void startLine() throws IOException {
+        }
+
+        void between() throws IOException {
+            out.append(' ');
+        }
+    }
+
+    private static final class TextWriter extends LineWriter {
+
+        TextWriter(Output out) {
+            super(out);
+        }
+
+        @Override
+        void startElement(Element element) throws IOException {
+            String name = element.getTagName();
+            if ("br".equals(name))
+                lineBreak(1);
+            else if ("pre".equals(name))
+                pre++;
+            else if ("td".equals(name) || "th".equals(name))
+                whitespace();
+            block(name);
+        }
+
+        @Override
+        void endElement(Element element) throws IOException {
+            String name = element.getTagName();
+            if ("pre".equals(name))
+                pre--;
+            block(name);
+        }
+
+        private void block(String name) {
+            if (PARAGRAPHS.contains(name))
+                lineBreak(2);
+            else if (BLOCKS.contains(name))
+                lineBreak(1);
+        }
+    }
+
+    private static final class MarkdownWriter extends LineWriter {
+
+        private int quotes;
+        // Quotes the last line was in, a blank line only stays in the ones both lines around it are in
+        private int lineQuotes;
+        // Open lists, innermost last: the number of the last item of ordered ones, -1 for unordered ones, and the
+        // width of the item markers content is indented by
+        private int lists;
+        private int[] counters = new int[8];
+        private int[] widths = new int[8];
+
+        private int heading;
+        private boolean item;
+        private boolean fence;
+        private boolean fenceOpen;
+        // Backticks around the open code block or span, longer than any run of them in its text
+        private String blockFence;
+        private String spanFence;
+        private boolean spanPadded;
+        private int code;
+        private boolean hardBreak;
+        private boolean cell;
+        private boolean lineStart;
+
+        MarkdownWriter(Output out) {
+            super(out);
+        }
+
+        void heading(String text) throws IOException {
+            if (text == null)
+                return;
+            lineBreak(2);
+            heading = 1;
+            paragraph(text);
+            heading = 0;
+        }
+
+        @Override
+        void startElement(Element element) throws IOException {
+            String name = element.getTagName();
+            switch (name) {
+                case "h1":
+                case "h2":
+                case "h3":
+                case "h4":
+                case "h5":
+                case "h6":
+                    lineBreak(2);
+                    heading = name.charAt(1) - '0';
+                    break;
+                case "ul":
+                case "ol":
+                    lineBreak(lists == 0 ? 2 : 1);
+                    if (lists == counters.length) {
+                        counters = Arrays.copyOf(counters, lists * 2);
+                        widths = Arrays.copyOf(widths, lists * 2);
+                    }
+                    counters[lists] = "ol".equals(name) ? 0 : -1;
+                    widths[lists] = 0;
+                    lists++;
+                    break;
+                case "li":
+                    lineBreak(1);
+                    item = lists > 0;
+                    break;
+                case "blockquote":
+                    lineBreak(2);
+                    quotes++;
+                    break;
+                case "pre":
+                    lineBreak(2);
+                    pre++;
+                    fence = pre == 1;
+                    if (fence)
+                        blockFence = backticks(Math.max(3, longestBacktickRun(element.getTextContent()) + 1));
+                    break;
+                case "code":
+                    // Text in a span is written as is, a span starting or ending with a backtick is padded with spaces
+                    if (isInline(element) && code++ == 0) {
+                        String content = element.getTextContent().trim();
+                        spanFence = backticks(longestBacktickRun(content) + 1);
+                        spanPadded = content.startsWith("`") || content.endsWith("`");
+                        separateAndAppend(spanPadded ? spanFence + ' ' : spanFence);
+                    }
+                    break;
+                case "br":
+                    lineBreak(1);
+                    hardBreak = true;
+                    break;
+                case "hr":
+                    lineBreak(2);
+                    separate();
+                    out.append("---");
+                    lineBreak(2);
+                    break;
+                case "td":
+                case "th":
+                    cell = element.getPreviousSibling() != null;
+                    whitespace();
+                    break;
+                case "img":
+                    image(element.getAttribute("src"), element.getAttribute("alt"));
+                    break;
+                default:
+                    if (PARAGRAPHS.contains(name))
+                        lineBreak(2);
+                    else if (BLOCKS.contains(name))
+                        lineBreak(1);
+                    else if (isInline(element))
+                        separateAndAppend(inlineMarker(name));
+                    break;
+            }
+        }
+
+        @Override
+        void endElement(Element element) throws IOException {
+            String name = element.getTagName();
+            switch (name) {
+                case "h1":
+                case "h2":
+                case "h3":
+                case "h4":
+                case "h5":
+                case "h6":
+                    heading = 0;
+                    lineBreak(2);
+                    break;
+                case "ul":
+                case "ol":
+                    lists--;
+                    lineBreak(lists == 0 ? 2 : 1);
+                    break;
+                case "li":
+                    item = false;
+                    lineBreak(1);
+                    break;
+                case "blockquote":
+                    lineBreak(2);
+                    quotes--;
+                    break;
+                case "pre":
+                    pre--;
+                    if (pre == 0) {
+                        if (fenceOpen) {
+                            out.append('\n');
+                            out.append(blockFence);
+                        }
+                        fence = false;
+                        fenceOpen = false;
+                    }
+                    lineBreak(2);
+                    break;
+                case "code":
+                    if (isInline(element) && --code == 0)
+                        out.append(spanPadded ? " " + spanFence : spanFence);
+                    break;
+                case "a":
+                    if (isInline(element)) {
+                        out.append("](");
+                        url(element.getAttribute("href"));
+                        out.append(')');
+                    }
+                    break;
+                default:
+                    if (PARAGRAPHS.contains(name))
+                        lineBreak(2);
+                    else if (BLOCKS.contains(name))
+                        lineBreak(1);
+                    else if (isInline(element))
+                        out.append(inlineMarker(name));
+                    break;
+            }
+        }
+
+        void image(String src, String alt) throws IOException {
+            if (src == null || src.isEmpty())
+                return;
+            separate();
+            out.append("![");
+            if (alt != null)
+                escape(alt, 0, alt.length());
+            out.append("](");
+            url(src);
+            out.append(')');
+            lineStart = false;
+        }
+
+        // Elements written as inline markup, around some visible text
+        private boolean isInline(Element element) {
+            String name = element.getTagName();
+            if ("a".equals(name)) {
+                if (element.getAttribute("href").isEmpty())
+                    return false;
+            } else if (inlineMarker(name) == null || ("code".equals(name) && pre > 0)) {
+                return false;
+            }
+            return hasVisibleText(element);
+        }
+
+        private static String inlineMarker(String name) {
+            switch (name) {
+                case "strong":
+                case "b":
+                    return "**";
+                case "em":
+                case "i":
+                    return "*";
+                case "code":
+                    return "`";
+                case "a":
+                    return "[";
+                default:
+                    return null;
+            }
+        }
+
+        private void separateAndAppend(String marker) throws IOException {
+            separate();
+            out.append(marker);
+            lineStart = false;
+        }
+
+        @Override
+        void text(String text) throws IOException {
+            if (pre > 0 && fence && !fenceOpen && !text.isEmpty()) {
+                separate();
+                out.append(blockFence);
+                out.append('\n');
+                fenceOpen = true;
+            }
+            super.text(text);
+        }
+
+        @Override
+        void run(String text, int start, int end) throws IOException {
+            if (pre > 0 || code > 0) {
+                out.append(text, start, end);
+                return;
+            }
+            escape(text, start, end);
+        }
+
+        private static int longestBacktickRun(String text) {
+            int longest = 0;
+            int run = 0;
+            for (int i = 0; i < text.length(); i++) {
+                run = text.charAt(i) == '`' ? run + 1 : 0;
+                longest = Math.max(longest, run);
+            }
+            return longest;
+        }
+
+        private static String backticks(int count) {
+            char[] fence = new char[count];
+            Arrays.fill(fence, '`');
+            return new String(fence);
+        }
+
+        // Backslash before the characters Markdown would read as markup, and before block markers at the line start
+        private void escape(String text, int start, int end) throws IOException {
+            int from = start;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                boolean special = c == '\\' || c == '`' || c == '*' || c == '_' || c == '[' || c == ']'
+                        || (lineStart && i == start && (c == '#' || c == '>' || c == '-' || c == '+'));
+                if (!special)
+                    continue;
+                out.append(text, from, i);
+                out.append('\\');
+                from = i;
+            }
+            out.append(text, from, end);
+            lineStart = false;
+        }
+
+        // Spaces and parentheses percent-encoded, so the link destination does not end early
+        private void url(String url) throws IOException {
+            int from = 0;
+            for (int i = 0; i < url.length(); i++) {
+                char c = url.charAt(i);
+                String encoded = c == ' ' ? "%20" : c == '(' ? "%28" : c == ')' ? "%29" : null;
+                if (encoded == null)
+                    continue;
+                out.append(url, from, i);
+                out.append(encoded);
+                from = i + 1;
+            }
+            out.append(url, from, url.length());
+        }
+
+        @Override
+        void separate() throws IOException {
+            if (!hasBreak())
+                hardBreak = false;
+            super.separate();
+            cell = false;
+        }
+
+        @Override
+        void endLine(int breaks) throws IOException {
+            if (breaks == 1 && hardBreak && pre == 0)
+                out.append('\\');
+            hardBreak = false;
+        }
+
+        @Override
+        void blankLine() throws IOException {
+            for (int i = 0; i < Math.min(quotes, lineQuotes); i++) {
+                out.append('>');
+            }
+        }
+
+        @Override
+        void startLine() throws IOException {
+            for (int i = 0; i < quotes; i++) {
+                out.append("> ");
+            }
+            lineQuotes = quotes;
+
+            // Content of list items lines up with the item's text, a new item gets its marker
+            int indented = item ? lists - 1 : lists;
+            for (int level = 0; level < indented; level++) {
+                for (int i = 0; i < widths[level]; i++) {
+                    out.append(' ');
+                }
+            }
+            if (item) {
+                int level = lists - 1;
+                if (counters[level] < 0) {
+                    out.append("- ");
+                    widths[level] = 2;
+                } else {
+                    widths[level] = number(++counters[level]) + 2;
+                    out.append(". ");
+                }
+                item = false;
+            }
+
+            for (int i = 0; i < heading; i++) {
+                out.append('#');
+            }
+            if (heading > 0)
+                out.append(' ');
+            lineStart = heading == 0;
+        }
+
+        @Override
+        void between() throws IOException {
+            out.append(cell ? " | " : " ");
+        }
+
+        // Writes the number digit by digit, returns how many there were
+        private int number(int value) throws IOException {
+            int divisor = 1;
+            int digits = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+                digits++;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                out.append((char) ('0' + value / divisor % 10));
+            }
+            return digits;
+        }
+    }
+
+    // Escapes everything written through it as the inside of a JSON string
+    private static final class JsonStringOutput extends ContentWriter.Output {
+
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final ContentWriter.Output out;
+
+        JsonStringOutput(ContentWriter.Output out) {
+            this.out = out;
+        }
+
+        // A whole string value, quotes included, null for null
+        void value(String s) throws IOException {
+            if (s == null) {
+                out.append("null");
+                return;
+            }
+            out.append('"');
+            append(s, 0, s.length());
+            out.append('"');
+        }
+
+        @Override
+        void append(char c) throws IOException {
+            String escaped = escape(c);
+            if (escaped != null)
+                out.append(escaped);
+            else if (c < 0x20)
+                unicode(c);
+            else
+                out.append(c);
+        }
+
+        @Override
+        void append(String s, int start, int end) throws IOException {
+            int from = start;
+            for (int i = start; i < end; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x20 && c != '"' && c != '\\')
+                    continue;
+                out.append(s, from, i);
+                append(c);
+                from = i + 1;
+            }
+            out.append(s, from, end);
+        }
+
+        private static String escape(char c) {
+            switch (c) {
+                case '"':
+                    return "\\\"";
+                case '\\':
+                    return "\\\\";
+                case '\n':
+                    return "\\n";
+                case '\r':
+                    return "\\r";
+                case '\t':
+                    return "\\t";
+                case '\b':
+                    return "\\b";
+                case '\f':
+                    return "\\f";
+                default:
+                    return null;
+            }
+        }
+
+        private void unicode(char c) throws IOException {
+            out.append("\\u00");
+            out.append(HEX[c >> 4 & 0xF]);
+            out.append(HEX[c & 0xF]);
+        }
+
+        // The string is not over when the content is, the outer output is flushed once the object is
+        @Override
+        void flush() {
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * Walks a content subtree in document order, in constant stack space, handing every element it enters and leaves
+ * and every text node to the format at hand. Output goes straight to the caller's destination, text is written in
+ * runs of the node's own string, never copied into one of its own.
+ */
+abstract class ContentWriter {
+
+    protected final Output out;
+
+    ContentWriter(Output out) {
+        this.out = out;
+    }
+
+    final void write(Node root) throws IOException {
+        Node node = root;
+        while (node != null) {
+            if (node instanceof Element)
+                startElement((Element) node);
+            else if (node instanceof Text)
+                text(((Text) node).getData());
+
+            if ((node == root || node instanceof Element) && node.getFirstChild() != null) {
+                node = node.getFirstChild();
+                continue;
+            }
+
+            // Leaving the node, and every ancestor it was the last child of
+            while (true) {
+                if (node instanceof Element)
+                    endElement((Element) node);
+                if (node == root) {
+                    node = null;
+                    break;
+                }
+                if (node.getNextSibling() != null) {
+                    node = node.getNextSibling();
+                    break;
+                }
+                node = node.getParentNode();
+            }
+        }
+        finish();
+        out.flush();
+    }
+
+    abstract void startElement(Element element) throws IOException;
+
+    abstract void endElement(Element element) throws IOException;
+
+    abstract void text(String text) throws IOException;
+
+    void finish() throws IOException {
+    }
+
+    static boolean isSpace(char c) {
+        return Character.isWhitespace(c) || c == 160;
+    }
+
+    // Where the characters go: an Appendable, a Writer (written to without the substring Writer.append takes) or a
+    // ByteBuffer, UTF-8 encoded
+    abstract static class Output {
+
+        abstract void append(char c) throws IOException;
+
+        abstract void append(String s, int start, int end) throws IOException;
+
+        void append(String s) throws IOException {
+            append(s, 0, s.length());
+        }
+
+        // Done writing; the caller's Writer is left unflushed, for many results to share its buffer
+        void flush() throws IOException {
+        }
+
+        static Output of(Appendable out) {
+            if (out == null)
+                throw new IllegalArgumentException("Output must not be null.");
+            return out instanceof Writer ? new WriterOutput((Writer) out) : new AppendableOutput(out);
+        }
+
+        static Output of(ByteBuffer out) {
+            if (out == null)
+                throw new IllegalArgumentException("Output must not be null.");
+            return new Utf8Output(out);
+        }
+    }
+
+    private static final class AppendableOutput extends Output {
+
+        private final Appendable out;
+
+        AppendableOutput(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        void append(char c) throws IOException {
+            out.append(c);
+        }
+
+        @Override
+        void append(String s, int start, int end) throws IOException {
+            out.append(s, start, end);
+        }
+    }
+
+    private static final class WriterOutput extends Output {
+
+        private final Writer out;
+
+        WriterOutput(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        void append(char c) throws IOException {
+            out.write(c);
+        }
+
+        @Override
+        void append(String s, int start, int end) throws IOException {
+            out.write(s, start, end - start);
+        }
+    }
+
+    // Encodes as it goes, a full buffer fails with a BufferOverflowException. Unpaired surrogates come out as '?'
+    private static final class Utf8Output extends Output {
+
+        private final ByteBuffer out;
+        private char highSurrogate;
+
+        Utf8Output(ByteBuffer out) {
+            this.out = out;
+        }
+
+        @Override
+        void append(char c) {
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    out.put((byte) (0xF0 | codePoint >> 18));
+                    out.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    out.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    out.put((byte) (0x80 | codePoint & 0x3F));
+                    return;
+                }
+                out.put((byte) '?');
+            }
+
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | c >> 12));
+                out.put((byte) (0x80 | c >> 6 & 0x3F));
+                out.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+
+        @Override
+        void append(String s, int start, int end) {
+            for (int i = start; i < end; i++) {
+                append(s.charAt(i));
+            }
+        }
+
+        @Override
+        void flush() {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                out.put((byte) '?');
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package br.com.readable.extractor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Iterative walks over a DOM subtree, for traversals that must not depend on the depth of the page: each one runs
+ * in constant stack space.
+ */
+final class DomTraversal {
+
+    private DomTraversal() {
+    }
+
+    // Node after the given one in document order, descending into the root and elements only; null past the subtree
+    static Node next(Node node, Node root) {
+        if ((node == root || node instanceof Element) && node.getFirstChild() != null)
+            return node.getFirstChild();
+        return nextSkippingChildren(node, root);
+    }
+
+    // Node after the given one and its subtree in document order, null past the subtree
+    static Node nextSkippingChildren(Node node, Node root) {
+        for (Node n = node; n != root && n != null; n = n.getParentNode()) {
+            Node sibling = n.getNextSibling();
+            if (sibling != null)
+                return sibling;
+        }
+        return null;
+    }
+
+    // Root and its descendant elements in pre-order, the opaque ones (below root) left out along with their subtrees.
+    // Walking the list backwards reaches every element after all of its descendants
+    static List<Element> preOrderElements(Element root, Set<String> opaque, WorkTracker work) {
+        List<Element> elements = new ArrayList<>();
+        elements.add(root);
+        if (work != null)
+            work.visit(0);
+
+        int depth = 0;
+        Node node = root.getFirstChild();
+        if (node != null)
+            depth++;
+        while (node != null) {
+            if (node instanceof Element && !opaque.contains(((Element) node).getTagName())) {
+                elements.add((Element) node);
+                if (work != null)
+                    work.visit(depth);
+                if (node.getFirstChild() != null) {
+                    node = node.getFirstChild();
+                    depth++;
+                    continue;
+                }
+            }
+
+            // Climb until a following sibling is found
+            while (node != root && node.getNextSibling() == null) {
+                node = node.getParentNode();
+                depth--;
+            }
+            node = node == root ? null : node.getNextSibling();
+        }
+        return elements;
+    }
+}
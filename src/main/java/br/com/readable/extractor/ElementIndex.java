@@ -0,0 +1,193 @@
+package br.com.readable.extractor;
+
+import java.util.*;
+
+import org.w3c.dom.Comment;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * Descendant tag counts, text lengths and matching-comment flags for every element of a subtree, built in a single
+ * traversal. Lookups are O(1); {@link #remove(Element)} keeps the counts of the remaining ancestors up to date.
+ */
+public class ElementIndex {
+
+    // Tags whose descendant counts (and element lists) are kept
+    static final String[] TAGS = {"p", "img", "li", "a", "embed", "object", "pre", "code", "td", "figure", "h1", "h2", "h3"};
+
+    private static final Map<String, Integer> SLOTS = new HashMap<>();
+    private static final int COMMENT_SLOT = TAGS.length;
+    private static final int TEXT_SLOT = TAGS.length + 1;
+    private static final int WIDTH = TAGS.length + 2;
+
+    static {
+        for (int i = 0; i < TAGS.length; i++) {
+            SLOTS.put(TAGS[i], i);
+        }
+    }
+
+    private final Map<Element, Integer> ordinals = new IdentityHashMap<>();
+    private final List<List<Element>> elements = new ArrayList<>(TAGS.length);
+    private int[] parents;
+    private int[] counts;
+    private boolean[] removed;
+
+    public ElementIndex(Element root, KeywordMatcher commentKeywords) {
+        for (int i = 0; i < TAGS.length; i++) {
+            elements.add(new ArrayList<Element>());
+        }
+        build(root, commentKeywords);
+    }
+
+    // Number of descendants of el (el itself excluded) with the given tag name
+    public int count(Element el, String tagName) {
+        Integer ordinal = ordinals.get(el);
+        Integer slot = SLOTS.get(tagName);
+        if (ordinal == null || slot == null)
+            return el.getElementsByTagName(tagName).getLength();
+
+        return counts[ordinal * WIDTH + slot];
+    }
+
+    // Length of all text below el
+    public int textLength(Element el) {
+        Integer ordinal = ordinals.get(el);
+        if (ordinal == null) {
+            int length = 0;
+            for (Node node = el; node != null; node = DomTraversal.next(node, el)) {
+                if (node instanceof Text)
+                    length += ((Text) node).getLength();
+            }
+            return length;
+        }
+
+        return counts[ordinal * WIDTH + TEXT_SLOT];
+    }
+
+    // Whether any comment below el has one of the comment keywords given at build time
+    public boolean hasMatchingComment(Element el) {
+        Integer ordinal = ordinals.get(el);
+        return ordinal != null && counts[ordinal * WIDTH + COMMENT_SLOT] > 0;
+    }
+
+    // Descendants of the indexed root with the given tag name, in document order, as they were at build time
+    public List<Element> elements(String tagName) {
+        Integer slot = SLOTS.get(tagName);
+        if (slot == null)
+            throw new IllegalArgumentException("Tag is not indexed: " + tagName);
+
+        return Collections.unmodifiableList(elements.get(slot));
+    }
+
+    // Detaches el from its parent and discounts its subtree from every indexed ancestor
+    public void remove(Element el) {
+        Integer ordinal = ordinals.get(el);
+        if (ordinal != null && !isDetached(ordinal)) {
+            removed[ordinal] = true;
+            int base = ordinal * WIDTH;
+            Integer ownSlot = SLOTS.get(el.getTagName());
+            for (int parent = parents[ordinal]; parent >= 0; parent = parents[parent]) {
+                int parentBase = parent * WIDTH;
+                for (int slot = 0; slot < WIDTH; slot++) {
+                    counts[parentBase + slot] -= counts[base + slot];
+                }
+                if (ownSlot != null)
+                    counts[parentBase + ownSlot]--;
+            }
+        }
+
+        if (el.getParentNode() != null)
+            el.getParentNode().removeChild(el);
+    }
+
+    // Whether the element or one of its ancestors was already removed (and discounted)
+    private boolean isDetached(int ordinal) {
+        for (int i = ordinal; i >= 0; i = parents[i]) {
+            if (removed[i])
+                return true;
+        }
+        return false;
+    }
+
+    private void build(Element root, KeywordMatcher commentKeywords) {
+        List<Element> order = new ArrayList<>();
+        int[] parentOf = new int[64];
+        List<Integer> commentOwners = new ArrayList<>();
+        int[] ownText = new int[64];
+
+        // Pre-order walk: every element gets an ordinal greater than its parent's
+        order.add(root);
+        ordinals.put(root, 0);
+        parentOf[0] = -1;
+        int current = 0;
+
+        Node node = root.getFirstChild();
+        while (node != null) {
+            boolean descend = false;
+            if (node instanceof Element) {
+                Element el = (Element) node;
+                int ordinal = order.size();
+                if (ordinal == parentOf.length) {
+                    parentOf = Arrays.copyOf(parentOf, ordinal * 2);
+                    ownText = Arrays.copyOf(ownText, ordinal * 2);
+                }
+
+                order.add(el);
+                ordinals.put(el, ordinal);
+                parentOf[ordinal] = current;
+
+                Integer slot = SLOTS.get(el.getTagName());
+                if (slot != null)
+                    elements.get(slot).add(el);
+
+                if (el.hasChildNodes()) {
+                    current = ordinal;
+                    node = el.getFirstChild();
+                    descend = true;
+                }
+            } else if (node instanceof Text) {
+                ownText[current] += ((Text) node).getLength();
+            } else if (node instanceof Comment && commentKeywords != null) {
+                if (commentKeywords.find(((Comment) node).getData()))
+                    commentOwners.add(current);
+            }
+
+            if (descend)
+                continue;
+
+            // Climb until a following sibling is found, leaving finished elements behind
+            while (node != root && node.getNextSibling() == null) {
+                node = node.getParentNode();
+                if (node == root)
+                    break;
+                current = parentOf[current];
+            }
+            node = node == root ? null : node.getNextSibling();
+        }
+
+        int size = order.size();
+        parents = Arrays.copyOf(parentOf, size);
+        counts = new int[size * WIDTH];
+        removed = new boolean[size];
+
+        for (Integer owner : commentOwners) {
+            counts[owner * WIDTH + COMMENT_SLOT]++;
+        }
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            counts[ordinal * WIDTH + TEXT_SLOT] = ownText[ordinal];
+        }
+
+        // Bottom-up accumulation: children always come after their parents in pre-order
+        for (int ordinal = size - 1; ordinal > 0; ordinal--) {
+            int base = ordinal * WIDTH;
+            int parentBase = parents[ordinal] * WIDTH;
+            for (int slot = 0; slot < WIDTH; slot++) {
+                counts[parentBase + slot] += counts[base + slot];
+            }
+            Integer ownSlot = SLOTS.get(order.get(ordinal).getTagName());
+            if (ownSlot != null)
+                counts[parentBase + ownSlot]++;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.readable.extractor;
+
+import org.w3c.dom.Element;
+
+/**
+ * Cleaning rule applied element by element. Consecutive element stages of a pipeline share a single walk over the
+ * content: every element is entered by each stage in order before its children, and exited after them. Visitors
+ * change the tree only through their verdicts (attributes may be changed in place).
+ */
+public interface ElementStage extends CleaningStage {
+
+    enum Verdict {
+        // Leave the element in place
+        KEEP,
+        // Remove the element now, its subtree is not walked and later stages do not see it
+        REMOVE,
+        // Remove the element once the walk is over, until then it and its subtree are walked as usual
+        REMOVE_AFTER_WALK
+    }
+
+    // Starts one walk, the visitor holds whatever state the walk needs
+    Visitor begin(CleaningContext ctx);
+
+    interface Visitor {
+
+        // Before the element's children, in document order
+        default Verdict enter(Element element) {
+            return Verdict.KEEP;
+        }
+
+        // After the element's children, for elements still in place
+        default Verdict exit(Element element) {
+            return Verdict.KEEP;
+        }
+
+        // After the walk, once deferred removals are done
+        default void end() {
+        }
+    }
+}
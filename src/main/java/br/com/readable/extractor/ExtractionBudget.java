@@ -0,0 +1,95 @@
+package br.com.readable.extractor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on the work of a single extraction: nodes visited over all traversals, depth of the DOM, wall time and
+ * containers scored. Going over any of them ends the extraction with a {@link BudgetExceededException}. Immutable.
+ */
+public final class ExtractionBudget {
+
+    public static final ExtractionBudget UNLIMITED = builder().build();
+
+    private final long maxNodes;
+    private final int maxDepth;
+    private final long maxNanos;
+    private final int maxCandidates;
+
+    private ExtractionBudget(Builder builder) {
+        this.maxNodes = builder.maxNodes;
+        this.maxDepth = builder.maxDepth;
+        this.maxNanos = builder.maxNanos;
+        this.maxCandidates = builder.maxCandidates;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Nodes visited by all traversals together, a node counting once per traversal
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    // Wall time from the start of the extraction, parsing excluded
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    // Containers given a score while choosing the main content
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    public boolean isUnlimited() {
+        return maxNodes == Long.MAX_VALUE && maxDepth == Integer.MAX_VALUE && maxNanos == Long.MAX_VALUE
+                && maxCandidates == Integer.MAX_VALUE;
+    }
+
+    public static final class Builder {
+
+        private long maxNodes = Long.MAX_VALUE;
+        private int maxDepth = Integer.MAX_VALUE;
+        private long maxNanos = Long.MAX_VALUE;
+        private int maxCandidates = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        public Builder maxNodes(long maxNodes) {
+            if (maxNodes <= 0)
+                throw new IllegalArgumentException("Node budget must be positive.");
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth <= 0)
+                throw new IllegalArgumentException("Depth budget must be positive.");
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder maxTime(long time, TimeUnit unit) {
+            if (time <= 0)
+                throw new IllegalArgumentException("Time budget must be positive.");
+            this.maxNanos = unit.toNanos(time);
+            return this;
+        }
+
+        public Builder maxCandidates(int maxCandidates) {
+            if (maxCandidates <= 0)
+                throw new IllegalArgumentException("Candidate budget must be positive.");
+            this.maxCandidates = maxCandidates;
+            return this;
+        }
+
+        public ExtractionBudget build() {
+            return new ExtractionBudget(this);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.readable.extractor;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * State of a single extraction: the document being read, the settings it runs with and what was found so far.
+ * Contexts are short-lived and confined to the thread running the extraction.
+ */
+public class ExtractionContext {
+
+    private final Document doc;
+    private final ExtractorConfig config;
+    private final ExtractionListener listener;
+    final WorkTracker work;
+
+    Element mainContent = null;
+    boolean imageBeforeText = false;
+
+    ExtractionContext(Document doc, ExtractorConfig config) {
+        this.doc = doc;
+        this.config = config;
+        this.listener = config.getListener();
+        this.work = new WorkTracker(config.getBudget());
+    }
+
+    public Document getDocument() {
+        return doc;
+    }
+
+    public ExtractorConfig getConfig() {
+        return config;
+    }
+
+    public ExtractionListener getListener() {
+        return listener;
+    }
+
+    // Whether timings and counters are wanted at all
+    boolean isInstrumented() {
+        return listener != ExtractionListener.NOOP;
+    }
+
+    // Start of a phase, the clock is only read when instrumented
+    long startPhase() {
+        return isInstrumented() ? System.nanoTime() : 0;
+    }
+
+    void endPhase(ExtractionPhase phase, long start) {
+        if (isInstrumented())
+            listener.phaseCompleted(phase, System.nanoTime() - start);
+    }
+
+    // Main content found by the extraction, null until it ran
+    public Element getMainContent() {
+        return mainContent;
+    }
+
+    // Whether an image comes before the first paragraph of the main content
+    public boolean isImageBeforeText() {
+        return imageBeforeText;
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.readable.extractor;
+
+/**
+ * The interfaces of {@code java.util.concurrent.Flow}, method for method, for code built on Java 8. Publishers emit
+ * no more items than their subscribers requested; a Java 9+ or Reactive Streams pipeline connects to them through
+ * adapters that do nothing but forward each call.
+ */
+public final class ExtractionFlow {
+
+    private ExtractionFlow() {
+    }
+
+    public interface Publisher<T> {
+
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable error);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+
+        // Up to n more items, n must be positive
+        void request(long n);
+
+        void cancel();
+    }
+
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+}
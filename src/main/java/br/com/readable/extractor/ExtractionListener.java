@@ -0,0 +1,37 @@
+package br.com.readable.extractor;
+
+import java.util.List;
+
+/**
+ * Timings and counters of extractions, called on the thread running each one. Every method defaults to doing
+ * nothing; with {@link #NOOP}, the default, the extractor does not even read the clock. Implementations shared by
+ * several extractors or threads must be thread-safe, see {@link ExtractionStats} for a ready-made one.
+ */
+public interface ExtractionListener {
+
+    ExtractionListener NOOP = new ExtractionListener() {
+    };
+
+    default void phaseCompleted(ExtractionPhase phase, long nanos) {
+    }
+
+    // One walk of fused element stages, or a single tree stage
+    default void cleaningPassCompleted(List<CleaningStage> stages, long nanos) {
+    }
+
+    // Nodes the phase went through, SCORE counting elements and text nodes and CLEAN the elements walked
+    default void nodesVisited(ExtractionPhase phase, int count) {
+    }
+
+    // Containers that got a score while choosing the main content
+    default void candidatesScored(int count) {
+    }
+
+    // Elements removed through the verdicts of an element stage, once its walk is over
+    default void nodesRemoved(CleaningStage stage, int count) {
+    }
+
+    // UTF-8 size of the article text
+    default void outputBytes(long bytes) {
+    }
+}
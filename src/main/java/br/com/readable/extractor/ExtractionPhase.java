@@ -0,0 +1,19 @@
+package br.com.readable.extractor;
+
+/**
+ * Timed steps of an extraction, as reported to {@link ExtractionListener#phaseCompleted}.
+ */
+public enum ExtractionPhase {
+    // Raw HTML to DOM, only for the entry points taking raw input
+    PARSE,
+    // Title, description and main image
+    METADATA,
+    // Regrouping text between <br>s into paragraphs
+    BR_WRAP,
+    // Choosing the main content: template lookup, text statistics and scoring
+    SCORE,
+    // The whole cleaning pipeline, each pass is also reported on its own
+    CLEAN,
+    // Everything from the document to the finished article
+    EXTRACT
+}
@@ -0,0 +1,222 @@
+package br.com.readable.extractor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscribes to pages and publishes their extraction results to a single subscriber, built by
+ * {@link AsyncExtractor#processor()}. Pages are requested from upstream only as results are asked for downstream:
+ * pages being extracted and results not yet taken never outnumber the subscriber's outstanding demand, nor the
+ * parallelism. A page that fails yields a failed {@link BatchResult}, an upstream error is passed on once the pages
+ * received before it are published.
+ * <p>
+ * Every signal goes through one drain loop, run by whichever thread finds it idle, so the subscriber is never called
+ * concurrently and requesting from within {@code onNext} does not recurse.
+ */
+public final class ExtractionProcessor implements ExtractionFlow.Processor<HtmlInput, BatchResult> {
+
+    // Handed to subscribers turned away
+    private static final ExtractionFlow.Subscription CANCELLED = new ExtractionFlow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final AsyncExtractor extractor;
+    private final int parallelism;
+    private final boolean ordered;
+
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final Queue<CompletableFuture<BatchResult>> arrivals = new ConcurrentLinkedQueue<>();
+
+    private volatile ExtractionFlow.Subscription upstream;
+    private volatile ExtractionFlow.Subscriber<? super BatchResult> downstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    // Owned by the drain loop
+    private final Deque<CompletableFuture<BatchResult>> pending = new ArrayDeque<>();
+    private long requested;
+    private boolean terminated;
+
+    ExtractionProcessor(AsyncExtractor extractor, int parallelism, boolean ordered) {
+        this.extractor = extractor;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+    }
+
+    @Override
+    public void subscribe(ExtractionFlow.Subscriber<? super BatchResult> subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("Subscriber must not be null.");
+        synchronized (this) {
+            if (downstream == null) {
+                downstream = subscriber;
+            } else {
+                subscriber.onSubscribe(CANCELLED);
+                subscriber.onError(new IllegalStateException("Extraction processor already has a subscriber"));
+                return;
+            }
+        }
+        subscriber.onSubscribe(new ResultSubscription());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(ExtractionFlow.Subscription subscription) {
+        synchronized (this) {
+            if (upstream == null && !cancelled) {
+                upstream = subscription;
+                subscription = null;
+            }
+        }
+        // Only one upstream, and none after the subscriber cancelled
+        if (subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(HtmlInput input) {
+        if (input == null)
+            throw new NullPointerException("Input must not be null.");
+        if (cancelled)
+            return;
+        CompletableFuture<BatchResult> future = extractor.submit(input);
+        arrivals.add(future);
+        future.whenComplete((result, error) -> drain());
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        upstreamError = error;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+        do {
+            ExtractionFlow.Subscriber<? super BatchResult> subscriber = downstream;
+            if (terminated || subscriber == null)
+                continue;
+            if (cancelled) {
+                cancelPending();
+                terminated = true;
+                if (invalidRequest != null)
+                    subscriber.onError(invalidRequest);
+                continue;
+            }
+
+            CompletableFuture<BatchResult> arrival;
+            while ((arrival = arrivals.poll()) != null) {
+                pending.add(arrival);
+                requested--;
+            }
+
+            // Results in input order or as they complete, within the demand
+            while (demand.get() > 0 && !cancelled) {
+                CompletableFuture<BatchResult> done = takeDone();
+                if (done == null)
+                    break;
+                demand.decrementAndGet();
+                subscriber.onNext(done.join());
+            }
+            if (cancelled)
+                continue;
+
+            if (upstreamDone && pending.isEmpty() && arrivals.isEmpty()) {
+                terminated = true;
+                if (upstreamError != null)
+                    subscriber.onError(upstreamError);
+                else
+                    subscriber.onComplete();
+                continue;
+            }
+
+            // Pages asked for but not yet published stay within the demand and the parallelism
+            ExtractionFlow.Subscription subscription = upstream;
+            long wanted = Math.min(parallelism, demand.get()) - pending.size() - requested;
+            if (subscription != null && !upstreamDone && wanted > 0) {
+                requested += wanted;
+                subscription.request(wanted);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private CompletableFuture<BatchResult> takeDone() {
+        if (ordered) {
+            CompletableFuture<BatchResult> head = pending.peek();
+            return head != null && head.isDone() ? pending.poll() : null;
+        }
+        for (Iterator<CompletableFuture<BatchResult>> it = pending.iterator(); it.hasNext(); ) {
+            CompletableFuture<BatchResult> future = it.next();
+            if (future.isDone()) {
+                it.remove();
+                return future;
+            }
+        }
+        return null;
+    }
+
+    // Extractions already running finish, their results are dropped
+    private void cancelPending() {
+        pending.clear();
+        arrivals.clear();
+    }
+
+    private final class ResultSubscription implements ExtractionFlow.Subscription {
+
+        @Override
+        public void request(long n) {
+            // Cancels the subscription and is reported to the subscriber, as Reactive Streams asks
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Subscribers must request a positive number of results");
+                cancel();
+                return;
+            }
+            long current;
+            do {
+                current = demand.get();
+            } while (current != Long.MAX_VALUE
+                    && !demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            // Under the lock onSubscribe takes, so an upstream arriving meanwhile is cancelled by one or the other
+            ExtractionFlow.Subscription subscription;
+            synchronized (ExtractionProcessor.this) {
+                cancelled = true;
+                subscription = upstream;
+            }
+            if (subscription != null)
+                subscription.cancel();
+            drain();
+        }
+    }
+}
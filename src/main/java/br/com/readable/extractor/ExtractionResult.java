@@ -0,0 +1,77 @@
+package br.com.readable.extractor;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Extracted article detached from the page it came from: title, description and main image, plus the article
+ * element in a small document of its own. Holding a result keeps only the article alive, not the parsed page.
+ */
+public final class ExtractionResult {
+
+    private final String title;
+    private final String description;
+    private final String image;
+    private final Element article;
+    private final Element content;
+
+    ExtractionResult(String title, String description, String image, Element article, Element content) {
+        this.title = title;
+        this.description = description;
+        this.image = image;
+        this.article = article;
+        this.content = content;
+    }
+
+    // Result rebuilt from its parts, as a result cache tier that stores them elsewhere reads one back. The content is
+    // copied into a document of its own and the article built around it the way the extractor does
+    public static ExtractionResult of(String title, String description, String image, Element content) {
+        if (content == null)
+            throw new IllegalArgumentException("Content must not be null.");
+        Document source = content.getOwnerDocument();
+        Document target = source.getImplementation().createDocument(null, null, null);
+        target.setDocumentURI(source.getDocumentURI());
+        Element contentCopy = (Element) target.importNode(content, true);
+        Element article = ReadableContentExtractor.createArticle(target, contentCopy, title, description, image);
+        target.appendChild(article);
+        return new ExtractionResult(title, description, image, article, contentCopy);
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Main image link, null when the content already starts with an image
+    public String getImage() {
+        return image;
+    }
+
+    // Title, description, main image and content, as ReadableContentExtractor.extract builds them
+    public Element getArticle() {
+        return article;
+    }
+
+    // Main content only, as ReadableContentExtractor.getMainContent returns it
+    public Element getContent() {
+        return content;
+    }
+
+    // Standalone document owning the article
+    public Document getDocument() {
+        return article.getOwnerDocument();
+    }
+
+    // Deep copy in a new document, results shared through a cache are only ever read this way
+    synchronized ExtractionResult copy() {
+        Document source = getDocument();
+        Document target = source.getImplementation().createDocument(null, null, null);
+        target.setDocumentURI(source.getDocumentURI());
+        Element articleCopy = (Element) target.importNode(article, true);
+        target.appendChild(articleCopy);
+        return new ExtractionResult(title, description, image, articleCopy, (Element) articleCopy.getLastChild());
+    }
+}
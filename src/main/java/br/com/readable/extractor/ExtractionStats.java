@@ -0,0 +1,126 @@
+package br.com.readable.extractor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process aggregate of everything an {@link ExtractionListener} hears: a {@link Histogram} of durations per phase
+ * and per cleaning pass, and totals of the counters. Thread-safe, one instance can serve every extractor.
+ * Cleaning passes and stages are keyed by their {@code toString()}.
+ */
+public final class ExtractionStats implements ExtractionListener {
+
+    private final Map<ExtractionPhase, Histogram> phases = new EnumMap<>(ExtractionPhase.class);
+    private final Map<ExtractionPhase, LongAdder> nodesVisited = new EnumMap<>(ExtractionPhase.class);
+    private final ConcurrentHashMap<String, Histogram> passes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> nodesRemoved = new ConcurrentHashMap<>();
+    private final LongAdder candidatesScored = new LongAdder();
+    private final Histogram outputBytes = new Histogram();
+
+    public ExtractionStats() {
+        // Filled once, so the enum maps are only ever read afterwards
+        for (ExtractionPhase phase : ExtractionPhase.values()) {
+            phases.put(phase, new Histogram());
+            nodesVisited.put(phase, new LongAdder());
+        }
+    }
+
+    @Override
+    public void phaseCompleted(ExtractionPhase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    @Override
+    public void cleaningPassCompleted(List<CleaningStage> stages, long nanos) {
+        String name = stages.size() == 1 ? String.valueOf(stages.get(0)) : stages.toString();
+        passes.computeIfAbsent(name, key -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void nodesVisited(ExtractionPhase phase, int count) {
+        nodesVisited.get(phase).add(count);
+    }
+
+    @Override
+    public void candidatesScored(int count) {
+        candidatesScored.add(count);
+    }
+
+    @Override
+    public void nodesRemoved(CleaningStage stage, int count) {
+        nodesRemoved.computeIfAbsent(String.valueOf(stage), key -> new LongAdder()).add(count);
+    }
+
+    @Override
+    public void outputBytes(long bytes) {
+        outputBytes.record(bytes);
+    }
+
+    // Durations in nanoseconds
+    public Histogram getPhase(ExtractionPhase phase) {
+        return phases.get(phase);
+    }
+
+    // Durations in nanoseconds per cleaning pass, keyed by the stages of the pass
+    public Map<String, Histogram> getCleaningPasses() {
+        return new TreeMap<>(passes);
+    }
+
+    public long getNodesVisited(ExtractionPhase phase) {
+        return nodesVisited.get(phase).sum();
+    }
+
+    public long getCandidatesScored() {
+        return candidatesScored.sum();
+    }
+
+    public Map<String, Long> getNodesRemoved() {
+        Map<String, Long> removed = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : nodesRemoved.entrySet()) {
+            removed.put(entry.getKey(), entry.getValue().sum());
+        }
+        return removed;
+    }
+
+    public Histogram getOutputBytes() {
+        return outputBytes;
+    }
+
+    public void reset() {
+        for (ExtractionPhase phase : ExtractionPhase.values()) {
+            phases.get(phase).reset();
+            nodesVisited.get(phase).reset();
+        }
+        passes.clear();
+        nodesRemoved.clear();
+        candidatesScored.reset();
+        outputBytes.reset();
+    }
+
+    // One line per phase, pass and counter, durations in microseconds
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (ExtractionPhase phase : ExtractionPhase.values()) {
+            Histogram histogram = phases.get(phase);
+            if (histogram.getCount() > 0)
+                appendMicros(out, phase.name(), histogram).append(" nodes=").append(getNodesVisited(phase)).append('\n');
+        }
+        for (Map.Entry<String, Histogram> pass : getCleaningPasses().entrySet()) {
+            appendMicros(out, "pass " + pass.getKey(), pass.getValue()).append('\n');
+        }
+        out.append("candidates=").append(getCandidatesScored()).append('\n');
+        for (Map.Entry<String, Long> removed : getNodesRemoved().entrySet()) {
+            out.append("removed ").append(removed.getKey()).append('=').append(removed.getValue()).append('\n');
+        }
+        out.append("output bytes ").append(outputBytes).append('\n');
+        return out.toString();
+    }
+
+    private static StringBuilder appendMicros(StringBuilder out, String name, Histogram histogram) {
+        return out.append(name).append(String.format(": count=%d mean=%.1fus p50=%dus p90=%dus p99=%dus",
+                histogram.getCount(), histogram.getMean() / 1000, histogram.getPercentile(50) / 1000,
+                histogram.getPercentile(90) / 1000, histogram.getPercentile(99) / 1000));
+    }
+}
@@ -0,0 +1,374 @@
+package br.com.readable.extractor;
+
+import java.util.Arrays;
+
+/**
+ * Immutable extractor settings: keyword lists, thresholds and score weights.
+ * Instances are thread-safe and can be shared by any number of extractors, along with their template and result caches.
+ */
+public final class ExtractorConfig {
+
+    public static final ExtractorConfig DEFAULT = builder().build();
+
+    private final KeywordMatcher contentKeywords;
+    private final KeywordMatcher stopwordKeywords;
+    private final KeywordMatcher allowedAttributes;
+    private final KeywordMatcher sphereitKeywords;
+    private final int minImageSize;
+    private final int minTableCells;
+    private final int contentBonus;
+    private final int stopwordPenalty;
+    private final int minParagraphLength;
+    private final int parentLengthBonus;
+    private final int parentLengthDivisor;
+    private final int grandparentLengthBonus;
+    private final int grandparentLengthDivisor;
+    private final int grandparentCommaDivisor;
+    private final boolean lengthScoring;
+    private final boolean preserveDocument;
+    private final CleaningPipeline cleaningPipeline;
+    private final TemplateCache templateCache;
+    private final int minTemplateTextLength;
+    private final ResultCache resultCache;
+    private final ExtractionListener listener;
+    private final ExtractionBudget budget;
+    private final long fingerprint;
+
+    private ExtractorConfig(Builder builder) {
+        this.contentKeywords = builder.contentKeywords;
+        this.stopwordKeywords = builder.stopwordKeywords;
+        this.allowedAttributes = builder.allowedAttributes;
+        this.sphereitKeywords = builder.sphereitKeywords;
+        this.minImageSize = builder.minImageSize;
+        this.minTableCells = builder.minTableCells;
+        this.contentBonus = builder.contentBonus;
+        this.stopwordPenalty = builder.stopwordPenalty;
+        this.minParagraphLength = builder.minParagraphLength;
+        this.parentLengthBonus = builder.parentLengthBonus;
+        this.parentLengthDivisor = builder.parentLengthDivisor;
+        this.grandparentLengthBonus = builder.grandparentLengthBonus;
+        this.grandparentLengthDivisor = builder.grandparentLengthDivisor;
+        this.grandparentCommaDivisor = builder.grandparentCommaDivisor;
+        this.lengthScoring = builder.lengthScoring;
+        this.preserveDocument = builder.preserveDocument;
+        this.cleaningPipeline = builder.cleaningPipeline;
+        this.templateCache = builder.templateCache;
+        this.minTemplateTextLength = builder.minTemplateTextLength;
+        this.resultCache = builder.resultCache;
+        this.listener = builder.listener;
+        this.budget = builder.budget;
+        this.fingerprint = computeFingerprint();
+    }
+
+    // Hash of every setting that changes extraction results. Custom pipelines count by identity, so results cached
+    // with them on disk are not found again by another run
+    private long computeFingerprint() {
+        long hash = 17;
+        for (KeywordMatcher keywords : Arrays.asList(contentKeywords, stopwordKeywords, allowedAttributes, sphereitKeywords)) {
+            hash = hash * 31 + ResultKey.hash(keywords.getKeywords().toString());
+        }
+        for (int value : new int[]{minImageSize, minTableCells, contentBonus, stopwordPenalty, minParagraphLength,
+                parentLengthBonus, parentLengthDivisor, grandparentLengthBonus, grandparentLengthDivisor,
+                grandparentCommaDivisor, minTemplateTextLength}) {
+            hash = hash * 31 + value;
+        }
+        hash = hash * 31 + (lengthScoring ? 1 : 0);
+        hash = hash * 31 + (preserveDocument ? 1 : 0);
+        hash = hash * 31 + (templateCache != null ? 1 : 0);
+        hash = hash * 31 + (cleaningPipeline == CleaningPipeline.DEFAULT ? 0 : System.identityHashCode(cleaningPipeline));
+        return hash;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    // Class, id or itemprop values that mark a container as content
+    public KeywordMatcher getContentKeywords() {
+        return contentKeywords;
+    }
+
+    // Class, id or itemprop values that mark a container as boilerplate, '^' anchoring a keyword to the start
+    public KeywordMatcher getStopwordKeywords() {
+        return stopwordKeywords;
+    }
+
+    // Attributes whose name contains one of these are kept on the extracted content
+    public KeywordMatcher getAllowedAttributes() {
+        return allowedAttributes;
+    }
+
+    // Comments that protect a div from being removed
+    public KeywordMatcher getSphereitKeywords() {
+        return sphereitKeywords;
+    }
+
+    // Images with a declared width or height below this are dropped
+    public int getMinImageSize() {
+        return minImageSize;
+    }
+
+    // Tables with fewer cells than this are dropped
+    public int getMinTableCells() {
+        return minTableCells;
+    }
+
+    public int getContentBonus() {
+        return contentBonus;
+    }
+
+    public int getStopwordPenalty() {
+        return stopwordPenalty;
+    }
+
+    // Paragraphs longer than this add a length bonus to their parent and grandparent, with length scoring on
+    public int getMinParagraphLength() {
+        return minParagraphLength;
+    }
+
+    public int getParentLengthBonus() {
+        return parentLengthBonus;
+    }
+
+    public int getParentLengthDivisor() {
+        return parentLengthDivisor;
+    }
+
+    public int getGrandparentLengthBonus() {
+        return grandparentLengthBonus;
+    }
+
+    public int getGrandparentLengthDivisor() {
+        return grandparentLengthDivisor;
+    }
+
+    public int getGrandparentCommaDivisor() {
+        return grandparentCommaDivisor;
+    }
+
+    // Whether paragraph text length adds to container scores and spares divs with text from the boilerplate check.
+    // Off by default: the original extractor measured every length as 0, turning it on changes the winner of many pages
+    public boolean isLengthScoring() {
+        return lengthScoring;
+    }
+
+    // Whether the source document is left untouched, only a copy of the winning container is cleaned
+    public boolean isPreserveDocument() {
+        return preserveDocument;
+    }
+
+    // Stages run on the chosen main content
+    public CleaningPipeline getCleaningPipeline() {
+        return cleaningPipeline;
+    }
+
+    // Per-site content locations learned from previous pages, null when pages are always scored
+    public TemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    // Text a site template's container needs to be used instead of scoring the page
+    public int getMinTemplateTextLength() {
+        return minTemplateTextLength;
+    }
+
+    // Results of pages extracted before, null when every page is extracted
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    // Told about the timings and counters of every extraction
+    public ExtractionListener getListener() {
+        return listener;
+    }
+
+    // Limits on the work of each extraction
+    public ExtractionBudget getBudget() {
+        return budget;
+    }
+
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    public static final class Builder {
+
+        private KeywordMatcher contentKeywords = KeywordMatcher.of(
+                "post", "entry", "content", "text", "body", "article", "story");
+        private KeywordMatcher stopwordKeywords = KeywordMatcher.of(
+                "coment", "comment", "koment", "komment", "share", "footer", "^ad", "footnote", "skip", "breadcrumb",
+                "menu", "continue", "pub");
+        private KeywordMatcher allowedAttributes = KeywordMatcher.of("src", "data-src", "href", "text");
+        private KeywordMatcher sphereitKeywords = KeywordMatcher.of("sphereit");
+        private int minImageSize = 70;
+        private int minTableCells = 8;
+        private int contentBonus = 100;
+        private int stopwordPenalty = 999;
+        private int minParagraphLength = 30;
+        private int parentLengthBonus = 30;
+        private int parentLengthDivisor = 5;
+        private int grandparentLengthBonus = 20;
+        private int grandparentLengthDivisor = 10;
+        private int grandparentCommaDivisor = 2;
+        private boolean lengthScoring = false;
+        private boolean preserveDocument = false;
+        private CleaningPipeline cleaningPipeline = CleaningPipeline.DEFAULT;
+        private TemplateCache templateCache = null;
+        private int minTemplateTextLength = 250;
+        private ResultCache resultCache = null;
+        private ExtractionListener listener = ExtractionListener.NOOP;
+        private ExtractionBudget budget = ExtractionBudget.UNLIMITED;
+
+        private Builder() {
+        }
+
+        private Builder(ExtractorConfig config) {
+            this.contentKeywords = config.contentKeywords;
+            this.stopwordKeywords = config.stopwordKeywords;
+            this.allowedAttributes = config.allowedAttributes;
+            this.sphereitKeywords = config.sphereitKeywords;
+            this.minImageSize = config.minImageSize;
+            this.minTableCells = config.minTableCells;
+            this.contentBonus = config.contentBonus;
+            this.stopwordPenalty = config.stopwordPenalty;
+            this.minParagraphLength = config.minParagraphLength;
+            this.parentLengthBonus = config.parentLengthBonus;
+            this.parentLengthDivisor = config.parentLengthDivisor;
+            this.grandparentLengthBonus = config.grandparentLengthBonus;
+            this.grandparentLengthDivisor = config.grandparentLengthDivisor;
+            this.grandparentCommaDivisor = config.grandparentCommaDivisor;
+            this.lengthScoring = config.lengthScoring;
+            this.preserveDocument = config.preserveDocument;
+            this.cleaningPipeline = config.cleaningPipeline;
+            this.templateCache = config.templateCache;
+            this.minTemplateTextLength = config.minTemplateTextLength;
+            this.resultCache = config.resultCache;
+            this.listener = config.listener;
+            this.budget = config.budget;
+        }
+
+        public Builder contentKeywords(String... keywords) {
+            this.contentKeywords = KeywordMatcher.of(keywords);
+            return this;
+        }
+
+        public Builder stopwordKeywords(String... keywords) {
+            this.stopwordKeywords = KeywordMatcher.of(keywords);
+            return this;
+        }
+
+        public Builder allowedAttributes(String... keywords) {
+            this.allowedAttributes = KeywordMatcher.of(keywords);
+            return this;
+        }
+
+        public Builder sphereitKeywords(String... keywords) {
+            this.sphereitKeywords = KeywordMatcher.of(keywords);
+            return this;
+        }
+
+        public Builder minImageSize(int minImageSize) {
+            this.minImageSize = minImageSize;
+            return this;
+        }
+
+        public Builder minTableCells(int minTableCells) {
+            this.minTableCells = minTableCells;
+            return this;
+        }
+
+        public Builder contentBonus(int contentBonus) {
+            this.contentBonus = contentBonus;
+            return this;
+        }
+
+        public Builder stopwordPenalty(int stopwordPenalty) {
+            this.stopwordPenalty = stopwordPenalty;
+            return this;
+        }
+
+        public Builder minParagraphLength(int minParagraphLength) {
+            this.minParagraphLength = minParagraphLength;
+            return this;
+        }
+
+        public Builder parentLengthBonus(int bonus, int divisor) {
+            if (divisor <= 0)
+                throw new IllegalArgumentException("Length divisor must be positive.");
+            this.parentLengthBonus = bonus;
+            this.parentLengthDivisor = divisor;
+            return this;
+        }
+
+        public Builder grandparentLengthBonus(int bonus, int divisor) {
+            if (divisor <= 0)
+                throw new IllegalArgumentException("Length divisor must be positive.");
+            this.grandparentLengthBonus = bonus;
+            this.grandparentLengthDivisor = divisor;
+            return this;
+        }
+
+        public Builder grandparentCommaDivisor(int divisor) {
+            if (divisor <= 0)
+                throw new IllegalArgumentException("Comma divisor must be positive.");
+            this.grandparentCommaDivisor = divisor;
+            return this;
+        }
+
+        public Builder lengthScoring(boolean lengthScoring) {
+            this.lengthScoring = lengthScoring;
+            return this;
+        }
+
+        public Builder preserveDocument(boolean preserveDocument) {
+            this.preserveDocument = preserveDocument;
+            return this;
+        }
+
+        public Builder cleaningPipeline(CleaningPipeline cleaningPipeline) {
+            this.cleaningPipeline = cleaningPipeline;
+            return this;
+        }
+
+        public Builder templateCache(TemplateCache templateCache) {
+            this.templateCache = templateCache;
+            return this;
+        }
+
+        public Builder minTemplateTextLength(int minTemplateTextLength) {
+            this.minTemplateTextLength = minTemplateTextLength;
+            return this;
+        }
+
+        public Builder resultCache(ResultCache resultCache) {
+            this.resultCache = resultCache;
+            return this;
+        }
+
+        public Builder listener(ExtractionListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public Builder budget(ExtractionBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        public ExtractorConfig build() {
+            if (contentKeywords == null || stopwordKeywords == null || allowedAttributes == null || sphereitKeywords == null)
+                throw new IllegalArgumentException("Keywords must not be null.");
+            if (cleaningPipeline == null)
+                throw new IllegalArgumentException("Cleaning pipeline must not be null.");
+            if (listener == null)
+                throw new IllegalArgumentException("Listener must not be null, use ExtractionListener.NOOP.");
+            if (budget == null)
+                throw new IllegalArgumentException("Budget must not be null, use ExtractionBudget.UNLIMITED.");
+            return new ExtractorConfig(this);
+        }
+    }
+}
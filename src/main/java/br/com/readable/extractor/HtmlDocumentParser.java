@@ -0,0 +1,159 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.htmlcleaner.CData;
+import org.htmlcleaner.CleanerProperties;
+import org.htmlcleaner.CommentNode;
+import org.htmlcleaner.ContentNode;
+import org.htmlcleaner.DoctypeToken;
+import org.htmlcleaner.HtmlCleaner;
+import org.htmlcleaner.TagNode;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Parses raw HTML into the DOM the extractor works on, using HtmlCleaner. Thread-safe.
+ */
+public class HtmlDocumentParser {
+
+    private final boolean stripScripts;
+
+    public HtmlDocumentParser() {
+        this(false);
+    }
+
+    // With stripScripts, script (but JSON-LD), style, noscript and svg elements are dropped while the page is read,
+    // see ScriptFilterReader, and are never parsed into the DOM
+    public HtmlDocumentParser(boolean stripScripts) {
+        this.stripScripts = stripScripts;
+    }
+
+    public boolean isStripScripts() {
+        return stripScripts;
+    }
+
+    public Document parse(HtmlInput input) throws IOException {
+        HtmlCleaner cleaner = new HtmlCleaner(newProperties());
+        TagNode node = stripScripts
+                ? cleaner.clean(new ScriptFilterReader(input.openReader()))
+                : cleaner.clean(input.openStream(), input.getCharset());
+        return toDocument(node, input.getBaseUri());
+    }
+
+    public Document parse(String html, String baseUri) throws IOException {
+        HtmlCleaner cleaner = new HtmlCleaner(newProperties());
+        TagNode node = stripScripts ? cleaner.clean(new ScriptFilterReader(new StringReader(html))) : cleaner.clean(html);
+        return toDocument(node, baseUri);
+    }
+
+    // The same DOM HtmlCleaner's DomSerializer builds, without escaping, but from an explicit stack: its recursion
+    // overflows small thread stacks on deeply nested pages
+    protected Document toDocument(TagNode node, String baseUri) throws IOException {
+        Document document;
+        try {
+            document = newDocument(node);
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Could not create DOM document", e);
+        }
+        appendChildren(document, node);
+
+        if (baseUri != null)
+            document.setDocumentURI(baseUri);
+        return document;
+    }
+
+    // Root element named after the doctype when there is one, after the root tag otherwise; its attributes are not kept
+    private static Document newDocument(TagNode node) throws ParserConfigurationException {
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        DoctypeToken doctype = node.getDocType();
+        if (doctype != null) {
+            DOMImplementation dom = builder.getDOMImplementation();
+            return dom.createDocument(null, doctype.getPart1(),
+                    dom.createDocumentType(doctype.getPart1(), doctype.getPublicId(), doctype.getSystemId()));
+        }
+        Document document = builder.newDocument();
+        document.appendChild(document.createElement(node.getName()));
+        return document;
+    }
+
+    // Elements are attached before their children are added, which DomSerializer does the other way around, with the
+    // same result. The first text of a script or style becomes a CDATA section, CDATA outside of them is dropped
+    private static void appendChildren(Document document, TagNode root) {
+        Deque<Element> parents = new ArrayDeque<>();
+        Deque<Iterator<?>> children = new ArrayDeque<>();
+        parents.push(document.getDocumentElement());
+        children.push(root.getAllChildren().iterator());
+
+        while (!children.isEmpty()) {
+            Iterator<?> siblings = children.peek();
+            if (!siblings.hasNext()) {
+                children.pop();
+                parents.pop();
+                continue;
+            }
+
+            Element parent = parents.peek();
+            Object child = siblings.next();
+            if (child instanceof CommentNode) {
+                parent.appendChild(document.createComment(((CommentNode) child).getContent()));
+            } else if (child instanceof CData) {
+                if (isScriptOrStyle(parent))
+                    parent.appendChild(document.createCDATASection(((CData) child).getContentWithoutStartAndEndTokens()));
+            } else if (child instanceof ContentNode) {
+                String text = ((ContentNode) child).getContent();
+                parent.appendChild(isScriptOrStyle(parent) && !parent.hasChildNodes()
+                        ? document.createCDATASection(text) : document.createTextNode(text));
+            } else if (child instanceof TagNode) {
+                TagNode tag = (TagNode) child;
+                Element element = document.createElement(tag.getName());
+                for (Map.Entry<String, String> attribute : tag.getAttributes().entrySet()) {
+                    element.setAttribute(attribute.getKey(), attribute.getValue());
+                    if ("id".equalsIgnoreCase(attribute.getKey()))
+                        element.setIdAttribute(attribute.getKey(), true);
+                }
+                parent.appendChild(element);
+                parents.push(element);
+                children.push(tag.getAllChildren().iterator());
+            } else if (child instanceof List) {
+                parents.push(parent);
+                children.push(((List<?>) child).iterator());
+            }
+        }
+    }
+
+    private static boolean isScriptOrStyle(Element element) {
+        String name = element.getNodeName();
+        return "script".equalsIgnoreCase(name) || "style".equalsIgnoreCase(name);
+    }
+
+    // HtmlCleaner instances are not shareable, so every parse gets its own settings
+    protected CleanerProperties newProperties() {
+        CleanerProperties props = new CleanerProperties();
+        props.setRecognizeUnicodeChars(false);
+        props.setAdvancedXmlEscape(true);
+        props.setAllowMultiWordAttributes(true);
+        props.setAllowHtmlInsideAttributes(true);
+        props.setIgnoreQuestAndExclam(false);
+        props.setOmitUnknownTags(false);
+        props.setOmitComments(false);
+        props.setNamespacesAware(false);
+        props.setTranslateSpecialEntities(false);
+        props.setTransSpecialEntitiesToNCR(true);
+        props.setTreatUnknownTagsAsContent(false);
+        props.setUseEmptyElementTags(false);
+        props.setUseCdataForScriptAndStyle(false);
+        return props;
+    }
+}
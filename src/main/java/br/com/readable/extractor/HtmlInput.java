@@ -0,0 +1,172 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Raw HTML of a page to be parsed and extracted, with its charset and the URI images and links resolve against.
+ * When no charset is given it is detected from the content, see {@link CharsetDetector}.
+ */
+public final class HtmlInput {
+
+    public static final String DEFAULT_CHARSET = "UTF-8";
+
+    // Files from this size on are memory-mapped rather than read
+    static final long MAP_THRESHOLD = 64 * 1024;
+
+    private final ByteBuffer content;
+    private final String charset;
+    private final String baseUri;
+
+    private HtmlInput(ByteBuffer content, String charset, String contentType, String baseUri) {
+        if (content == null)
+            throw new IllegalArgumentException("Html bytes must not be null.");
+        this.content = content.slice().asReadOnlyBuffer();
+
+        // A byte order mark is the most reliable hint, even over an explicit charset
+        String detected = CharsetDetector.fromBom(this.content);
+        if (detected == null)
+            detected = charset != null ? charset : CharsetDetector.detect(this.content, contentType);
+        this.charset = detected;
+        this.baseUri = baseUri;
+    }
+
+    public static HtmlInput of(byte[] bytes) {
+        return of(bytes, null);
+    }
+
+    public static HtmlInput of(byte[] bytes, String baseUri) {
+        return of(bytes, null, baseUri);
+    }
+
+    public static HtmlInput of(byte[] bytes, String charset, String baseUri) {
+        if (bytes == null)
+            throw new IllegalArgumentException("Html bytes must not be null.");
+        return new HtmlInput(ByteBuffer.wrap(bytes), charset, null, baseUri);
+    }
+
+    // The buffer is not copied, callers must not change its content while the input is in use
+    public static HtmlInput of(ByteBuffer content, String charset, String baseUri) {
+        return new HtmlInput(content, charset, null, baseUri);
+    }
+
+    // Body of an HTTP response, the charset of the Content-Type header is used unless a byte order mark says otherwise
+    public static HtmlInput fromResponse(byte[] body, String contentType, String baseUri) {
+        if (body == null)
+            throw new IllegalArgumentException("Html bytes must not be null.");
+        return new HtmlInput(ByteBuffer.wrap(body), null, contentType, baseUri);
+    }
+
+    // Reads the stream to its end, without closing it
+    public static HtmlInput of(InputStream in, String baseUri) throws IOException {
+        byte[] buffer = new byte[8192];
+        int size = 0;
+        int read;
+        while ((read = in.read(buffer, size, buffer.length - size)) >= 0) {
+            size += read;
+            if (size == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        // Wrapped as is, no trimming copy
+        return new HtmlInput(ByteBuffer.wrap(buffer, 0, size), null, null, baseUri);
+    }
+
+    public static HtmlInput of(Path file) throws IOException {
+        return of(file, null);
+    }
+
+    // Large files are memory-mapped, the mapping is released when the input is garbage collected
+    public static HtmlInput of(Path file, String baseUri) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too large: " + file);
+            if (size < MAP_THRESHOLD)
+                return of(Files.readAllBytes(file), baseUri);
+            return new HtmlInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), null, null, baseUri);
+        }
+    }
+
+    // Raw content, copied unless the input wraps a whole byte array
+    public byte[] getBytes() {
+        if (content.hasArray() && content.arrayOffset() == 0 && content.array().length == content.remaining())
+            return content.array();
+        byte[] bytes = new byte[content.remaining()];
+        content.duplicate().get(bytes);
+        return bytes;
+    }
+
+    // Read-only view of the raw content
+    public ByteBuffer getContent() {
+        return content.duplicate();
+    }
+
+    public int getLength() {
+        return content.remaining();
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    // Content past the byte order mark, read straight from the underlying bytes
+    public InputStream openStream() {
+        ByteBuffer buffer = content.duplicate();
+        buffer.position(CharsetDetector.bomLength(buffer));
+        return new ByteBufferInputStream(buffer);
+    }
+
+    public Reader openReader() {
+        return new InputStreamReader(openStream(), Charset.forName(charset));
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pull tokenizer over raw HTML: start and end tags with their attributes, text, comments and other markup
+ * (doctype, processing instructions, CDATA), each with its character offsets in the source. No tree is built
+ * and nothing is buffered beyond the current token. Tag and attribute names are lower-cased, text is left as is.
+ */
+public class HtmlTokenizer {
+
+    public enum Token { START_TAG, END_TAG, TEXT, COMMENT, OTHER, EOF }
+
+    private final Reader reader;
+    private char[] buf = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+    private long bufOffset = 0;
+
+    private Token token;
+    private final StringBuilder text = new StringBuilder();
+    private String tagName;
+    private final List<String> attrNames = new ArrayList<>();
+    private final List<String> attrValues = new ArrayList<>();
+    private boolean selfClosing;
+    private long start;
+    private long end;
+
+    // Set inside script/style/title/textarea, whose content is text up to the matching end tag
+    private String rawTextTag;
+
+    public HtmlTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    public Token next() throws IOException {
+        text.setLength(0);
+        attrNames.clear();
+        attrValues.clear();
+        tagName = null;
+        selfClosing = false;
+        start = offset();
+
+        if (rawTextTag != null) {
+            String closing = rawTextTag;
+            rawTextTag = null;
+            if (readRawText(closing))
+                return finish(Token.TEXT);
+        }
+
+        int c = peek(0);
+        if (c < 0)
+            return finish(Token.EOF);
+
+        if (c == '<') {
+            int next = peek(1);
+            if (next == '!') {
+                if (peek(2) == '-' && peek(3) == '-') {
+                    skip(4);
+                    readUntil("-->");
+                    return finish(Token.COMMENT);
+                }
+                skip(2);
+                readUntil(">");
+                return finish(Token.OTHER);
+            } else if (next == '?') {
+                skip(2);
+                readUntil(">");
+                return finish(Token.OTHER);
+            } else if (next == '/' && isLetter(peek(2))) {
+                skip(2);
+                tagName = readName();
+                readUntil(">");
+                text.setLength(0);
+                return finish(Token.END_TAG);
+            } else if (isLetter(next)) {
+                skip(1);
+                tagName = readName();
+                readAttributes();
+                if (!selfClosing && isRawText(tagName))
+                    rawTextTag = tagName;
+                return finish(Token.START_TAG);
+            }
+        }
+
+        // Text up to the next markup, a lone '<' is text as well
+        text.append((char) read());
+        while ((c = peek(0)) >= 0 && (c != '<' || !isMarkupAhead())) {
+            text.append((char) read());
+        }
+        return finish(Token.TEXT);
+    }
+
+    public Token getToken() {
+        return token;
+    }
+
+    // Lower-cased name of the current start or end tag
+    public String getTagName() {
+        return tagName;
+    }
+
+    // Value of an attribute of the current start tag, null when absent
+    public String getAttribute(String name) {
+        for (int i = 0; i < attrNames.size(); i++) {
+            if (attrNames.get(i).equals(name))
+                return attrValues.get(i);
+        }
+        return null;
+    }
+
+    public int getAttributeCount() {
+        return attrNames.size();
+    }
+
+    public String getAttributeName(int i) {
+        return attrNames.get(i);
+    }
+
+    public String getAttributeValue(int i) {
+        return attrValues.get(i);
+    }
+
+    public boolean isSelfClosing() {
+        return selfClosing;
+    }
+
+    // Content of the current text or comment token, only valid until the next call to next()
+    public CharSequence getText() {
+        return text;
+    }
+
+    // Offset of the first character of the current token
+    public long getStart() {
+        return start;
+    }
+
+    // Offset just past the last character of the current token
+    public long getEnd() {
+        return end;
+    }
+
+    private Token finish(Token type) {
+        token = type;
+        end = offset();
+        return type;
+    }
+
+    private long offset() {
+        return bufOffset + pos;
+    }
+
+    // Whether the '<' at the current position starts a tag, comment or other markup
+    private boolean isMarkupAhead() throws IOException {
+        int next = peek(1);
+        return next == '!' || next == '?' || isLetter(next) || (next == '/' && isLetter(peek(2)));
+    }
+
+    private static boolean isRawText(String name) {
+        return "script".equals(name) || "style".equals(name) || "title".equals(name) || "textarea".equals(name);
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private String readName() throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c;
+        while ((c = peek(0)) >= 0 && !isSpace(c) && c != '>' && c != '/' && c != '=') {
+            name.append(Character.toLowerCase((char) read()));
+        }
+        return name.toString();
+    }
+
+    private void readAttributes() throws IOException {
+        while (true) {
+            int c = peek(0);
+            while (isSpace(c)) {
+                skip(1);
+                c = peek(0);
+            }
+            if (c < 0)
+                return;
+            if (c == '>') {
+                skip(1);
+                return;
+            }
+            if (c == '/') {
+                skip(1);
+                if (peek(0) == '>') {
+                    skip(1);
+                    selfClosing = true;
+                    return;
+                }
+                continue;
+            }
+
+            String name = readName();
+            if (name.isEmpty()) {
+                // Stray '=' or similar, drop it
+                skip(1);
+                continue;
+            }
+
+            c = peek(0);
+            while (isSpace(c)) {
+                skip(1);
+                c = peek(0);
+            }
+
+            String value = "";
+            if (c == '=') {
+                skip(1);
+                c = peek(0);
+                while (isSpace(c)) {
+                    skip(1);
+                    c = peek(0);
+                }
+                StringBuilder builder = new StringBuilder();
+                if (c == '"' || c == '\'') {
+                    skip(1);
+                    int quote = c;
+                    while ((c = read()) >= 0 && c != quote) {
+                        builder.append((char) c);
+                    }
+                } else {
+                    while ((c = peek(0)) >= 0 && !isSpace(c) && c != '>') {
+                        builder.append((char) read());
+                    }
+                }
+                value = builder.toString();
+            }
+
+            attrNames.add(name);
+            attrValues.add(value);
+        }
+    }
+
+    // Reads text up to "</tag" (any case), leaving the end tag to be read next; false when there was no text
+    private boolean readRawText(String tag) throws IOException {
+        int c;
+        while ((c = peek(0)) >= 0) {
+            if (c == '<' && peek(1) == '/' && matchesIgnoreCase(2, tag)) {
+                int after = peek(2 + tag.length());
+                if (after < 0 || isSpace(after) || after == '>' || after == '/')
+                    break;
+            }
+            text.append((char) read());
+        }
+        return text.length() > 0;
+    }
+
+    private boolean matchesIgnoreCase(int ahead, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            int c = peek(ahead + i);
+            if (c < 0 || Character.toLowerCase((char) c) != value.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // Reads into the text buffer up to and including the terminator, which is not kept
+    private void readUntil(String terminator) throws IOException {
+        int length = terminator.length();
+        int c;
+        while ((c = read()) >= 0) {
+            text.append((char) c);
+            int size = text.length();
+            if (size >= length && text.charAt(size - 1) == terminator.charAt(length - 1)
+                    && text.substring(size - length).equals(terminator)) {
+                text.setLength(size - length);
+                return;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        int c = peek(0);
+        if (c >= 0)
+            pos++;
+        return c;
+    }
+
+    private void skip(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            read();
+        }
+    }
+
+    // Character ahead of the current position, -1 past the end of the input
+    private int peek(int ahead) throws IOException {
+        while (pos + ahead >= limit) {
+            if (!fill())
+                return -1;
+        }
+        return buf[pos + ahead];
+    }
+
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            bufOffset += pos;
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            char[] grown = new char[buf.length * 2];
+            System.arraycopy(buf, 0, grown, 0, limit);
+            buf = grown;
+        }
+
+        int read = reader.read(buf, limit, buf.length - limit);
+        if (read <= 0)
+            return false;
+        limit += read;
+        return true;
+    }
+}
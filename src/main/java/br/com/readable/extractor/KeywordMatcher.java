@@ -0,0 +1,182 @@
+package br.com.readable.extractor;
+
+import java.util.*;
+
+/**
+ * Case-insensitive search for any of a fixed set of keywords, as an Aho-Corasick automaton compiled into a
+ * transition table. A keyword starting with '^' only matches at the start of the text. Matching allocates nothing;
+ * instances are immutable and thread-safe.
+ */
+public final class KeywordMatcher {
+
+    private static final int ROOT = 0;
+
+    private final List<String> keywords;
+
+    // Alphabet: ASCII characters map through a table, the few others through a sorted array
+    private final int[] asciiClass = new int[128];
+    private final char[] otherChars;
+    private final int[] otherClass;
+    private final int alphabetSize;
+
+    // transitions[state * alphabetSize + charClass], class 0 being every character no keyword has
+    private final int[] transitions;
+    private final boolean[] accepting;
+
+    private final char[][] anchored;
+
+    private KeywordMatcher(List<String> keywords) {
+        this.keywords = Collections.unmodifiableList(new ArrayList<>(keywords));
+
+        List<char[]> floating = new ArrayList<>();
+        List<char[]> prefixes = new ArrayList<>();
+        SortedSet<Character> others = new TreeSet<>();
+        for (String keyword : keywords) {
+            boolean anchor = keyword.startsWith("^");
+            char[] chars = lowerCase(anchor ? keyword.substring(1) : keyword);
+            if (chars.length == 0)
+                throw new IllegalArgumentException("Keywords must not be empty.");
+            (anchor ? prefixes : floating).add(chars);
+
+            for (char c : chars) {
+                if (c >= 128)
+                    others.add(c);
+                else if (asciiClass[c] == 0)
+                    asciiClass[c] = -1;
+            }
+        }
+
+        // Character classes, 0 is left for characters outside the keywords
+        int next = 1;
+        for (int c = 0; c < 128; c++) {
+            if (asciiClass[c] == -1)
+                asciiClass[c] = next++;
+        }
+        otherChars = new char[others.size()];
+        otherClass = new int[others.size()];
+        int i = 0;
+        for (char c : others) {
+            otherChars[i] = c;
+            otherClass[i++] = next++;
+        }
+        alphabetSize = next;
+        anchored = prefixes.toArray(new char[prefixes.size()][]);
+
+        // Trie of the floating keywords
+        List<int[]> trie = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        trie.add(newRow());
+        ends.add(false);
+        for (char[] chars : floating) {
+            int state = ROOT;
+            for (char c : chars) {
+                int cls = classOf(c);
+                if (trie.get(state)[cls] == 0) {
+                    trie.get(state)[cls] = trie.size();
+                    trie.add(newRow());
+                    ends.add(false);
+                }
+                state = trie.get(state)[cls];
+            }
+            ends.set(state, true);
+        }
+
+        // Breadth-first failure links, folded into a complete transition table
+        int states = trie.size();
+        transitions = new int[states * alphabetSize];
+        accepting = new boolean[states];
+        int[] failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < alphabetSize; cls++) {
+            int child = trie.get(ROOT)[cls];
+            transitions[cls] = child;
+            if (child != 0) {
+                failure[child] = ROOT;
+                queue.add(child);
+            }
+        }
+        accepting[ROOT] = ends.get(ROOT);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] = ends.get(state) || accepting[failure[state]];
+            for (int cls = 0; cls < alphabetSize; cls++) {
+                int child = trie.get(state)[cls];
+                if (child != 0) {
+                    failure[child] = transitions[failure[state] * alphabetSize + cls];
+                    transitions[state * alphabetSize + cls] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * alphabetSize + cls] = transitions[failure[state] * alphabetSize + cls];
+                }
+            }
+        }
+    }
+
+    public static KeywordMatcher of(String... keywords) {
+        return of(Arrays.asList(keywords));
+    }
+
+    public static KeywordMatcher of(Collection<String> keywords) {
+        if (keywords == null)
+            throw new IllegalArgumentException("Keywords must not be null.");
+        return new KeywordMatcher(new ArrayList<>(keywords));
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    // Whether any keyword occurs in the text, ignoring case; false for null
+    public boolean find(CharSequence text) {
+        if (text == null)
+            return false;
+
+        for (char[] prefix : anchored) {
+            if (startsWith(text, prefix))
+                return true;
+        }
+
+        int state = ROOT;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * alphabetSize + classOf(Character.toLowerCase(text.charAt(i)))];
+            if (accepting[state])
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean startsWith(CharSequence text, char[] prefix) {
+        if (text.length() < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (Character.toLowerCase(text.charAt(i)) != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private int classOf(char c) {
+        if (c < 128)
+            return asciiClass[c];
+        int i = Arrays.binarySearch(otherChars, c);
+        return i >= 0 ? otherClass[i] : 0;
+    }
+
+    private int[] newRow() {
+        return new int[alphabetSize];
+    }
+
+    private static char[] lowerCase(String keyword) {
+        char[] chars = keyword.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return chars;
+    }
+
+    @Override
+    public String toString() {
+        return keywords.toString();
+    }
+}
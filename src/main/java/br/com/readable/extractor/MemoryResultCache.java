@@ -0,0 +1,154 @@
+package br.com.readable.extractor;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * In-memory {@link ResultCache} bounded by the estimated size of its results in bytes, evicting the least recently
+ * used ones first. Thread-safe.
+ */
+public final class MemoryResultCache implements ResultCache {
+
+    // Rough heap cost of a DOM node and of a cache entry, on top of their strings
+    private static final int NODE_WEIGHT = 64;
+    private static final int ENTRY_WEIGHT = 128;
+
+    private final long maxWeight;
+    private final LinkedHashMap<ResultKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public MemoryResultCache(long maxWeight) {
+        if (maxWeight <= 0)
+            throw new IllegalArgumentException("Cache weight must be positive.");
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public ExtractionResult get(ResultKey key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry != null ? entry.result : null;
+    }
+
+    // Results heavier than the whole cache are not stored
+    @Override
+    public void put(ResultKey key, ExtractionResult result) {
+        long resultWeight = weigh(result);
+        if (resultWeight > maxWeight)
+            return;
+
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(result, resultWeight));
+            if (previous != null)
+                weight -= previous.weight;
+            weight += resultWeight;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (weight > maxWeight) {
+                weight -= eldest.next().weight;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    // Estimated bytes held by the cached results
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    // Share of lookups answered from the cache, 0 before the first one
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // Estimated heap size of a result: its strings at two bytes a character plus a fixed cost per node
+    static long weigh(ExtractionResult result) {
+        long weight = ENTRY_WEIGHT + chars(result.getTitle()) + chars(result.getDescription()) + chars(result.getImage());
+
+        Node root = result.getArticle();
+        Node node = root;
+        while (node != null) {
+            weight += NODE_WEIGHT + chars(node.getNodeName()) + chars(node.getNodeValue());
+            NamedNodeMap attributes = node.getAttributes();
+            if (attributes != null) {
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    Attr attribute = (Attr) attributes.item(i);
+                    weight += NODE_WEIGHT + chars(attribute.getName()) + chars(attribute.getValue());
+                }
+            }
+
+            // Next node in document order, without leaving the article
+            if (node.getFirstChild() != null) {
+                node = node.getFirstChild();
+                continue;
+            }
+            while (node != root && node.getNextSibling() == null) {
+                node = node.getParentNode();
+            }
+            node = node == root ? null : node.getNextSibling();
+        }
+        return weight;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+
+    private static final class Entry {
+
+        final ExtractionResult result;
+        final long weight;
+
+        Entry(ExtractionResult result, long weight) {
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.readable.extractor;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+
+/**
+ * Reads title, description and og:/twitter: metadata from raw HTML in a single pass over the head. Input is
+ * decoded lazily and reading stops at &lt;/head&gt; (or the first body tag), so no DOM is built and the body is
+ * never read. Thread-safe.
+ */
+public class MetadataExtractor {
+
+    public PageMetadata extract(HtmlInput input) throws IOException {
+        return extract(input.openReader());
+    }
+
+    public PageMetadata extract(byte[] html) throws IOException {
+        return extract(HtmlInput.of(html));
+    }
+
+    // The stream is read only as far as the end of the head, and is not closed
+    public PageMetadata extract(InputStream html, String charset) throws IOException {
+        return extract(new InputStreamReader(html, Charset.forName(charset)));
+    }
+
+    public PageMetadata extract(Reader html) throws IOException {
+        HtmlTokenizer tokenizer = new HtmlTokenizer(html);
+        Map<String, List<String>> properties = new LinkedHashMap<>();
+        String title = null;
+        String description = null;
+        boolean inTitle = false;
+
+        HtmlTokenizer.Token token;
+        scan:
+        while ((token = tokenizer.next()) != HtmlTokenizer.Token.EOF) {
+            switch (token) {
+                case START_TAG:
+                    String tag = tokenizer.getTagName();
+                    if ("body".equals(tag))
+                        break scan;
+                    if ("title".equals(tag) && title == null) {
+                        inTitle = true;
+                    } else if ("meta".equals(tag)) {
+                        String content = tokenizer.getAttribute("content");
+                        if (content == null)
+                            break;
+                        content = StringEscapeUtils.unescapeHtml4(content).trim();
+
+                        String property = tokenizer.getAttribute("property");
+                        String name = tokenizer.getAttribute("name");
+                        String key = isProperty(property) ? property : isProperty(name) ? name : null;
+                        if (key != null) {
+                            List<String> values = properties.get(key);
+                            if (values == null)
+                                properties.put(key, values = new ArrayList<>(1));
+                            values.add(content);
+                        }
+
+                        if (description == null && ("og:description".equals(property) || "description".equals(name)))
+                            description = content;
+                    }
+                    break;
+                case TEXT:
+                    if (inTitle) {
+                        title = collapse(StringEscapeUtils.unescapeHtml4(tokenizer.getText().toString()));
+                        inTitle = false;
+                    }
+                    break;
+                case END_TAG:
+                    if ("head".equals(tokenizer.getTagName()))
+                        break scan;
+                    inTitle = false;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return new PageMetadata(title, description, properties);
+    }
+
+    private static boolean isProperty(String name) {
+        return name != null && (name.startsWith("og:") || name.startsWith("twitter:"));
+    }
+
+    private static String collapse(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == 160) {
+                space = builder.length() > 0;
+                continue;
+            }
+            if (space)
+                builder.append(' ');
+            builder.append(c);
+            space = false;
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.readable.extractor;
+
+import java.util.*;
+
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * Text length, comma count, link text length and visible-character flags for every element and text node
+ * of a subtree, looked up by node, over a compact copy of the subtree built in a single traversal. Values reflect the
+ * tree as it was at build time.
+ */
+public class NodeStatistics {
+
+    private final Map<Node, Integer> ordinals = new IdentityHashMap<>();
+    private final CompactTree tree;
+    private final int[] linkTextLengths;
+
+    public NodeStatistics(Node root) {
+        this(root, null);
+    }
+
+    // Counting every node against the extraction's budget, and failing once it is exceeded
+    NodeStatistics(Node root, WorkTracker work) {
+        tree = new CompactTree(root, work);
+        int size = tree.size();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (ordinal == 0 || tree.tag(ordinal) != CompactTree.OTHER)
+                ordinals.put(tree.node(ordinal), ordinal);
+        }
+
+        // Bottom-up, text of a link counts once for every ancestor of the link
+        linkTextLengths = new int[size];
+        for (int ordinal = size - 1; ordinal > 0; ordinal--) {
+            int length = tree.tag(ordinal) == CompactTree.A ? tree.textLength(ordinal) : linkTextLengths[ordinal];
+            linkTextLengths[tree.parent(ordinal)] += length;
+        }
+    }
+
+    // Elements and text nodes of the subtree
+    public int size() {
+        return ordinals.size();
+    }
+
+    // Length of all text below the node (the node itself, for text nodes)
+    public int textLength(Node node) {
+        Integer ordinal = ordinals.get(node);
+        return ordinal == null ? 0 : tree.textLength(ordinal);
+    }
+
+    public int commaCount(Node node) {
+        Integer ordinal = ordinals.get(node);
+        return ordinal == null ? 0 : tree.commaCount(ordinal);
+    }
+
+    // Length of the text enclosed by <a> elements below the node
+    public int linkTextLength(Node node) {
+        Integer ordinal = ordinals.get(node);
+        return ordinal == null ? 0 : linkTextLengths[ordinal];
+    }
+
+    // Whether any text below the node has a non-whitespace character
+    public boolean hasVisibleChar(Node node) {
+        return hasFlag(node, CompactTree.VISIBLE);
+    }
+
+    // Whether the node's own text children have a non-whitespace character
+    public boolean hasVisibleOwnText(Node node) {
+        return hasFlag(node, CompactTree.DIRECT_VISIBLE);
+    }
+
+    // First text node with a visible character below the node, in document order
+    public Text firstVisibleText(Node node) {
+        Integer ordinal = ordinals.get(node);
+        int text = ordinal == null ? -1 : tree.firstVisibleText(ordinal);
+        return text < 0 ? null : (Text) tree.node(text);
+    }
+
+    private boolean hasFlag(Node node, byte flag) {
+        Integer ordinal = ordinals.get(node);
+        return ordinal != null && tree.hasFlag(ordinal, flag);
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.readable.extractor;
+
+import java.util.*;
+
+/**
+ * Page metadata read from the head: the &lt;title&gt;, the meta description and every og:* and twitter:* value.
+ * Immutable.
+ */
+public final class PageMetadata {
+
+    private final String documentTitle;
+    private final String description;
+    private final Map<String, List<String>> properties;
+
+    PageMetadata(String documentTitle, String description, Map<String, List<String>> properties) {
+        this.documentTitle = documentTitle;
+        this.description = description;
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : properties.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.properties = Collections.unmodifiableMap(copy);
+    }
+
+    // og:title, then twitter:title, then the document title
+    public String getTitle() {
+        String title = first("og:title", "twitter:title");
+        return title != null ? title : documentTitle;
+    }
+
+    // og:description or the meta description (whichever comes first), then twitter:description
+    public String getDescription() {
+        return description != null ? description : first("twitter:description");
+    }
+
+    // og:image, then twitter:image
+    public String getImage() {
+        return first("og:image", "og:image:url", "twitter:image", "twitter:image:src");
+    }
+
+    // Text of the <title> element, whitespace collapsed
+    public String getDocumentTitle() {
+        return documentTitle;
+    }
+
+    // First value of an og:* or twitter:* property, null when absent
+    public String get(String property) {
+        List<String> values = properties.get(property);
+        return values != null ? values.get(0) : null;
+    }
+
+    // All values of an og:* or twitter:* property, in document order
+    public List<String> getAll(String property) {
+        List<String> values = properties.get(property);
+        return values != null ? values : Collections.<String>emptyList();
+    }
+
+    public Map<String, List<String>> getProperties() {
+        return properties;
+    }
+
+    private String first(String... names) {
+        for (String name : names) {
+            String value = get(name);
+            if (value != null && !value.isEmpty())
+                return value;
+        }
+        return null;
+    }
+}
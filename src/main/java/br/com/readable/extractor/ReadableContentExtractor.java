@@ -1,73 +1,232 @@
 package br.com.readable.extractor;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
 import org.w3c.dom.*;
-import org.w3c.dom.traversal.DocumentTraversal;
-import org.w3c.dom.traversal.NodeFilter;
-import org.w3c.dom.traversal.TreeWalker;
 
+/**
+ * Extracts the readable content of a page. Instances hold only immutable configuration and can be shared by
+ * any number of threads through the methods taking a {@link Document}; every call keeps its state in its own
+ * {@link ExtractionContext}.
+ */
 public class ReadableContentExtractor {
 
-    private Document doc;
-    private Element mainContent = null;
-    private boolean imageBeforeText = false;
+    private static final Set<String> BREAKS = Collections.singleton("br");
+    // Candidates are only kept with a score of zero or more
+    private static final int UNSCORED = -1;
 
-    private Matcher contentPattern = Pattern.compile("post|entry|content|text|body|article|story", Pattern.CASE_INSENSITIVE).matcher("");
-    private Matcher stopwordPattern = Pattern.compile("comm?ents?|komm?ents?|share|footer|^ad|footnote|skip|breadcrumb|menu|continue|pub", Pattern.CASE_INSENSITIVE).matcher("");
-    private Matcher allowedAttrPattern = Pattern.compile("src|data-src|href|text", Pattern.CASE_INSENSITIVE).matcher("");
-    private Matcher sphereitPattern = Pattern.compile("sphereit", Pattern.CASE_INSENSITIVE).matcher("");
-    private Matcher imageSizePattern = Pattern.compile("(\\d+).*").matcher("");
+    private final ExtractorConfig config;
+    private final HtmlDocumentParser parser;
+
+    // Document bound by the legacy per-document constructor, not shareable
+    private ExtractionContext bound;
 
     public ReadableContentExtractor() {
+        this(ExtractorConfig.DEFAULT);
+    }
+
+    public ReadableContentExtractor(ExtractorConfig config) {
+        this(config, new HtmlDocumentParser());
+    }
+
+    public ReadableContentExtractor(ExtractorConfig config, HtmlDocumentParser parser) {
+        if (config == null)
+            throw new IllegalArgumentException("Config must not be null.");
+        if (parser == null)
+            throw new IllegalArgumentException("Parser must not be null.");
+        this.config = config;
+        this.parser = parser;
     }
 
+    /**
+     * @deprecated bind-to-document usage, use {@link #ReadableContentExtractor()} and {@link #extract(Document)}
+     */
+    @Deprecated
     public ReadableContentExtractor(final Document doc) {
-        this.doc = doc;
+        this(ExtractorConfig.DEFAULT);
+        this.bound = newContext(doc);
     }
 
+    /**
+     * @deprecated bind-to-document usage, use {@link #extract(Document)}
+     */
+    @Deprecated
     public void reset(Document doc){
-        this.doc = doc;
-        imageBeforeText = false;
-        mainContent = null;
+        this.bound = newContext(doc);
+    }
+
+    public ExtractorConfig getConfig() {
+        return config;
+    }
+
+    public HtmlDocumentParser getParser() {
+        return parser;
     }
 
     public Element extract() {
-        // Create result Document
-        Element articleContent = this.doc.createElement("div");
-        Element articleTitle = this.doc.createElement("h1");
+        return extract(bound());
+    }
+
+    public Element extract(Document doc) {
+        return extract(newContext(doc));
+    }
+
+    // With a result cache, pages extracted before come back without being parsed, detached as by extractResult
+    public Element extract(HtmlInput input) throws IOException {
+        if (config.getResultCache() != null)
+            return extractResult(input).getArticle();
+        return extract(parse(parser, input));
+    }
+
+    // Charset is detected from the content, see CharsetDetector
+    public Element extract(byte[] html) throws IOException {
+        return extract(HtmlInput.of(html));
+    }
+
+    // Reads the stream to its end, without closing it
+    public Element extract(InputStream html) throws IOException {
+        return extract(HtmlInput.of(html, null));
+    }
+
+    // Large files are memory-mapped instead of read into memory
+    public Element extract(Path file) throws IOException {
+        return extract(HtmlInput.of(file));
+    }
+
+    protected Element extract(ExtractionContext ctx) {
+        Document doc = ctx.getDocument();
+        long start = ctx.startPhase();
 
         // Grabbing article title
-        String title = getTitle();
-        articleTitle.setAttribute("class", "title");
-        articleTitle.setTextContent(title);
+        String title = getTitle(ctx);
 
         // Grabbing main description
-        String description = getDescription();
+        String description = getDescription(ctx);
 
         // Grabbing main image
-        String imageURL = getMainImage();
+        String imageURL = getMainImage(ctx);
+        ctx.endPhase(ExtractionPhase.METADATA, start);
 
         // Grabbing main content (need to be fetched at this point)
-        mainContent = getMainContent(title, description);
+        ctx.mainContent = getMainContent(ctx, title, description);
+
+        Element article = createArticle(doc, ctx.mainContent, title, description, ctx.imageBeforeText ? null : imageURL);
+        completed(ctx, article, start);
+        return article;
+    }
+
+    public ExtractionResult extractResult(Document doc) {
+        return extractResult(newContext(doc));
+    }
+
+    public ExtractionResult extractResult(HtmlInput input) throws IOException {
+        return extractResult(input, parser);
+    }
+
+    // Pages already in the result cache skip parsing and extraction altogether
+    ExtractionResult extractResult(HtmlInput input, HtmlDocumentParser parser) throws IOException {
+        ResultCache cache = config.getResultCache();
+        if (cache == null)
+            return extractResult(parse(parser, input));
+
+        ResultKey key = ResultKey.of(input, config);
+        ExtractionResult cached = cache.get(key);
+        if (cached != null)
+            return cached.copy();
+
+        ExtractionResult result = extractResult(parse(parser, input));
+        cache.put(key, result.copy());
+        return result;
+    }
+
+    // Same extraction as extract, with the article copied into a document of its own
+    protected ExtractionResult extractResult(ExtractionContext ctx) {
+        long start = ctx.startPhase();
+        String title = getTitle(ctx);
+        String description = getDescription(ctx);
+        String imageURL = getMainImage(ctx);
+        ctx.endPhase(ExtractionPhase.METADATA, start);
+        ctx.mainContent = getMainContent(ctx, title, description);
+
+        // Only the main content is copied, the result holds no reference to the page
+        Document target = ctx.getDocument().getImplementation().createDocument(null, null, null);
+        target.setDocumentURI(ctx.getDocument().getDocumentURI());
+        Element content = ctx.mainContent != null ? (Element) target.importNode(ctx.mainContent, true) : noContent(target);
+        String image = ctx.imageBeforeText ? null : imageURL;
+        Element article = createArticle(target, content, title, description, image);
+        target.appendChild(article);
+        completed(ctx, article, start);
+
+        return new ExtractionResult(title, description, image, article, content);
+    }
+
+    private Document parse(HtmlDocumentParser parser, HtmlInput input) throws IOException {
+        ExtractionListener listener = config.getListener();
+        if (listener == ExtractionListener.NOOP)
+            return parser.parse(input);
+
+        long start = System.nanoTime();
+        Document doc = parser.parse(input);
+        listener.phaseCompleted(ExtractionPhase.PARSE, System.nanoTime() - start);
+        return doc;
+    }
+
+    private static void completed(ExtractionContext ctx, Element article, long start) {
+        if (!ctx.isInstrumented())
+            return;
+        ctx.endPhase(ExtractionPhase.EXTRACT, start);
+        long bytes = 0;
+        for (Node node = article; node != null; node = DomTraversal.next(node, article)) {
+            if (node instanceof Text)
+                bytes += utf8Length(((Text) node).getData());
+        }
+        ctx.getListener().outputBytes(bytes);
+    }
+
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80)
+                length++;
+            else if (c < 0x800)
+                length += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else
+                length += 3;
+        }
+        return length;
+    }
+
+    // Result element: title, description and main image followed by the main content. The image is left out when
+    // there is none, or the content already has its own
+    static Element createArticle(Document doc, Element mainContent, String title, String description, String imageURL) {
+        // Create result Document
+        Element articleContent = doc.createElement("div");
+        Element articleTitle = doc.createElement("h1");
+        articleTitle.setAttribute("class", "title");
+        articleTitle.setTextContent(title);
 
         articleContent.appendChild(articleTitle);
         if (description != null) {
-            Element articleDescription = this.doc.createElement("p");
+            Element articleDescription = doc.createElement("p");
             articleDescription.setAttribute("class", "intro");
             articleDescription.setTextContent(description);
             articleContent.appendChild(articleDescription);
         }
 
-        if (imageURL != null && this.mainContent.getElementsByTagName("figure").getLength() == 0 && !imageBeforeText) {
-            Element articleImageWrapper = this.doc.createElement("div");
+        if (imageURL != null && mainContent.getElementsByTagName("figure").getLength() == 0) {
+            Element articleImageWrapper = doc.createElement("div");
             articleImageWrapper.setAttribute("id", "mainImage");
-            Element articleImage = this.doc.createElement("img");
+            Element articleImage = doc.createElement("img");
             articleImage.setAttribute("src", imageURL);
             articleImageWrapper.appendChild(articleImage);
             articleContent.appendChild(articleImageWrapper);
@@ -78,9 +237,17 @@ public class ReadableContentExtractor {
     }
 
     public String getTitle() {
+        return getTitle(bound());
+    }
+
+    public String getTitle(Document doc) {
+        return getTitle(newContext(doc));
+    }
+
+    protected String getTitle(ExtractionContext ctx) {
         // Check on meta OG information at first
         String title = null;
-        NodeList metaElements = this.doc.getElementsByTagName("meta");
+        NodeList metaElements = ctx.getDocument().getElementsByTagName("meta");
         for (int i = 0; i < metaElements.getLength(); i++) {
             Element meta = (Element) metaElements.item(i);
             if (meta.getAttribute("property").equals("og:title"))
@@ -88,7 +255,7 @@ public class ReadableContentExtractor {
         }
 
         if (title == null || title.isEmpty()) {
-            NodeList titleEls = this.doc.getElementsByTagName("title");
+            NodeList titleEls = ctx.getDocument().getElementsByTagName("title");
             if (titleEls.getLength() > 0)
                 title = titleEls.item(0).getNodeValue();
         }
@@ -97,126 +264,433 @@ public class ReadableContentExtractor {
     }
 
     public Element getMainContent() {
-        return getMainContent(null, null);
+        return getMainContent(bound(), null, null);
     }
 
     public Element getMainContent(String title) {
-        return getMainContent(title, null);
+        return getMainContent(bound(), title, null);
     }
 
     public Element getMainContent(String title, String description) {
+        return getMainContent(bound(), title, description);
+    }
+
+    public Element getMainContent(Document doc, String title, String description) {
+        return getMainContent(newContext(doc), title, description);
+    }
+
+    protected Element getMainContent(ExtractionContext ctx, String title, String description) {
+        ctx.work.check();
+
         // Scoring elements
-        NodeList nodelist = this.doc.getElementsByTagName("body");
+        NodeList nodelist = ctx.getDocument().getElementsByTagName("body");
         if (nodelist.getLength() == 0)
             return null;
 
         Element body = (Element) nodelist.item(0);
+        if (config.isPreserveDocument()) {
+            Element topDiv = findTopDivReadOnly(ctx, body);
+            if (topDiv == null)
+                return noContent(ctx.getDocument());
+
+            // Only the winner is copied, cleaning works on the detached copy
+            long start = ctx.startPhase();
+            topDiv = (Element) topDiv.cloneNode(true);
+            killBrWrapPattern(ctx, topDiv);
+            ctx.endPhase(ExtractionPhase.BR_WRAP, start);
+            return cleanMainContent(ctx, topDiv, title, description);
+        }
+
+        Element topDiv = findTopDiv(ctx, body);
+
+        if (topDiv == null)
+            return noContent(ctx.getDocument());
+
+        return cleanMainContent(ctx, topDiv, title, description);
+    }
+
+    // Containers scoring ranked, best first, as many as the limit. The first is the one getMainContent would clean,
+    // save for templates, which are not looked at. Unless the config preserves documents, <br> runs are wrapped in
+    // place as getMainContent would do it
+    public List<Candidate> rankCandidates(Document doc, int limit) {
+        return rankCandidates(newContext(doc), limit);
+    }
+
+    protected List<Candidate> rankCandidates(ExtractionContext ctx, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Number of candidates need to be bigger or equal to 1.");
+        ctx.work.check();
+
+        NodeList nodelist = ctx.getDocument().getElementsByTagName("body");
+        if (nodelist.getLength() == 0)
+            return Collections.emptyList();
+
+        Element body = (Element) nodelist.item(0);
+        if (!config.isPreserveDocument()) {
+            long start = ctx.startPhase();
+            killBrWrapPattern(ctx, body);
+            ctx.endPhase(ExtractionPhase.BR_WRAP, start);
+        }
+
+        long start = ctx.startPhase();
+        CompactTree tree = new CompactTree(body, ctx.work);
+        Paragraphs paragraphs = config.isPreserveDocument() ? selectParagraphsReadOnly(tree) : selectParagraphs(tree);
+        Breakdown breakdown = new Breakdown(tree.size());
+        int[] scores = scoreParagraphs(ctx, tree, paragraphs, breakdown);
+        List<Candidate> candidates = ranked(tree, scores, breakdown, limit);
+        scored(ctx, tree, scores, start);
+        return candidates;
+    }
+
+    // Cleans a copy of a ranked candidate, so the others can still be tried after it
+    public Element getMainContent(Candidate candidate, String title, String description) {
+        Element element = candidate.getElement();
+        ExtractionContext ctx = newContext(element.getOwnerDocument());
+        Element content = (Element) element.cloneNode(true);
+        if (config.isPreserveDocument()) {
+            long start = ctx.startPhase();
+            killBrWrapPattern(ctx, content);
+            ctx.endPhase(ExtractionPhase.BR_WRAP, start);
+        }
+        return cleanMainContent(ctx, content, title, description);
+    }
+
+    // Highest scored div or article below body, null when nothing could be scored
+    protected Element findTopDiv(ExtractionContext ctx, Element body) {
         Element topDiv = null;
 
         if (body != null) {
-            killBrWrapPattern(body);
+            long start = ctx.startPhase();
+            killBrWrapPattern(ctx, body);
+            ctx.endPhase(ExtractionPhase.BR_WRAP, start);
+            start = ctx.startPhase();
+
+            // Pages of a known site try the container that won on its previous pages first
+            String host = templateHost(ctx);
+            Element templated = fromTemplate(ctx, body, host);
+            if (templated != null) {
+                ctx.endPhase(ExtractionPhase.SCORE, start);
+                return templated;
+            }
+
+            // The body flattened once, selection and scoring run on its ordinals
+            CompactTree tree = new CompactTree(body, ctx.work);
+            Paragraphs paragraphs = selectParagraphs(tree);
+
+            // Score elements
+            int[] scores = scoreParagraphs(ctx, tree, paragraphs, null);
+            topDiv = highestScored(tree, scores);
+            learnTemplate(body, topDiv, host);
+            scored(ctx, tree, scores, start);
+        }
 
-            // Selecting all paragraphs
-            Set<Node> allParagraphs = new HashSet<>();
-            NodeList paragraphsList = body.getElementsByTagName("p");
-            for (int i = 0; i < paragraphsList.getLength(); i++) {
-                allParagraphs.add(paragraphsList.item(i));
+        return topDiv;
+    }
+
+    // Same selection and scoring as findTopDiv, reading the body as killBrWrapPattern would leave it without changing it
+    protected Element findTopDivReadOnly(ExtractionContext ctx, Element body) {
+        if (body == null)
+            return null;
+
+        long start = ctx.startPhase();
+        String host = templateHost(ctx);
+        Element templated = fromTemplate(ctx, body, host);
+        if (templated != null) {
+            ctx.endPhase(ExtractionPhase.SCORE, start);
+            return templated;
+        }
+
+        CompactTree tree = new CompactTree(body, ctx.work);
+        Paragraphs paragraphs = selectParagraphsReadOnly(tree);
+
+        int[] scores = scoreParagraphs(ctx, tree, paragraphs, null);
+        Element topDiv = highestScored(tree, scores);
+        learnTemplate(body, topDiv, host);
+        scored(ctx, tree, scores, start);
+        return topDiv;
+    }
+
+    // Selecting all paragraphs, and the text enclosed by div's and not p's
+    private static Paragraphs selectParagraphs(CompactTree tree) {
+        boolean[] selected = new boolean[tree.size()];
+        for (int ordinal = 1; ordinal < tree.size(); ordinal++) {
+            if (tree.tag(ordinal) == CompactTree.P) {
+                selected[ordinal] = true;
+            } else if (tree.tag(ordinal) == CompactTree.DIV) {
+                int text = tree.firstVisibleText(ordinal);
+                if (text >= 0)
+                    selected[text] = true;
             }
+        }
 
-            // Selecting text enclosed by div's and not p's
-            NodeList metaElements = body.getElementsByTagName("div");
-            for (int i = 0; i < metaElements.getLength(); i++) {
-                Element element = (Element) metaElements.item(i);
-                for (Text node : findTextNodes(element)) {
-                    if (!node.isElementContentWhitespace() && !node.getTextContent().trim().isEmpty()) {
-                        allParagraphs.add(node);
-                        break;
-                    }
-                }
+        Paragraphs paragraphs = new Paragraphs();
+        for (int ordinal = 1; ordinal < tree.size(); ordinal++) {
+            if (selected[ordinal]) {
+                int parent = tree.parent(ordinal);
+                paragraphs.add(parent, tree.parent(parent), tree.textLength(ordinal), tree.commaCount(ordinal));
             }
+        }
+        return paragraphs;
+    }
 
-            // Score elements
-            Map<Element, Integer> readabilityScoreMap = scoreElements(allParagraphs);
+    // Paragraphs of the body as killBrWrapPattern would leave it, read without changing it
+    private static Paragraphs selectParagraphsReadOnly(CompactTree tree) {
+        int size = tree.size();
+
+        // Elements killBrWrapPattern would regroup: their children would end up inside new paragraphs
+        boolean[] wrapped = new boolean[size];
+        for (int ordinal = 1; ordinal < size; ordinal++) {
+            if (tree.tag(ordinal) == CompactTree.BR)
+                wrapped[tree.parent(ordinal)] = true;
+        }
 
-            // Detecting div with higher score
-            for (Map.Entry<Element, Integer> nodeEntry : readabilityScoreMap.entrySet()) {
-                if (topDiv == null ||
-                        (readabilityScoreMap.get(nodeEntry.getKey()) > readabilityScoreMap.get(topDiv)))
-                    topDiv = nodeEntry.getKey();
+        Paragraphs paragraphs = new Paragraphs();
+
+        // Existing paragraphs and the text enclosed by div's and not p's
+        for (int ordinal = 1; ordinal < size; ordinal++) {
+            if (tree.tag(ordinal) == CompactTree.P)
+                addParagraph(paragraphs, tree, wrapped, ordinal);
+        }
+        boolean[] seen = new boolean[size];
+        for (int ordinal = 1; ordinal < size; ordinal++) {
+            if (tree.tag(ordinal) != CompactTree.DIV)
+                continue;
+            int text = tree.firstVisibleText(ordinal);
+            if (text >= 0 && !seen[text]) {
+                seen[text] = true;
+                addParagraph(paragraphs, tree, wrapped, text);
             }
         }
 
-        if (topDiv == null) {
-            topDiv = this.doc.createElement("p");
-            topDiv.setTextContent("Could not extract readable content from this page.");
-            return topDiv;
-        }
-
-        // Cleans out junk from the topDiv just in case:
-        clean(topDiv, "form");
-        clean(topDiv, "nav");
-        clean(topDiv, "table", 8);
-        clean(topDiv, "iframe");
-        clean(topDiv, "font");
-        clean(topDiv, "script");
-        clean(topDiv, "aside");
-        clean(topDiv, "button");
-        clean(topDiv, "hr");
-
-        // Goes in and removes DIV's that have more non <p> stuff than <p> stuff
-        killDivs(topDiv);
-
-        // Removes any consecutive <br />'s into just one <br />
-        killCodeSpansAndBreaks(topDiv);
-
-        // Clean style and scripts
-        cleanIrrelevantImages(topDiv);
-        cleanIrrelevantAttributes(topDiv);
-
-        // Clean "move-to-text" links
-        cleanTextMoveLinks(topDiv);
-
-        topDiv.normalize();
-
-        // Remove title from the text (duplicates may exists inside article div)
-        List<Element> toRemove = new ArrayList<>();
-        if (title != null) {
-            String[] hlist = {"h1", "h2", "h3"};
-            for (String hx : hlist) {
-                NodeList duplicateCandidates = topDiv.getElementsByTagName(hx);
-                for (int i = 0; i < duplicateCandidates.getLength(); i++) {
-                    Element duplicateCandidate = (Element) duplicateCandidates.item(i);
-                    if (title.equals(getFirstLevelTextContent(duplicateCandidate)))
-                        toRemove.add(duplicateCandidate);
+        // Paragraphs killBrWrapPattern would create, one per run of children between <br>s
+        for (int parent = 0; parent < size; parent++) {
+            if (!wrapped[parent])
+                continue;
+            int grandparent = unwrapped(tree, wrapped, tree.parent(parent));
+            int length = 0;
+            int commas = 0;
+            boolean open = false;
+            for (int child = tree.firstChild(parent); child >= 0; child = tree.nextSibling(child)) {
+                if (tree.tag(child) == CompactTree.BR) {
+                    if (open)
+                        paragraphs.add(parent, grandparent, length, commas);
+                    open = false;
+                    length = 0;
+                    commas = 0;
+                    continue;
                 }
+                open = true;
+                length += tree.textLength(child);
+                commas += tree.commaCount(child);
             }
+            if (open)
+                paragraphs.add(parent, grandparent, length, commas);
         }
+        return paragraphs;
+    }
 
-        // Remove description from the text (duplicates may exists inside article div)
-        if (description != null) {
-            Element duplicateCandidate = null;
-            NodeList duplicateCandidates = topDiv.getElementsByTagName("p");
-            for (int i = 0; i < duplicateCandidates.getLength(); i++) {
-                Element el = (Element) duplicateCandidates.item(i);
-                if (!hasVisibleChar(el, true)) {
-                    duplicateCandidate = el;
-                    break;
+    private static void scored(ExtractionContext ctx, CompactTree tree, int[] scores, long start) {
+        if (!ctx.isInstrumented())
+            return;
+        ctx.endPhase(ExtractionPhase.SCORE, start);
+        int candidates = 0;
+        for (int score : scores) {
+            if (score != UNSCORED)
+                candidates++;
+        }
+        ctx.getListener().nodesVisited(ExtractionPhase.SCORE, tree.nodeCount());
+        ctx.getListener().candidatesScored(candidates);
+    }
+
+    // Site of the page when a template cache is configured, null otherwise
+    private String templateHost(ExtractionContext ctx) {
+        return config.getTemplateCache() != null ? TemplateCache.hostOf(ctx.getDocument().getDocumentURI()) : null;
+    }
+
+    // Container the site's template leads to, null when there is none or it does not look like content
+    private Element fromTemplate(ExtractionContext ctx, Element body, String host) {
+        if (host == null)
+            return null;
+
+        TemplateCache cache = config.getTemplateCache();
+        String template = cache.get(host);
+        Element candidate = template != null ? TemplateCache.find(body, template) : null;
+        if (candidate == null) {
+            cache.miss();
+            return null;
+        }
+        if (!isContentLike(ctx, candidate)) {
+            cache.reject();
+            return null;
+        }
+        cache.hit();
+        return candidate;
+    }
+
+    // Quality check of a template's container: enough text, mostly outside links, not marked as boilerplate
+    private boolean isContentLike(ExtractionContext ctx, Element candidate) {
+        NodeStatistics stats = new NodeStatistics(candidate);
+        int length = stats.textLength(candidate);
+        return length >= config.getMinTemplateTextLength()
+                && stats.linkTextLength(candidate) * 2 < length
+                && scoreByMatchClassId(ctx, candidate) >= 0;
+    }
+
+    private void learnTemplate(Element body, Element topDiv, String host) {
+        if (host == null || topDiv == null)
+            return;
+        String template = TemplateCache.templateOf(body, topDiv);
+        if (template != null)
+            config.getTemplateCache().put(host, template);
+    }
+
+    // A paragraph inside a regrouped element would be wrapped again, its new parent is never a div
+    private static void addParagraph(Paragraphs paragraphs, CompactTree tree, boolean[] wrapped, int node) {
+        int parent = tree.parent(node);
+        if (parent < 0 || wrapped[parent])
+            return;
+        paragraphs.add(parent, unwrapped(tree, wrapped, tree.parent(parent)), tree.textLength(node), tree.commaCount(node));
+    }
+
+    // The node, unless killBrWrapPattern would regroup its children and put a new paragraph between them
+    private static int unwrapped(CompactTree tree, boolean[] wrapped, int node) {
+        return node >= 0 && wrapped[node] ? -1 : node;
+    }
+
+    // Scores by ordinal, UNSCORED for the nodes that are not candidates. Only candidates are looked up in the DOM,
+    // for their class and id. The parts of every score are kept in the breakdown, when there is one
+    private int[] scoreParagraphs(ExtractionContext ctx, CompactTree tree, Paragraphs paragraphs, Breakdown breakdown) {
+        int[] scores = new int[tree.size()];
+        Arrays.fill(scores, UNSCORED);
+        // A container whose running score is negative is never stored, and would be counted again for each paragraph
+        boolean[] counted = new boolean[tree.size()];
+
+        // Fetching element readability score
+        for (int i = 0; i < paragraphs.size; i++) {
+            int parent = paragraphs.parents[i];
+            if (parent < 0 || !tree.hasFlag(parent, CompactTree.CONTAINER))
+                continue;
+
+            int score = scores[parent];
+            int classId = 0;
+            if (score == UNSCORED) {
+                if (!counted[parent]) {
+                    counted[parent] = true;
+                    ctx.work.candidate();
+                }
+                classId = scoreByMatchClassId(ctx, (Element) tree.node(parent));
+                score = classId;
+            }
+
+            int length = paragraphs.lengths[i];
+            int lengthScore = 0;
+            if (config.isLengthScoring() && length > config.getMinParagraphLength())
+                lengthScore = Math.max(config.getParentLengthBonus(), length / config.getParentLengthDivisor());
+
+            score += lengthScore + paragraphs.commas[i];
+            if (score >= 0) {
+                scores[parent] = score;
+                if (breakdown != null) {
+                    breakdown.classIds[parent] += classId;
+                    breakdown.lengths[parent] += lengthScore;
+                    breakdown.commas[parent] += paragraphs.commas[i];
                 }
             }
-            if (duplicateCandidate != null && description.equals(getFirstLevelTextContent(duplicateCandidate)))
-                toRemove.add(duplicateCandidate);
         }
 
-        for (Element el : toRemove) {
-            el.getParentNode().removeChild(el);
+        // Consider also the grandparent level
+        for (int i = 0; i < paragraphs.size; i++) {
+            int parent = paragraphs.parents[i];
+            int grandparent = paragraphs.grandparents[i];
+            if (parent < 0 || grandparent < 0 || tree.tag(parent) != CompactTree.DIV || tree.tag(grandparent) != CompactTree.DIV)
+                continue;
+
+            int score = scores[grandparent];
+            int classId = 0;
+            if (score == UNSCORED) {
+                if (!counted[grandparent]) {
+                    counted[grandparent] = true;
+                    ctx.work.candidate();
+                }
+                classId = scoreByMatchClassId(ctx, (Element) tree.node(grandparent));
+                score = classId;
+            }
+
+            int length = paragraphs.lengths[i];
+            int propagated = 0;
+            if (config.isLengthScoring() && length > config.getMinParagraphLength())
+                propagated = Math.max(config.getGrandparentLengthBonus(), length / config.getGrandparentLengthDivisor());
+
+            propagated += paragraphs.commas[i] / config.getGrandparentCommaDivisor();
+            score += propagated;
+            if (score >= 0) {
+                scores[grandparent] = score;
+                if (breakdown != null) {
+                    breakdown.classIds[grandparent] += classId;
+                    breakdown.grandparents[grandparent] += propagated;
+                }
+            }
         }
 
+        return scores;
+    }
+
+    // Candidates by descending score, the first in document order on ties, as highestScored picks them
+    private static List<Candidate> ranked(CompactTree tree, int[] scores, Breakdown breakdown, int limit) {
+        // Scores are never negative: sorting the keys ascending sorts the scores descending, then the ordinals ascending
+        long[] keys = new long[scores.length];
+        int count = 0;
+        for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+            if (scores[ordinal] != UNSCORED)
+                keys[count++] = (long) (Integer.MAX_VALUE - scores[ordinal]) << 32 | ordinal;
+        }
+        Arrays.sort(keys, 0, count);
+
+        List<Candidate> candidates = new ArrayList<>(Math.min(count, limit));
+        for (int i = 0; i < count && i < limit; i++) {
+            int ordinal = (int) keys[i];
+            candidates.add(new Candidate((Element) tree.node(ordinal), scores[ordinal], breakdown.classIds[ordinal],
+                    breakdown.lengths[ordinal], breakdown.commas[ordinal], breakdown.grandparents[ordinal]));
+        }
+        return candidates;
+    }
+
+    // Detecting div with higher score, the first in document order on ties
+    private static Element highestScored(CompactTree tree, int[] scores) {
+        int top = -1;
+        for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+            if (scores[ordinal] != UNSCORED && (top < 0 || scores[ordinal] > scores[top]))
+                top = ordinal;
+        }
+        return top < 0 ? null : (Element) tree.node(top);
+    }
+
+    protected Element noContent(Document doc) {
+        Element p = doc.createElement("p");
+        p.setTextContent("Could not extract readable content from this page.");
+        return p;
+    }
+
+    // Cleans out the chosen div, in place
+    protected Element cleanMainContent(ExtractionContext ctx, Element topDiv, String title, String description) {
+        ctx.work.check();
+        long start = ctx.startPhase();
+        config.getCleaningPipeline().run(new CleaningContext(ctx, config, topDiv, title, description));
+        ctx.endPhase(ExtractionPhase.CLEAN, start);
         return topDiv;
     }
 
     public String getDescription() {
+        return getDescription(bound());
+    }
+
+    public String getDescription(Document doc) {
+        return getDescription(newContext(doc));
+    }
+
+    protected String getDescription(ExtractionContext ctx) {
         // Check on meta OG information as fallback solution
-        NodeList metaElements = this.doc.getElementsByTagName("meta");
+        NodeList metaElements = ctx.getDocument().getElementsByTagName("meta");
         for (int i = 0; i < metaElements.getLength(); i++) {
             Element element = (Element) metaElements.item(i);
             if (element.getAttribute("property").equals("og:description"))
@@ -229,21 +703,29 @@ public class ReadableContentExtractor {
     }
 
     public Set<String> getMainImages(Integer number) {
+        return getMainImages(bound(), number);
+    }
+
+    public Set<String> getMainImages(Document doc, Integer number) {
+        return getMainImages(newContext(doc), number);
+    }
+
+    protected Set<String> getMainImages(ExtractionContext ctx, Integer number) {
 
         // Create base URI
-        URI base = URI.create(this.doc.getBaseURI());
+        URI base = baseURI(ctx.getDocument());
 
         if (number != null && number < 1)
             throw new IllegalArgumentException("Number of images need to be bigger or equal to 1.");
 
         Set<String> result = new LinkedHashSet<>();
-        if(mainContent == null) mainContent = this.getMainContent();
+        if(ctx.mainContent == null) ctx.mainContent = getMainContent(ctx, null, null);
 
-        NodeList metaElements = mainContent.getElementsByTagName("img");
+        NodeList metaElements = ctx.mainContent.getElementsByTagName("img");
         for (int i = 0; i < metaElements.getLength(); i++) {
             Element element = (Element) metaElements.item(i);
             if(element.getAttribute("src") != null){
-                result.add(base.resolve(element.getAttribute("src")).toString());
+                result.add(resolve(base, element.getAttribute("src")));
                 if(number != null && result.size() == number) break;
             }
         }
@@ -252,9 +734,17 @@ public class ReadableContentExtractor {
     }
 
     protected String getMainImage() {
+        return getMainImage(bound());
+    }
+
+    public String getMainImage(Document doc) {
+        return getMainImage(newContext(doc));
+    }
+
+    protected String getMainImage(ExtractionContext ctx) {
         // Check on meta OG information at first
         String imageURL = null;
-        NodeList metaElements = this.doc.getElementsByTagName("meta");
+        NodeList metaElements = ctx.getDocument().getElementsByTagName("meta");
         for (int i = 0; i < metaElements.getLength(); i++) {
             Element element = (Element) metaElements.item(i);
             if (element.getAttribute("property").equals("og:image"))
@@ -262,105 +752,75 @@ public class ReadableContentExtractor {
         }
 
         // If first element is also an image, drop the image from the OG
-        if (imageURL != null && imageBeforeText)
+        if (imageURL != null && ctx.imageBeforeText)
             return null;
 
         return imageURL;
     }
 
-    protected Map<Element, Integer> scoreElements(Collection<Node> nodes) {
-        Map<Element, Integer> readabilityScoreMap = new HashMap<>();
-
-        // Fetching element readability score
-        for (Node node : nodes) {
-            Node parent = node.getParentNode();
-            if (!(parent instanceof Element))
-                continue;
-
-            Element parentEl = (Element) parent;
-            if (!parentEl.getTagName().equalsIgnoreCase("div") && !parentEl.getTagName().equalsIgnoreCase("article"))
-                continue;
-
-            Integer score = readabilityScoreMap.get(parentEl);
-            if (score == null)
-                score = scoreByMatchClassId(parentEl);
+    protected Integer scoreByMatchClassId(ExtractionContext ctx, Element e) {
+        return scoreByMatchClassId(ctx, e.getAttribute("class"), e.getAttribute("id"), e.getAttribute("itemprop"));
+    }
 
-            if (textLength(node) > 30)
-                score += Math.max(30, textLength(node) / 5);
+    protected int scoreByMatchClassId(ExtractionContext ctx, String className, String id, String itemprop) {
+        KeywordMatcher content = config.getContentKeywords();
+        KeywordMatcher stopwords = config.getStopwordKeywords();
 
-            score += (StringUtils.countMatches(node.getTextContent(), ","));
-            if (score >= 0) readabilityScoreMap.put(parentEl, score);
+        int result = 0;
+        if (className != null) {
+            if (content.find(className))
+                result += config.getContentBonus();
+            else if (stopwords.find(className))
+                result -= config.getStopwordPenalty();
         }
 
-        // Consider also the grandparent level
-        for (Node node : nodes) {
-            Node parent = node.getParentNode();
-            Node grandPa = parent.getParentNode();
-            if (grandPa == null || !(parent instanceof Element) || !(grandPa instanceof Element))
-                continue;
-
-            Element parentEl = (Element) parent;
-            Element grandPaEl = (Element) grandPa;
-            if (!parentEl.getTagName().equals("div") || (!grandPaEl.getTagName().equals("div")))
-                continue;
-
-            Integer score = readabilityScoreMap.get(grandPaEl);
-            if (score == null)
-                score = scoreByMatchClassId(grandPaEl);
-
-            if (textLength(node) > 30)
-                score += Math.max(20, textLength(node) / 10);
-
-            score += (StringUtils.countMatches(node.getTextContent(), ",") / 2);
-            if (score >= 0) readabilityScoreMap.put(grandPaEl, score);
+        if (id != null) {
+            if (content.find(id))
+                result += config.getContentBonus();
+            else if (stopwords.find(id))
+                result -= config.getStopwordPenalty();
         }
 
-        return readabilityScoreMap;
-    }
-    
-    protected Integer scoreByMatchClassId(Element e) {
-        Integer result = 0;
-        if (contentPattern.reset(e.getAttribute("class")).find())
-            result += 100;
-        else if (stopwordPattern.reset(e.getAttribute("class")).find())
-            result -= 999;
-
-        if (contentPattern.reset(e.getAttribute("id")).find())
-            result += 100;
-        else if (stopwordPattern.reset(e.getAttribute("id")).find())
-            result -= 999;
-
-        String itemprop = e.getAttribute("itemprop");
         if (itemprop != null && !itemprop.isEmpty()) {
-            if (contentPattern.reset(itemprop).find())
-                result += 100;
-            else if (stopwordPattern.reset(itemprop).find())
-                result -= 999;
+            if (content.find(itemprop))
+                result += config.getContentBonus();
+            else if (stopwords.find(itemprop))
+                result -= config.getStopwordPenalty();
         }
 
         return result;
     }
 
     protected void killBrWrapPattern(Element e) {
+        regroupBrRuns(e, null);
+    }
 
-        List<Node> children = new ArrayList<>();
-        NodeList childList = e.getChildNodes();
-        for (int i = 0; i < childList.getLength(); i++) {
-            children.add(childList.item(i));
+    // Same regrouping, counting every element against the extraction's budget
+    protected void killBrWrapPattern(ExtractionContext ctx, Element e) {
+        regroupBrRuns(e, ctx.work);
+    }
+
+    // Children are regrouped before their parents, as the original recursion did, from a list instead of the stack
+    private static void regroupBrRuns(Element e, WorkTracker work) {
+        List<Element> elements = DomTraversal.preOrderElements(e, BREAKS, work);
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            wrapBrRuns(elements.get(i));
         }
+    }
 
+    private static void wrapBrRuns(Element e) {
         boolean hasBr = false;
-        for (Node child: children){
-            if(child instanceof Element){
-                Element element = (Element) child;
-                if("br".equals(element.getTagName())) hasBr = true;
-                else
-                    killBrWrapPattern(element);
-            }
+        for (Node child = e.getFirstChild(); child != null && !hasBr; child = child.getNextSibling()) {
+            hasBr = child instanceof Element && "br".equals(((Element) child).getTagName());
         }
 
         if(!hasBr) return;
 
+        List<Node> children = new ArrayList<>();
+        for (Node child = e.getFirstChild(); child != null; child = child.getNextSibling()) {
+            children.add(child);
+        }
+
         removeChildren(e);
         Element p = null;
 
@@ -370,197 +830,57 @@ public class ReadableContentExtractor {
                 continue;
             }
 
-            if(p == null) p = (Element) e.appendChild(this.doc.createElement("p"));
+            if(p == null) p = (Element) e.appendChild(e.getOwnerDocument().createElement("p"));
             p.appendChild(child);
         }
     }
 
     protected boolean killCodeSpansAndBreaks(Element e) {
-
-        List<Node> children = new ArrayList<>();
-        NodeList childList = e.getChildNodes();
-        for (int i = 0; i < childList.getLength(); i++) {
-            children.add(childList.item(i));
-        }
-
-        TextAppender appender = new TextAppender();
-
-        boolean hasChild = false;
-
-        removeChildren(e);
-
-        for(Node child: children){
-
-            if(child instanceof Element){
-
-                Element element = (Element) child;
-                String name = element.getTagName();
-
-                if("br".equals(name) || "span".equals(name))
-                    continue;
-
-                boolean hasGChild = killCodeSpansAndBreaks(element);
-
-                if(("p".equals(name) || "div".equals(name)) && !hasGChild){
-                    appender.append(" ");
-                    continue;
-                }
-
-                e.appendChild(this.doc.createTextNode(appender.toString()));
-                appender.reset();
-                e.appendChild(element);
-                hasChild = child.hasChildNodes();
-
-            }else if(child instanceof Text){
-                appender.append(((Text)child).getWholeText());
-            }
-        }
-
-        hasChild |= appender.hasVisibleChar;
-        String text = appender.toString();
-        if(text.length() > 0) e.appendChild(this.doc.createTextNode(appender.toString()));
-
-        return hasChild;
+        return CleaningStages.collapseCodeSpansAndBreaks(e);
     }
 
     protected void killDivs (Element e) {
-        List<Element> toRemove = new ArrayList<>();
-        NodeList divsList = e.getElementsByTagName("div");
-
-        // Gather counts for other typical elements embedded within.
-        // Traverse backwards so we can remove nodes at the same time without effecting the traversal.
-        for (int i = 0; i < divsList.getLength(); i++) {
-            Element div = (Element) divsList.item(i);
-            int pCount = div.getElementsByTagName("p").getLength();
-            int imgCount = div.getElementsByTagName("img").getLength();
-            int liCount = div.getElementsByTagName("li").getLength();
-            int aCount = div.getElementsByTagName("a").getLength();
-            int embedCount = div.getElementsByTagName("embed").getLength();
-            int objectCount = div.getElementsByTagName("object").getLength();
-            int preCount = div.getElementsByTagName("pre").getLength();
-            int codeCount = div.getElementsByTagName("code").getLength();
-
-            int sphereit = findComment(div, sphereitPattern) ? 0 : 1;
-
-            // If the number of commas is less than 10 (bad sign) ...
-
-            if (textLength(div) < 10 ) {
-                // And the number of non-paragraph elements is more than paragraphs or other ominous signs :
-                if (( imgCount > pCount || liCount > pCount || aCount > pCount || pCount == 0)
-                        && ( preCount == 0 && codeCount == 0 && embedCount == 0 && objectCount == 0 && sphereit == 0 )) {
-                    if (pCount != 0 && imgCount == 1)
-                        toRemove.add(div);
-                }
-            }
-
-            String divId = div.getAttribute("id");
-            String divClasses = StringUtils.join(div.getAttribute("id"), " ");
-
-            // Removing elements by stopwords
-            if (stopwordPattern.reset(divId).find() || stopwordPattern.reset(divClasses).find())
-                toRemove.add(div);
-        }
-
-        for (Element el : toRemove) {
-            el.getParentNode().removeChild(el);
-        }
+        killDivs(newContext(e.getOwnerDocument()), e, null);
     }
 
-    protected void cleanIrrelevantAttributes(Element root) {
-
-        DocumentTraversal traversal = (DocumentTraversal) doc;
-
-        TreeWalker walker = traversal.createTreeWalker(root,
-                NodeFilter.SHOW_ELEMENT,
-                null,
-                false);
-
-        boolean foundParagraph = false;
-        Node node = walker.nextNode();
-        while (node != null) {
-            Element el = ((Element) node);
-            String tagName = el.getTagName();
-            if (tagName.equals("p") && (getFirstLevelTextContent(el).length() > 20))
-                foundParagraph = true;
-            else if (tagName.equals("img") && !foundParagraph)
-                imageBeforeText = true;
+    // The boilerplate div stage on its own, updating the index when one is given
+    protected void killDivs (ExtractionContext ctx, Element e, ElementIndex index) {
+        run(ctx, e, CleaningStages.removeBoilerplateDivs(), index);
+    }
 
+    protected boolean cleanIrrelevantAttributes(Element root) {
+        return cleanIrrelevantAttributes(newContext(root.getOwnerDocument()), root);
+    }
 
-            NamedNodeMap attributes = el.getAttributes();
-            for (int j = 0; j < attributes.getLength(); j++) {
-                Attr attribute = (Attr) attributes.item(j);
-                if (!allowedAttrPattern.reset(attribute.getName()).find() ||
-                        (attribute.getName().matches("(?i:href)") && attribute.getValue().startsWith("javascript:")))
-                    node.getAttributes().removeNamedItem(attribute.getName());
-            }
+    // Returns whether an image comes before the first paragraph
+    protected boolean cleanIrrelevantAttributes(ExtractionContext ctx, Element root) {
+        boolean imageBeforeText = ctx.imageBeforeText;
+        ctx.imageBeforeText = false;
+        run(ctx, root, CleaningStages.cleanAttributes());
 
-            node = walker.nextNode();
-        }
+        boolean found = ctx.imageBeforeText;
+        ctx.imageBeforeText = imageBeforeText;
+        return found;
     }
 
     protected void cleanIrrelevantImages(Element root) {
-        List<Element> toRemove = new ArrayList<>();
-
-        // Create base URI
-        URI base = URI.create(this.doc.getBaseURI());
-
-        // Removing irrelevant images
-        NodeList images = root.getElementsByTagName("img");
-        for (int i = 0; i < images.getLength(); i++) {
-            Element image = (Element) images.item(i);
-            String heightStr = image.getAttribute("height");
-            String widthStr = image.getAttribute("width");
-            Integer width = null;
-            Integer height = null;
-            if (widthStr != null && !widthStr.isEmpty()) {
-                Matcher matcher = imageSizePattern.reset(widthStr);
-                if (matcher.matches())
-                    width = Integer.parseInt(matcher.group(1));
-            } if (heightStr != null && !heightStr.isEmpty()) {
-                Matcher matcher = imageSizePattern.reset(heightStr);
-                if (matcher.matches())
-                    height = Integer.parseInt(matcher.group(1));
-            }
-
-            if ((width != null && width < 70) || (height != null && height < 70)) {
-                toRemove.add(image);
-                continue;
-            }
-
-            // Remove "data-src" attr, if exists
-            String copy = image.getAttribute("data-src");
-            if (copy != null && !copy.isEmpty()) {
-                image.setAttribute("src", copy);
-                image.removeAttribute("data-src");
-            }
-
-            // Set absolute path for all images
-            String absolute = image.getAttribute("src");
-            image.setAttribute("src", base.resolve(absolute).toString());
-        }
-
-        for (Element link : toRemove) {
-            link.getParentNode().removeChild(link);
-        }
+        run(newContext(root.getOwnerDocument()), root, CleaningStages.cleanImages());
     }
 
     protected void cleanTextMoveLinks(Element root) {
-        List<Element> toRemove = new ArrayList<>();
-
-        NodeList links = root.getElementsByTagName("a");
-        for (int i = 0; i < links.getLength(); i++) {
-            Element link = (Element) links.item(i);
-            NamedNodeMap attributes = link.getAttributes();
-            for (int j = 0; j < attributes.getLength(); j++) {
-                Attr attribute = (Attr) attributes.item(j);
-                if (attribute.getName().matches("(?i:href)") && attribute.getValue().startsWith("#"))
-                    toRemove.add(link);
-            }
-        }
+        run(newContext(root.getOwnerDocument()), root, CleaningStages.removeMoveLinks());
+    }
 
-        for (Element link : toRemove) {
-            link.getParentNode().removeChild(link);
-        }
+    // Runs a single cleaning stage on its own
+    private void run(ExtractionContext ctx, Element root, CleaningStage stage) {
+        run(ctx, root, stage, null);
+    }
+
+    private void run(ExtractionContext ctx, Element root, CleaningStage stage, ElementIndex index) {
+        CleaningContext cleaning = new CleaningContext(ctx, config, root, null, null);
+        if (index != null)
+            cleaning.useIndex(index);
+        CleaningPipeline.of(stage).run(cleaning);
     }
 
     protected void clean(Element e, String tagName) {
@@ -568,32 +888,19 @@ public class ReadableContentExtractor {
     }
 
     protected void clean(Element e, String tagName, Integer minWords) {
-        NodeList targetList;
-        List<Element> toRemove = new ArrayList<>();
-
-        if (tagName.equalsIgnoreCase("table")) {
-            targetList = e.getElementsByTagName(tagName);
-            for (int i = 0; i < targetList.getLength(); i++) {
-                // If the content isn't laden with words, remove the child:
-                Element target = (Element) targetList.item(i);
-                int cells = target.getElementsByTagName("td").getLength();
-                if (cells < minWords)
-                    toRemove.add(target);
-            }
-        } else {
-            targetList = e.getElementsByTagName(tagName);
-
-            for (int i = 0; i < targetList.getLength(); i++) {
-                Element target = (Element) targetList.item(i);
-                int length = textLength(target);
-                if ((length < minWords) && !target.getTagName().equalsIgnoreCase("pre"))
-                    toRemove.add(target);
-            }
-        }
+        clean(e, tagName, minWords, null);
+    }
 
-        for (Element el : toRemove) {
-            el.getParentNode().removeChild(el);
-        }
+    protected void clean(Element e, String tagName, ElementIndex index) {
+        this.clean(e, tagName, 1000000, index);
+    }
+
+    // Tables with fewer cells than minWords, or other elements with less text, through the matching single stage
+    protected void clean(Element e, String tagName, Integer minWords, ElementIndex index) {
+        ElementStage stage = tagName.equalsIgnoreCase("table")
+                ? CleaningStages.removeSmallTables(minWords)
+                : CleaningStages.removeTags(minWords, tagName);
+        run(newContext(e.getOwnerDocument()), e, stage, index);
     }
 
     protected boolean hasVisibleChar(Node node, boolean checkOnlyChildren){
@@ -615,11 +922,11 @@ public class ReadableContentExtractor {
     }
 
     protected int textLength(Node node){
+        if (node instanceof Text) return ((Text) node).getLength();
+
         int length = 0;
-        NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node child = children.item(i);
-            if(child instanceof Element || child instanceof Text) length += textLength(child);
+        for (Node child = DomTraversal.next(node, node); child != null; child = DomTraversal.next(child, node)) {
+            if(child instanceof Text) length += ((Text) child).getLength();
         }
         return length;
     }
@@ -638,24 +945,16 @@ public class ReadableContentExtractor {
     protected int countMatches(Node node, CharSequence pat){
 
         int count = 0;
-        NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node child = children.item(i);
-            if(child instanceof Element) count += countMatches(child, pat);
+        for (Node child = DomTraversal.next(node, node); child != null; child = DomTraversal.next(child, node)) {
             if(child instanceof Text) count += StringUtils.countMatches(((Text)child).getWholeText(), pat);
         }
         return count;
     }
 
-    protected boolean findComment(Node node, Matcher matcher){
+    protected boolean findComment(Node node, KeywordMatcher keywords){
 
-        NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node cnode = children.item(i);
-            boolean match = false;
-            if(cnode instanceof Element) match = findComment(cnode, matcher);
-            if(cnode instanceof Comment) match = matcher.reset(((Comment)cnode).getData()).find();
-            if(match) return  true;
+        for (Node cnode = DomTraversal.next(node, node); cnode != null; cnode = DomTraversal.next(cnode, node)) {
+            if(cnode instanceof Comment && keywords.find(((Comment)cnode).getData())) return true;
         }
         return false;
     }
@@ -669,79 +968,79 @@ public class ReadableContentExtractor {
 
     protected void findTextNodesHelper(Node node, List<Text> nodes){
 
-        NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node cnode = children.item(i);
-            if(cnode instanceof Element) findTextNodesHelper(cnode, nodes);
+        for (Node cnode = DomTraversal.next(node, node); cnode != null; cnode = DomTraversal.next(cnode, node)) {
             if(cnode instanceof Text) nodes.add((Text)cnode);
         }
     }
 
-    protected static void removeChildren(Node node){
-        NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node cnode = children.item(i);
-            node.removeChild(cnode);
-        }
+    // Documents parsed without a URI keep their links as they are
+    static URI baseURI(Document doc) {
+        String uri = doc.getBaseURI();
+        return uri != null ? URI.create(uri) : null;
     }
 
-    private static class TextAppender {
-
-        private final StringBuilder buf = new StringBuilder();
-
-        private boolean lastIsWhiteSpace = false;
-        private boolean hasVisibleChar = false;
+    static String resolve(URI base, String link) {
+        return base != null ? base.resolve(link).toString() : link;
+    }
 
-        public void reset() {
-            lastIsWhiteSpace = false;
-            hasVisibleChar = false;
-            buf.setLength(0);
-        }
+    protected ExtractionContext newContext(Document doc) {
+        if (doc == null)
+            throw new IllegalArgumentException("Document must not be null.");
+        return new ExtractionContext(doc, config);
+    }
 
-        public boolean hasVisibleChar() {
-            return hasVisibleChar;
-        }
+    private ExtractionContext bound() {
+        if (bound == null)
+            throw new IllegalStateException("No document bound, use the methods taking a Document.");
+        return bound;
+    }
 
-        @Override
-        public String toString() {
-            if(lastIsWhiteSpace) buf.append(' ');
-            return buf.toString();
+    // Removing shifts the live child list, so always take the first child until none is left
+    protected static void removeChildren(Node node){
+        Node child;
+        while ((child = node.getFirstChild()) != null) {
+            node.removeChild(child);
         }
+    }
 
-        public int length() {
-            return buf.length();
+    // Paragraphs as scoring sees them, by ordinal: the parent and grandparent each one has once <br> runs are wrapped
+    // (-1 for none), its text length and comma count
+    private static final class Paragraphs {
+
+        int size;
+        int[] parents = new int[64];
+        int[] grandparents = new int[64];
+        int[] lengths = new int[64];
+        int[] commas = new int[64];
+
+        void add(int parent, int grandparent, int length, int commaCount) {
+            if (size == parents.length) {
+                parents = Arrays.copyOf(parents, size * 2);
+                grandparents = Arrays.copyOf(grandparents, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                commas = Arrays.copyOf(commas, size * 2);
+            }
+            parents[size] = parent;
+            grandparents[size] = grandparent;
+            lengths[size] = length;
+            commas[size] = commaCount;
+            size++;
         }
+    }
 
-        public void append(String str) {
-
-            int length = str.length();
-
-            for (int i = 0; i < length; i++) {
-
-                char c = str.charAt(i);
-                if (Character.isWhitespace(c) || c == 160){
-                    lastIsWhiteSpace = true;
-                    continue;
-                }
-
-                if (lastIsWhiteSpace) {
-                    buf.append(' ');
-                    lastIsWhiteSpace = false;
-                }
+    // Parts of every score by ordinal, adding up to it
+    private static final class Breakdown {
 
-                int j;
-                for (j = i + 1; j < length; j++) {
-                    c = str.charAt(j);
-                    if (Character.isWhitespace(c)  || c == 160) {
-                        lastIsWhiteSpace = true;
-                        break;
-                    }
-                }
+        final int[] classIds;
+        final int[] lengths;
+        final int[] commas;
+        final int[] grandparents;
 
-                buf.append(str, i, j);
-                hasVisibleChar = true;
-                i = j;
-            }
+        Breakdown(int size) {
+            classIds = new int[size];
+            lengths = new int[size];
+            commas = new int[size];
+            grandparents = new int[size];
         }
     }
 }
@@ -0,0 +1,19 @@
+package br.com.readable.extractor;
+
+/**
+ * Extraction results of pages seen before, keyed by the page bytes and the settings they were extracted with.
+ * Implementations must be thread-safe. A result handed to {@link #put} is owned by the cache, and callers must not
+ * change a result returned by {@link #get}: the extractor copies results on the way in and out.
+ */
+public interface ResultCache {
+
+    // Result stored under the key, null when there is none
+    ExtractionResult get(ResultKey key);
+
+    void put(ResultKey key, ExtractionResult result);
+
+    // Looks the tiers up in order, see TieredResultCache
+    static ResultCache tiered(ResultCache... tiers) {
+        return new TieredResultCache(tiers);
+    }
+}
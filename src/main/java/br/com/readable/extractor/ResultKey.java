@@ -0,0 +1,96 @@
+package br.com.readable.extractor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Identity of an extraction for {@link ResultCache}: a 64-bit hash and the length of the page bytes, plus a hash of
+ * the charset, base URI and extractor settings. {@link #getId()} is a stable name, usable as a file name by a
+ * local cache tier.
+ */
+public final class ResultKey {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final long contentHash;
+    private final int length;
+    private final long contextHash;
+
+    private ResultKey(long contentHash, int length, long contextHash) {
+        this.contentHash = contentHash;
+        this.length = length;
+        this.contextHash = contextHash;
+    }
+
+    public static ResultKey of(HtmlInput input, ExtractorConfig config) {
+        long context = config.fingerprint();
+        context = context * 31 + hash(input.getCharset());
+        context = context * 31 + hash(input.getBaseUri());
+        return new ResultKey(hash(input.getContent()), input.getLength(), mix(context));
+    }
+
+    // Hash of the remaining bytes, read eight at a time
+    static long hash(ByteBuffer content) {
+        ByteBuffer buffer = content.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        long hash = PRIME_2 + buffer.remaining();
+        while (buffer.remaining() >= 8) {
+            hash = Long.rotateLeft(hash ^ buffer.getLong() * PRIME_1, 31) * PRIME_2;
+        }
+        while (buffer.hasRemaining()) {
+            hash = Long.rotateLeft(hash ^ (buffer.get() & 0xFF) * PRIME_1, 11) * PRIME_2;
+        }
+        return mix(hash);
+    }
+
+    static long hash(String value) {
+        if (value == null)
+            return 0;
+        long hash = PRIME_2;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * PRIME_1;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME_1;
+        hash ^= hash >>> 29;
+        hash *= PRIME_2;
+        return hash ^ hash >>> 32;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // Hex name made of both hashes and the length
+    public String getId() {
+        return String.format("%016x%016x%08x", contentHash, contextHash, length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ResultKey))
+            return false;
+        ResultKey other = (ResultKey) o;
+        return contentHash == other.contentHash && length == other.length && contextHash == other.contextHash;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (contentHash ^ contentHash >>> 32) * 31 + (int) contextHash;
+    }
+
+    @Override
+    public String toString() {
+        return getId();
+    }
+}
@@ -0,0 +1,322 @@
+package br.com.readable.extractor;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Drops script, style, noscript and svg elements from raw HTML as it is read, so a parser downstream never builds
+ * nodes for them. JSON-LD scripts are kept for their metadata, and so is everything else, character for character:
+ * comments, attribute values and the text of title and textarea elements are copied without being looked into.
+ * Works incrementally, holding no more than the current tag in memory.
+ * <p>
+ * A self-closed element ({@code <svg ... />}) is dropped on its own; any other dropped element runs up to its first
+ * end tag, so a nested svg leaves the tail of the outer one behind.
+ */
+public final class ScriptFilterReader extends FilterReader {
+
+    private static final String[] DROPPED = {"script", "style", "noscript", "svg"};
+    private static final String[] RAW_TEXT = {"title", "textarea"};
+
+    private static final int TEXT = 0;
+    private static final int TAG = 1;
+    private static final int COMMENT = 2;
+    private static final int RAW = 3;
+
+    private char[] buf = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private int mode = TEXT;
+    // Inside a tag: quote of the attribute value being copied, 0 outside of one, and the last non-space character
+    private int quote;
+    private int last;
+    // Element whose content is copied as text up to its end tag, once the start tag being copied is over
+    private String rawTextTag;
+    private String pendingRawTextTag;
+    private int dashes;
+    private final char[] single = new char[1];
+
+    public ScriptFilterReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+
+        int n = 0;
+        int c;
+        while (n < len && (c = peek(0)) >= 0) {
+            // Text up to the next '<' is copied as it is, raw text included
+            if ((mode == TEXT || mode == RAW) && c != '<') {
+                int start = pos;
+                int end = indexOfTag(pos, Math.min(limit, pos + len - n));
+                System.arraycopy(buf, start, cbuf, off + n, end - start);
+                n += end - start;
+                pos = end;
+                continue;
+            }
+
+            // So are attributes, up to the next quote or '>'
+            if (mode == TAG && c != '>' && c != '"' && c != '\'' && (quote == 0 || c != quote)) {
+                int start = pos;
+                int end = indexOfTagSyntax(pos, Math.min(limit, pos + len - n));
+                System.arraycopy(buf, start, cbuf, off + n, end - start);
+                n += end - start;
+                pos = end;
+                for (int i = end - 1; i >= start; i--) {
+                    if (!isSpace(buf[i])) {
+                        last = buf[i];
+                        break;
+                    }
+                }
+                continue;
+            }
+
+            switch (mode) {
+                case TEXT:
+                    if (c == '<' && markup())
+                        continue;
+                    break;
+                case TAG:
+                    if (quote != 0) {
+                        if (c == quote)
+                            quote = 0;
+                    } else if ((c == '"' || c == '\'') && last == '=') {
+                        quote = c;
+                    } else if (c == '>') {
+                        rawTextTag = last != '/' ? pendingRawTextTag : null;
+                        pendingRawTextTag = null;
+                        mode = rawTextTag != null ? RAW : TEXT;
+                    }
+                    if (!isSpace(c))
+                        last = c;
+                    break;
+                case COMMENT:
+                    // Dashes of the opening "<!--" are not counted
+                    if (dashes < 0) {
+                        dashes++;
+                    } else {
+                        if (c == '>' && dashes >= 2)
+                            mode = TEXT;
+                        dashes = c == '-' ? dashes + 1 : 0;
+                    }
+                    break;
+                default:
+                    if (c == '<' && endTagAhead(rawTextTag)) {
+                        rawTextTag = null;
+                        startTag(null);
+                    }
+                    break;
+            }
+            cbuf[off + n++] = (char) c;
+            pos++;
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    // At a '<' in text: drops a whole element and returns true, or picks the mode the markup is copied in
+    private boolean markup() throws IOException {
+        int next = peek(1);
+        if (next == '!' && peek(2) == '-' && peek(3) == '-') {
+            mode = COMMENT;
+            dashes = -3;
+        } else if (next == '!' || next == '?' || (next == '/' && isLetter(peek(2)))) {
+            startTag(null);
+        } else if (isLetter(next)) {
+            String dropped = nameAhead(DROPPED);
+            if (dropped != null && (!"script".equals(dropped) || !isJsonLd())) {
+                drop(dropped);
+                return true;
+            }
+            startTag(dropped != null ? dropped : nameAhead(RAW_TEXT));
+        }
+        return false;
+    }
+
+    private void startTag(String rawText) {
+        mode = TAG;
+        quote = 0;
+        last = 0;
+        pendingRawTextTag = rawText;
+    }
+
+    // Skips the start tag at the current position and, unless it is self-closed, everything up to the end tag
+    private void drop(String name) throws IOException {
+        int end = startTagEnd();
+        boolean selfClosed = end > 0 && buf[pos + end - 1] == '/';
+        advance(end < 0 ? Integer.MAX_VALUE : end + 1);
+        if (selfClosed)
+            return;
+
+        int c;
+        while ((c = peek(0)) >= 0 && (c != '<' || !endTagAhead(name))) {
+            pos = indexOfTag(pos + 1, limit);
+        }
+        while ((c = peek(0)) >= 0) {
+            pos++;
+            if (c == '>')
+                return;
+        }
+    }
+
+    // Position of the first '<' in the buffer from start, end when there is none before it
+    private int indexOfTag(int start, int end) {
+        char[] chars = buf;
+        int i = start;
+        while (i < end && chars[i] != '<') {
+            i++;
+        }
+        return i;
+    }
+
+    // Position of the first quote or '>' in the buffer from start, end when there is none before it
+    private int indexOfTagSyntax(int start, int end) {
+        char[] chars = buf;
+        int i = start;
+        while (i < end && chars[i] != '>' && chars[i] != '"' && chars[i] != '\'') {
+            i++;
+        }
+        return i;
+    }
+
+    // Offset of the '>' closing the start tag at the current position, -1 when the input ends first
+    private int startTagEnd() throws IOException {
+        int quoted = 0;
+        int previous = 0;
+        int c;
+        for (int ahead = 1; (c = peek(ahead)) >= 0; ahead++) {
+            if (quoted != 0) {
+                if (c == quoted)
+                    quoted = 0;
+            } else if ((c == '"' || c == '\'') && previous == '=') {
+                quoted = c;
+            } else if (c == '>') {
+                return ahead;
+            }
+            if (!isSpace(c))
+                previous = c;
+        }
+        return -1;
+    }
+
+    // Whether the script start tag at the current position declares JSON-LD
+    private boolean isJsonLd() throws IOException {
+        int end = startTagEnd();
+        String type = "ld+json";
+        for (int i = 1; end > 0 && i + type.length() <= end; i++) {
+            if (matchesIgnoreCase(i, type))
+                return true;
+        }
+        return false;
+    }
+
+    // The name, out of the given ones, of the tag starting at the current position; null when it is none of them
+    private String nameAhead(String[] names) throws IOException {
+        for (String name : names) {
+            if (matchesIgnoreCase(1, name) && isDelimiter(peek(1 + name.length())))
+                return name;
+        }
+        return null;
+    }
+
+    // Whether "</name" (any case) follows, ending the element's content
+    private boolean endTagAhead(String name) throws IOException {
+        return peek(1) == '/' && matchesIgnoreCase(2, name) && isDelimiter(peek(2 + name.length()));
+    }
+
+    private boolean matchesIgnoreCase(int ahead, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            int c = peek(ahead + i);
+            if (c < 0 || Character.toLowerCase((char) c) != value.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c < 0 || isSpace(c) || c == '>' || c == '/';
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private void advance(int count) throws IOException {
+        for (int i = 0; i < count && peek(0) >= 0; i++) {
+            pos++;
+        }
+    }
+
+    // Character ahead of the current position, -1 past the end of the input
+    private int peek(int ahead) throws IOException {
+        while (pos + ahead >= limit) {
+            if (!fill())
+                return -1;
+        }
+        return buf[pos + ahead];
+    }
+
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            char[] grown = new char[buf.length * 2];
+            System.arraycopy(buf, 0, grown, 0, limit);
+            buf = grown;
+        }
+
+        int read = in.read(buf, limit, buf.length - limit);
+        if (read <= 0)
+            return false;
+        limit += read;
+        return true;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        char[] skipped = new char[(int) Math.min(n, 8192)];
+        long total = 0;
+        while (total < n) {
+            int read = read(skipped, 0, (int) Math.min(n - total, skipped.length));
+            if (read < 0)
+                break;
+            total += read;
+        }
+        return total;
+    }
+
+    @Override
+    public boolean ready() {
+        return false;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+}
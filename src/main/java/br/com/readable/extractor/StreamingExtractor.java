@@ -0,0 +1,392 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Main content extraction that never builds the DOM of the whole page. Blocks are scored straight from the
+ * token stream, keeping only the open elements and their running scores; then just the winning div or article is
+ * parsed and cleaned as {@link ReadableContentExtractor#getMainContent(Document, String, String)} would.
+ * Scoring follows the DOM algorithm, including the paragraphs that splitting on &lt;br&gt; would create, and ties go
+ * to the container that starts first. On well-formed pages the same container wins in both modes; on malformed ones
+ * the tokenizer's recovery differs from HtmlCleaner's, and so may the winner.
+ */
+public class StreamingExtractor {
+
+    private static final Set<String> VOID_TAGS = new HashSet<>(Arrays.asList(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "keygen", "link", "meta", "param",
+            "source", "track", "wbr"));
+
+    // Start tags that implicitly close an open paragraph
+    private static final Set<String> CLOSES_P = new HashSet<>(Arrays.asList(
+            "address", "article", "aside", "blockquote", "div", "dl", "fieldset", "figure", "footer", "form",
+            "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "main", "nav", "ol", "p", "pre", "section",
+            "table", "ul"));
+
+    private final ReadableContentExtractor extractor;
+    private final HtmlDocumentParser parser;
+
+    public StreamingExtractor() {
+        this(new ReadableContentExtractor(), new HtmlDocumentParser());
+    }
+
+    public StreamingExtractor(ReadableContentExtractor extractor, HtmlDocumentParser parser) {
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public Element getMainContent(HtmlInput input) throws IOException {
+        return getMainContent(input.openReader(), input.getBaseUri());
+    }
+
+    // The page is read into one buffer, scored over it and only the winner's range is copied out
+    public Element getMainContent(Reader html, String baseUri) throws IOException {
+        StringBuilder source = new StringBuilder();
+        char[] chunk = new char[8192];
+        int read;
+        while ((read = html.read(chunk)) > 0) {
+            source.append(chunk, 0, read);
+        }
+        return getMainContent(source, baseUri);
+    }
+
+    public Element getMainContent(CharSequence html, String baseUri) throws IOException {
+        Candidate winner = score(html);
+
+        if (winner == null) {
+            Document empty = parser.parse("", baseUri);
+            return extractor.noContent(empty);
+        }
+
+        // Only the winning container is turned into a DOM
+        Document doc = parser.parse(html.subSequence((int) winner.start, (int) winner.end).toString(), baseUri);
+        Element topDiv = firstElement(doc.getElementsByTagName("body").item(0));
+        if (topDiv == null)
+            return extractor.noContent(doc);
+
+        extractor.killBrWrapPattern(topDiv);
+        return extractor.cleanMainContent(extractor.newContext(doc), topDiv, null, null);
+    }
+
+    // Best scored container of the page, null when nothing could be scored
+    protected Candidate score(CharSequence html) throws IOException {
+        // Class and id matching only needs the context matchers, there is no document yet
+        ExtractionContext ctx = new ExtractionContext(null, extractor.getConfig());
+        Scorer scorer = new Scorer(ctx, extractor.getConfig());
+
+        Reader reader = html instanceof String ? new StringReader((String) html) : new CharSequenceReader(html);
+        HtmlTokenizer tokenizer = new HtmlTokenizer(reader);
+        HtmlTokenizer.Token token;
+        while ((token = tokenizer.next()) != HtmlTokenizer.Token.EOF) {
+            switch (token) {
+                case START_TAG:
+                    scorer.startTag(tokenizer);
+                    break;
+                case END_TAG:
+                    scorer.endTag(tokenizer);
+                    break;
+                case TEXT:
+                    scorer.text(tokenizer.getText());
+                    break;
+                case COMMENT:
+                    scorer.comment();
+                    break;
+                default:
+                    break;
+            }
+        }
+        scorer.finish(html.length());
+        return scorer.best;
+    }
+
+    private static Element firstElement(Node parent) {
+        if (parent == null)
+            return null;
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element)
+                return (Element) child;
+        }
+        return null;
+    }
+
+    // Reads the characters in place, where a StringReader would need a copy of them as a String
+    private static final class CharSequenceReader extends Reader {
+
+        private final CharSequence text;
+        private int position = 0;
+
+        CharSequenceReader(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= text.length())
+                return -1;
+            int end = Math.min(text.length(), position + length);
+            if (text instanceof StringBuilder) {
+                ((StringBuilder) text).getChars(position, end, buffer, offset);
+            } else {
+                for (int i = position; i < end; i++) {
+                    buffer[offset + i - position] = text.charAt(i);
+                }
+            }
+            int read = end - position;
+            position = end;
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    protected static final class Candidate {
+
+        final String tagName;
+        final long start;
+        final long end;
+        final int score;
+
+        Candidate(String tagName, long start, long end, int score) {
+            this.tagName = tagName;
+            this.start = start;
+            this.end = end;
+            this.score = score;
+        }
+    }
+
+    // Growable list of (text length, comma count) pairs
+    private static final class Contributions {
+
+        private int[] values = new int[8];
+        private int size = 0;
+
+        void add(int length, int commas) {
+            if (size + 2 > values.length)
+                values = Arrays.copyOf(values, values.length * 2);
+            values[size++] = length;
+            values[size++] = commas;
+        }
+    }
+
+    private static final class Frame {
+
+        final String tag;
+        final Frame parent;
+        final long start;
+        final int classScore;
+        final boolean div;
+        final boolean scorable;
+
+        boolean hasBr = false;
+        boolean sawVisibleText = false;
+        int textLength = 0;
+        int commas = 0;
+
+        // Run of children since the last <br>, which DOM extraction would wrap in a paragraph
+        boolean runOpen = false;
+        int runLength = 0;
+        int runCommas = 0;
+
+        Contributions runs;
+        Contributions children;
+        Contributions grandchildren;
+
+        Frame(String tag, Frame parent, long start, int classScore) {
+            this.tag = tag;
+            this.parent = parent;
+            this.start = start;
+            this.classScore = classScore;
+            this.div = "div".equals(tag);
+            this.scorable = div || "article".equals(tag);
+        }
+
+        void addChild(int length, int commaCount) {
+            textLength += length;
+            commas += commaCount;
+            runOpen = true;
+            runLength += length;
+            runCommas += commaCount;
+        }
+
+        void endRun() {
+            if (!runOpen)
+                return;
+            if (runs == null)
+                runs = new Contributions();
+            runs.add(runLength, runCommas);
+            runOpen = false;
+            runLength = 0;
+            runCommas = 0;
+        }
+
+        void addParagraph(int length, int commaCount) {
+            if (children == null)
+                children = new Contributions();
+            children.add(length, commaCount);
+        }
+
+        void addGrandchild(int length, int commaCount) {
+            if (grandchildren == null)
+                grandchildren = new Contributions();
+            grandchildren.add(length, commaCount);
+        }
+    }
+
+    private final class Scorer {
+
+        private final ExtractionContext ctx;
+        private final ExtractorConfig config;
+        private Frame top = new Frame("#document", null, 0, 0);
+        private Candidate best;
+
+        Scorer(ExtractionContext ctx, ExtractorConfig config) {
+            this.ctx = ctx;
+            this.config = config;
+        }
+
+        void startTag(HtmlTokenizer tokenizer) {
+            String tag = tokenizer.getTagName();
+            if ("p".equals(top.tag) && CLOSES_P.contains(tag))
+                close(tokenizer.getStart());
+
+            if ("br".equals(tag)) {
+                top.hasBr = true;
+                top.endRun();
+                return;
+            }
+
+            if (VOID_TAGS.contains(tag) || tokenizer.isSelfClosing()) {
+                top.addChild(0, 0);
+                return;
+            }
+
+            int classScore = 0;
+            if ("div".equals(tag) || "article".equals(tag))
+                classScore = extractor.scoreByMatchClassId(ctx, tokenizer.getAttribute("class"),
+                        tokenizer.getAttribute("id"), tokenizer.getAttribute("itemprop"));
+            top = new Frame(tag, top, tokenizer.getStart(), classScore);
+        }
+
+        void endTag(HtmlTokenizer tokenizer) {
+            String tag = tokenizer.getTagName();
+            Frame match = top;
+            while (match != null && !tag.equals(match.tag)) {
+                match = match.parent;
+            }
+            if (match == null || match.parent == null)
+                return;
+
+            // Elements left open inside end where the closing tag starts
+            while (top != match) {
+                close(tokenizer.getStart());
+            }
+            close(tokenizer.getEnd());
+        }
+
+        void text(CharSequence text) {
+            int length = text.length();
+            int commas = 0;
+            boolean visible = false;
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c == ',')
+                    commas++;
+                if (!visible && !Character.isWhitespace(c) && c != 160)
+                    visible = true;
+            }
+
+            top.addChild(length, commas);
+
+            // First visible text of every open div that had none yet is a scoring candidate
+            if (visible) {
+                boolean first = false;
+                for (Frame frame = top; frame != null; frame = frame.parent) {
+                    if (frame.div) {
+                        if (frame.sawVisibleText)
+                            break;
+                        frame.sawVisibleText = true;
+                        first = true;
+                    }
+                }
+                if (first)
+                    top.addParagraph(length, commas);
+            }
+        }
+
+        void comment() {
+            top.addChild(0, 0);
+        }
+
+        void finish(long end) {
+            while (top.parent != null) {
+                close(end);
+            }
+        }
+
+        private void close(long end) {
+            Frame frame = top;
+            top = frame.parent;
+            frame.endRun();
+
+            // With <br> children, the children are wrapped in paragraphs and those are what gets scored
+            Contributions paragraphs = frame.hasBr ? frame.runs : frame.children;
+            Integer score = null;
+            if (paragraphs != null) {
+                for (int i = 0; i < paragraphs.size; i += 2) {
+                    int length = paragraphs.values[i];
+                    int commas = paragraphs.values[i + 1];
+                    if (frame.scorable)
+                        score = add(score, frame.classScore, parentScore(length, commas));
+                    if (frame.div)
+                        top.addGrandchild(length, commas);
+                }
+            }
+
+            // Grandchildren only count when this div is still their grandparent, i.e. nothing was wrapped
+            if (frame.div && !frame.hasBr && frame.grandchildren != null) {
+                Contributions grandchildren = frame.grandchildren;
+                for (int i = 0; i < grandchildren.size; i += 2) {
+                    score = add(score, frame.classScore, grandparentScore(grandchildren.values[i], grandchildren.values[i + 1]));
+                }
+            }
+
+            // Containers close innermost first, the one starting first wins a tie as in document order
+            if (score != null && (best == null || score > best.score || (score == best.score && frame.start < best.start)))
+                best = new Candidate(frame.tag, frame.start, end, score);
+
+            top.addChild(frame.textLength, frame.commas);
+            if ("p".equals(frame.tag))
+                top.addParagraph(frame.textLength, frame.commas);
+        }
+
+        // Same accumulation as the DOM scoring: negative totals are not kept
+        private Integer add(Integer score, int classScore, int delta) {
+            int result = (score != null ? score : classScore) + delta;
+            return result >= 0 ? Integer.valueOf(result) : score;
+        }
+
+        private int parentScore(int length, int commas) {
+            int score = 0;
+            if (config.isLengthScoring() && length > config.getMinParagraphLength())
+                score += Math.max(config.getParentLengthBonus(), length / config.getParentLengthDivisor());
+            return score + commas;
+        }
+
+        private int grandparentScore(int length, int commas) {
+            int score = 0;
+            if (config.isLengthScoring() && length > config.getMinParagraphLength())
+                score += Math.max(config.getGrandparentLengthBonus(), length / config.getGrandparentLengthDivisor());
+            return score + commas / config.getGrandparentCommaDivisor();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package br.com.readable.extractor;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Where the main content was found on previous pages of each site, as the path of tag, id and class steps from body
+ * down to the winning container. Ids and class names with digits in them, which usually name the article itself
+ * (WordPress' {@code post-123}), are left out of the steps. Pages of a site sharing one layout can then skip scoring. Bounded, the least
+ * recently used sites are evicted first; thread-safe, one cache can be shared by any number of extractors.
+ */
+public final class TemplateCache {
+
+    private final int maxSites;
+    private final Map<String, String> templates;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    public TemplateCache(int maxSites) {
+        if (maxSites <= 0)
+            throw new IllegalArgumentException("Cache size must be positive.");
+        this.maxSites = maxSites;
+        this.templates = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > TemplateCache.this.maxSites;
+            }
+        };
+    }
+
+    public int getMaxSites() {
+        return maxSites;
+    }
+
+    // Template path of the site, null when none was learned yet
+    public String get(String host) {
+        synchronized (templates) {
+            return templates.get(host);
+        }
+    }
+
+    public void put(String host, String template) {
+        synchronized (templates) {
+            templates.put(host, template);
+        }
+    }
+
+    public void remove(String host) {
+        synchronized (templates) {
+            templates.remove(host);
+        }
+    }
+
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    // Pages whose content was taken from the site's template
+    public long getHits() {
+        return hits.get();
+    }
+
+    // Pages of sites without a template, or whose template was not found on the page
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // Pages where the template's container was found but failed the quality check
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    void reject() {
+        rejections.incrementAndGet();
+    }
+
+    // Lower-cased host of the page, null when it has no absolute URI
+    static String hostOf(String uri) {
+        if (uri == null)
+            return null;
+        try {
+            String host = URI.create(uri).getHost();
+            return host != null ? host.toLowerCase() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Path from body (excluded) down to the element, as "tag#id.class.class" steps separated by '/'
+    static String templateOf(Element body, Element element) {
+        List<String> steps = new ArrayList<>();
+        for (Node node = element; node != body; node = node.getParentNode()) {
+            if (!(node instanceof Element))
+                return null;
+            steps.add(step((Element) node));
+        }
+
+        StringBuilder template = new StringBuilder();
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            template.append(steps.get(i));
+            if (i > 0)
+                template.append('/');
+        }
+        return template.toString();
+    }
+
+    // Element the template leads to, following the first matching child at each step; null when the page differs
+    static Element find(Element body, String template) {
+        Element current = body;
+        int start = 0;
+        while (current != null && start <= template.length()) {
+            int end = template.indexOf('/', start);
+            if (end < 0)
+                end = template.length();
+            current = childMatching(current, template, start, end);
+            start = end + 1;
+        }
+        return current;
+    }
+
+    private static Element childMatching(Element parent, String template, int start, int end) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element))
+                continue;
+            String step = step((Element) child);
+            if (step.length() == end - start && template.startsWith(step, start))
+                return (Element) child;
+        }
+        return null;
+    }
+
+    // Tag, id and class names in document order, those differing from page to page left out
+    private static String step(Element element) {
+        String id = element.getAttribute("id").trim();
+        StringBuilder step = new StringBuilder(element.getTagName().toLowerCase());
+        if (!id.isEmpty() && isStable(id))
+            step.append('#').append(id.replace('/', '_'));
+        for (String className : element.getAttribute("class").split("\\s+")) {
+            if (!className.isEmpty() && isStable(className))
+                step.append('.').append(className.replace('/', '_'));
+        }
+        return step.toString();
+    }
+
+    private static boolean isStable(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isDigit(name.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.readable.extractor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Result caches looked up in order, typically a small in-memory cache in front of a larger local one. A result
+ * found in a later tier is copied into the earlier ones; new results are stored in every tier.
+ */
+public final class TieredResultCache implements ResultCache {
+
+    private final List<ResultCache> tiers;
+
+    public TieredResultCache(ResultCache... tiers) {
+        if (tiers == null || tiers.length == 0)
+            throw new IllegalArgumentException("At least one cache tier is needed.");
+        for (ResultCache tier : tiers) {
+            if (tier == null)
+                throw new IllegalArgumentException("Cache tiers must not be null.");
+        }
+        this.tiers = Arrays.asList(tiers.clone());
+    }
+
+    public List<ResultCache> getTiers() {
+        return tiers;
+    }
+
+    @Override
+    public ExtractionResult get(ResultKey key) {
+        for (int i = 0; i < tiers.size(); i++) {
+            ExtractionResult result = tiers.get(i).get(key);
+            if (result != null) {
+                for (int j = 0; j < i; j++) {
+                    tiers.get(j).put(key, result.copy());
+                }
+                return result;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void put(ResultKey key, ExtractionResult result) {
+        tiers.get(0).put(key, result);
+        for (int i = 1; i < tiers.size(); i++) {
+            tiers.get(i).put(key, result.copy());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.readable.extractor;
+
+import org.w3c.dom.Element;
+
+/**
+ * Cleaning rule that needs the whole content at once, typically because it restructures it. Runs on its own,
+ * between the walks of the element stages around it.
+ */
+public interface TreeStage extends CleaningStage {
+
+    void clean(CleaningContext ctx, Element root);
+}
@@ -0,0 +1,55 @@
+package br.com.readable.extractor;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Work done so far by one extraction, checked against its {@link ExtractionBudget} by the traversals as they go.
+ * The clock and the thread's interrupt flag are only looked at every {@value #CHECK_INTERVAL} nodes.
+ */
+final class WorkTracker {
+
+    static final int CHECK_INTERVAL = 256;
+
+    private final ExtractionBudget budget;
+    private final long deadline;
+    private long nodes = 0;
+    private int candidates = 0;
+
+    WorkTracker(ExtractionBudget budget) {
+        this.budget = budget;
+        long now = System.nanoTime();
+        this.deadline = budget.getMaxNanos() == Long.MAX_VALUE || now + budget.getMaxNanos() < now ?
+                Long.MAX_VALUE : now + budget.getMaxNanos();
+    }
+
+    // Counts a node found at the given depth below the root of its traversal
+    void visit(int depth) {
+        if (depth > budget.getMaxDepth())
+            throw new BudgetExceededException(BudgetExceededException.Limit.DEPTH, budget.getMaxDepth());
+        visit();
+    }
+
+    void visit() {
+        if (++nodes > budget.getMaxNodes())
+            throw new BudgetExceededException(BudgetExceededException.Limit.NODES, budget.getMaxNodes());
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0)
+            check();
+    }
+
+    void candidate() {
+        if (++candidates > budget.getMaxCandidates())
+            throw new BudgetExceededException(BudgetExceededException.Limit.CANDIDATES, budget.getMaxCandidates());
+    }
+
+    // Interrupts are honored without clearing the flag, so the caller still sees it
+    void check() {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("Extraction interrupted.");
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+            throw new BudgetExceededException(BudgetExceededException.Limit.TIME, budget.getMaxNanos());
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,397 @@
+package br.com.readable.server;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import br.com.readable.extractor.*;
+import br.com.readable.warc.WarcReader;
+
+/**
+ * Extraction over HTTP on the JDK's built-in server, for services outside the JVM. {@code POST /extract} takes one
+ * page as the request body and answers with its JSON object; {@code POST /batch} takes a WARC archive, plain or
+ * gzipped, and streams back one JSON line per page, in archive order, while the archive is still being read.
+ * {@code GET /metrics} reports throughput and latency percentiles.
+ * <p>
+ * Connections are kept alive between requests. Pages are extracted on a fixed pool of worker threads, or on virtual
+ * threads, with a bounded number of pages of each batch in flight; at most {@code maxConcurrentRequests} requests are
+ * read at a time, later ones wait on their connection with their body unread.
+ */
+public final class ExtractionServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final BatchExtractor batch;
+    private final ServerMetrics metrics;
+    private final int maxPageSize;
+
+    private ExtractionServer(Builder builder) throws IOException {
+        this.server = HttpServer.create(builder.address, 0);
+
+        ExtractionStats stats = null;
+        ExtractorConfig config = builder.config;
+        if (config.getListener() == ExtractionListener.NOOP) {
+            stats = new ExtractionStats();
+            config = config.toBuilder().listener(stats).build();
+        }
+        this.metrics = new ServerMetrics(stats);
+        this.maxPageSize = builder.maxPageSize;
+
+        BatchExtractor.Builder batch = BatchExtractor.builder()
+                .extractor(new ReadableContentExtractor(config, builder.parser))
+                .parser(builder.parser)
+                .threads(builder.threads);
+        if (builder.virtualThreads)
+            batch.virtualThreads();
+        this.batch = batch.build();
+
+        int maxConcurrentRequests = builder.maxConcurrentRequests > 0 ? builder.maxConcurrentRequests : builder.threads * 2;
+        this.handlers = Executors.newFixedThreadPool(maxConcurrentRequests, new HandlerFactory());
+        server.setExecutor(handlers);
+        server.createContext("/extract", new Timed(this::extract));
+        server.createContext("/batch", new Timed(this::batch));
+        server.createContext("/metrics", new Timed(this::metrics));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Bound port, the one picked by the system when started on port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Stops accepting connections, requests under way are cut short
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdown();
+        batch.close();
+    }
+
+    private void extract(HttpExchange exchange) throws IOException {
+        if (!accept(exchange, "/extract", "POST"))
+            return;
+        long declared = contentLength(exchange);
+        if (declared > maxPageSize) {
+            sendError(exchange, 413, null, "Page larger than " + maxPageSize + " bytes");
+            return;
+        }
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            sendError(exchange, 413, null, "Page larger than " + maxPageSize + " bytes");
+            return;
+        }
+
+        Map<String, String> query = query(exchange);
+        String url = query.get("url");
+        ContentFormat format = format(query.get("format"));
+        if (format == null) {
+            sendError(exchange, 400, url, "Unknown format " + query.get("format"));
+            return;
+        }
+
+        HtmlInput input = HtmlInput.fromResponse(body, exchange.getRequestHeaders().getFirst("Content-Type"), url);
+        BatchResult result = batch.extract(Collections.singletonList(input).iterator()).next();
+        metrics.documentCompleted(input.getLength(), result.isSuccess());
+        if (!result.isSuccess()) {
+            sendError(exchange, 422, url, String.valueOf(result.getError()));
+            return;
+        }
+        StringBuilder json = new StringBuilder();
+        ContentSerializer.writeJson(result.getResult(), format, json);
+        send(exchange, 200, json);
+    }
+
+    private void batch(HttpExchange exchange) throws IOException {
+        if (!accept(exchange, "/batch", "POST"))
+            return;
+        String field = query(exchange).get("format");
+        ContentFormat format = format(field);
+        if (format == null) {
+            sendError(exchange, 400, null, "Unknown format " + field);
+            return;
+        }
+        WarcReader archive;
+        try {
+            archive = new WarcReader(exchange.getRequestBody(), maxPageSize);
+        } catch (IOException e) {
+            sendError(exchange, 400, null, "Invalid archive: " + e.getMessage());
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        // A client that goes away fails the next write, and closing the results cancels the pages in flight
+        try (WarcReader pages = archive;
+             BatchExtractor.ResultIterator results = batch.extract(new Pages(pages));
+             Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                     16 * 1024)) {
+            try {
+                while (results.hasNext()) {
+                    BatchResult result = results.next();
+                    metrics.documentCompleted(result.getInput().getLength(), result.isSuccess());
+                    if (result.isSuccess())
+                        ContentSerializer.writeJson(result.getResult(), format, out);
+                    else
+                        writeError(out, result.getInput().getBaseUri(), String.valueOf(result.getError()));
+                    out.write('\n');
+                }
+            } catch (UncheckedIOException e) {
+                // The status is long sent, a last line tells why the batch ended early
+                writeError(out, null, "Invalid archive: " + e.getCause().getMessage());
+                out.write('\n');
+            }
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        if (!accept(exchange, "/metrics", "GET"))
+            return;
+        StringBuilder json = new StringBuilder();
+        metrics.writeJson(json);
+        send(exchange, 200, json);
+    }
+
+    // Answers requests to any other path or with any other method
+    private static boolean accept(HttpExchange exchange, String path, String method) throws IOException {
+        if (!path.equals(exchange.getRequestURI().getPath())) {
+            sendError(exchange, 404, null, "Not found");
+            return false;
+        }
+        if (!method.equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", method);
+            sendError(exchange, 405, null, "Method not allowed");
+            return false;
+        }
+        return true;
+    }
+
+    // Whole body, null past the maximum page size
+    private byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (out.size() + read > maxPageSize)
+                return null;
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static long contentLength(HttpExchange exchange) {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            return length != null ? Long.parseLong(length.trim()) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null)
+            return query;
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0)
+                query.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+        }
+        return query;
+    }
+
+    // HTML when not given, null when unknown
+    private static ContentFormat format(String field) {
+        if (field == null)
+            return ContentFormat.HTML;
+        for (ContentFormat format : ContentFormat.values()) {
+            if (format.getField().equals(field))
+                return format;
+        }
+        return null;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String url, String message) throws IOException {
+        StringBuilder json = new StringBuilder();
+        writeError(json, url, message);
+        send(exchange, status, json);
+    }
+
+    private static void writeError(Appendable out, String url, String message) throws IOException {
+        out.append("{\"url\":");
+        ContentSerializer.writeJsonString(url, out);
+        out.append(",\"error\":");
+        ContentSerializer.writeJsonString(message, out);
+        out.append('}');
+    }
+
+    // With its length up front, so the connection stays open for the next request
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Pages of the archive as the batch pulls them, read errors surface as UncheckedIOException
+    private static final class Pages implements Iterator<HtmlInput> {
+
+        private final WarcReader archive;
+        private HtmlInput next;
+        private boolean done;
+
+        Pages(WarcReader archive) {
+            this.archive = archive;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = archive.next();
+                } catch (IOException e) {
+                    done = true;
+                    throw new UncheckedIOException(e);
+                }
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public HtmlInput next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            HtmlInput page = next;
+            next = null;
+            return page;
+        }
+    }
+
+    // Times every request and closes its exchange, whatever the handler did
+    private final class Timed implements HttpHandler {
+
+        private final HttpHandler handler;
+
+        Timed(HttpHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            try {
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+                metrics.requestCompleted(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static final class HandlerFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "readable-server-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static final class Builder {
+
+        private InetSocketAddress address = new InetSocketAddress(8080);
+        private ExtractorConfig config = ExtractorConfig.DEFAULT;
+        private HtmlDocumentParser parser = new HtmlDocumentParser();
+        private boolean virtualThreads = false;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int maxConcurrentRequests = 0;
+        private int maxPageSize = 16 * 1024 * 1024;
+
+        private Builder() {
+        }
+
+        // Port on every interface, 0 for any free port
+        public Builder port(int port) {
+            this.address = new InetSocketAddress(port);
+            return this;
+        }
+
+        public Builder address(InetSocketAddress address) {
+            this.address = address;
+            return this;
+        }
+
+        // Unless it has a listener of its own, the config reports to the server's metrics
+        public Builder config(ExtractorConfig config) {
+            this.config = config;
+            return this;
+        }
+
+        public Builder parser(HtmlDocumentParser parser) {
+            this.parser = parser;
+            return this;
+        }
+
+        // Extracts every page on its own virtual thread when available, on the fixed pool otherwise
+        public Builder virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            if (threads < 1)
+                throw new IllegalArgumentException("Number of threads need to be bigger or equal to 1.");
+            this.threads = threads;
+            return this;
+        }
+
+        // Requests handled at once, twice the worker threads by default
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            if (maxConcurrentRequests < 1)
+                throw new IllegalArgumentException("Max concurrent requests need to be bigger or equal to 1.");
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        // Larger pages are refused with 413, or skipped within a batch
+        public Builder maxPageSize(int maxPageSize) {
+            if (maxPageSize < 1)
+                throw new IllegalArgumentException("Max page size need to be bigger or equal to 1.");
+            this.maxPageSize = maxPageSize;
+            return this;
+        }
+
+        // Binds and starts serving
+        public ExtractionServer start() throws IOException {
+            if (address == null || config == null || parser == null)
+                throw new IllegalArgumentException("Address, config and parser must not be null.");
+            ExtractionServer server = new ExtractionServer(this);
+            server.server.start();
+            return server;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.readable.server;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import br.com.readable.extractor.ExtractionPhase;
+import br.com.readable.extractor.ExtractionStats;
+import br.com.readable.extractor.Histogram;
+
+/**
+ * Counters and latencies of an {@link ExtractionServer} since it started: requests with their latency, documents,
+ * failures and bytes taken in, and the parse and extraction time of each document when the server's stats are the
+ * extractor's listener. Thread-safe, recording never blocks.
+ */
+public final class ServerMetrics {
+
+    private final long started = System.nanoTime();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Histogram requestLatency = new Histogram();
+    private final ExtractionStats stats;
+
+    ServerMetrics(ExtractionStats stats) {
+        this.stats = stats;
+    }
+
+    void requestCompleted(long nanos) {
+        requests.increment();
+        requestLatency.record(nanos);
+    }
+
+    void documentCompleted(int length, boolean success) {
+        documents.increment();
+        bytes.add(length);
+        if (!success)
+            failures.increment();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getDocuments() {
+        return documents.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    // Durations in nanoseconds, from the request being handed over to the response being sent
+    public Histogram getRequestLatency() {
+        return requestLatency;
+    }
+
+    // Parse and extraction time per document, null when the extractor reports to a listener of its own
+    public ExtractionStats getExtractionStats() {
+        return stats;
+    }
+
+    // One JSON object, rates averaged since the start and latencies in milliseconds
+    public void writeJson(Appendable out) throws IOException {
+        double seconds = Math.max(System.nanoTime() - started, 1) / 1e9;
+        long documents = getDocuments();
+        long bytes = getBytes();
+        out.append(String.format(Locale.ROOT, "{\"uptimeSeconds\":%.3f,\"requests\":%d,\"documents\":%d,\"failures\":%d,"
+                        + "\"bytes\":%d,\"documentsPerSecond\":%.3f,\"bytesPerSecond\":%.1f", seconds, getRequests(),
+                documents, getFailures(), bytes, documents / seconds, bytes / seconds));
+        writeLatency(out, "requestLatencyMs", requestLatency);
+        if (stats != null) {
+            writeLatency(out, "parseLatencyMs", stats.getPhase(ExtractionPhase.PARSE));
+            writeLatency(out, "extractLatencyMs", stats.getPhase(ExtractionPhase.EXTRACT));
+        }
+        out.append('}');
+    }
+
+    private static void writeLatency(Appendable out, String name, Histogram nanos) throws IOException {
+        out.append(String.format(Locale.ROOT, ",\"%s\":{\"count\":%d,\"mean\":%.3f,\"p50\":%.3f,\"p90\":%.3f,"
+                        + "\"p99\":%.3f,\"max\":%.3f}", name, nanos.getCount(), nanos.getMean() / 1e6,
+                nanos.getPercentile(50) / 1e6, nanos.getPercentile(90) / 1e6, nanos.getPercentile(99) / 1e6,
+                nanos.getMax() / 1e6));
+    }
+}
@@ -0,0 +1,322 @@
+package br.com.readable.warc;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import br.com.readable.extractor.HtmlInput;
+
+/**
+ * Reads the HTML pages out of a WARC archive, plain or gzipped, one record at a time: only the page being returned
+ * is ever held in memory, so archives of any size stream through. Response records holding a successful HTML
+ * response and resource records of an HTML type are returned, with chunked and gzipped bodies decoded; every other
+ * record is skipped unread.
+ */
+public final class WarcReader implements Closeable {
+
+    private final InputStream in;
+    private final int maxPageSize;
+    private int skipped;
+
+    // Pages larger than maxPageSize are skipped and counted
+    public WarcReader(InputStream in, int maxPageSize) throws IOException {
+        if (in == null)
+            throw new IllegalArgumentException("Input must not be null.");
+        if (maxPageSize < 1)
+            throw new IllegalArgumentException("Max page size need to be bigger or equal to 1.");
+
+        BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        buffered.mark(2);
+        boolean gzipped = buffered.read() == 0x1f && buffered.read() == 0x8b;
+        buffered.reset();
+        // Every record of a .warc.gz is a gzip member of its own, GZIPInputStream reads through all of them
+        this.in = gzipped ? new BufferedInputStream(new GZIPInputStream(buffered, 64 * 1024), 64 * 1024) : buffered;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // Next HTML page, null at the end of the archive
+    public HtmlInput next() throws IOException {
+        Map<String, String> headers;
+        while ((headers = readRecordHeaders()) != null) {
+            long length = parseLength(headers.get("content-length"));
+            Block block = new Block(in, length);
+            try {
+                HtmlInput page = page(headers, block);
+                if (page != null)
+                    return page;
+            } finally {
+                block.skipRest();
+            }
+        }
+        return null;
+    }
+
+    // Pages left out for being larger than the maximum page size, or for a body that could not be decoded
+    public int getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private HtmlInput page(Map<String, String> headers, Block block) throws IOException {
+        String type = headers.get("warc-type");
+        String uri = headers.get("warc-target-uri");
+        String contentType = headers.get("content-type");
+
+        if ("resource".equals(type)) {
+            if (!isHtml(contentType))
+                return null;
+            byte[] body = readBody(block, -1);
+            return body != null ? HtmlInput.fromResponse(body, contentType, uri) : null;
+        }
+
+        if (!"response".equals(type) || contentType == null || !contentType.startsWith("application/http"))
+            return null;
+
+        // Status line, then the HTTP headers
+        String status = readLine(block);
+        if (status == null || !isSuccess(status))
+            return null;
+        Map<String, String> http = readHeaders(block);
+        if (http == null || !isHtml(http.get("content-type")))
+            return null;
+
+        // The body runs to the end of the block, its Content-Length only tells the size up front when read as it is
+        long declared = -1;
+        byte[] bytes;
+        try {
+            InputStream body = block;
+            String transferEncoding = http.get("transfer-encoding");
+            if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked"))
+                body = new ChunkedInputStream(body);
+            String contentEncoding = http.get("content-encoding");
+            if (contentEncoding != null && contentEncoding.toLowerCase(Locale.ROOT).contains("gzip"))
+                body = new GZIPInputStream(body);
+            if (body == block)
+                declared = parseLength(http.get("content-length"));
+            bytes = readBody(body, declared);
+        } catch (IOException e) {
+            // Only this page is lost, unless the archive itself ends early
+            if (block.isTruncated())
+                throw e;
+            skipped++;
+            return null;
+        }
+        return bytes != null ? HtmlInput.fromResponse(bytes, http.get("content-type"), uri) : null;
+    }
+
+    // Null when the body is larger than the maximum page size
+    private byte[] readBody(InputStream body, long declared) throws IOException {
+        if (declared > maxPageSize) {
+            skipped++;
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(declared > 0 ? (int) declared : 16 * 1024);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = body.read(buffer)) >= 0) {
+            if (out.size() + read > maxPageSize) {
+                skipped++;
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    // Headers of the next record, names in lower case; null at the end of the archive
+    private Map<String, String> readRecordHeaders() throws IOException {
+        String line;
+        // Records are followed by two line breaks, skipped here along with any other blank line
+        do {
+            line = readLine(in);
+            if (line == null)
+                return null;
+        } while (line.isEmpty());
+
+        if (!line.startsWith("WARC/"))
+            throw new IOException("Not a WARC record: " + line);
+        Map<String, String> headers = readHeaders(in);
+        if (headers == null)
+            throw new EOFException("Archive ends within the headers of a record");
+        return headers;
+    }
+
+    // Headers up to the blank line ending them, null when the input ends first
+    private static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null) {
+            if (line.isEmpty())
+                return headers;
+            int colon = line.indexOf(':');
+            if (colon > 0)
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        return null;
+    }
+
+    // Line up to LF, without the line break; null at the end of the input
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                int end = line.length();
+                if (end > 0 && line.charAt(end - 1) == '\r')
+                    line.setLength(end - 1);
+                return line.toString();
+            }
+            // Headers are ASCII, anything else is kept byte for byte
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    private static boolean isSuccess(String statusLine) {
+        int space = statusLine.indexOf(' ');
+        return space > 0 && statusLine.startsWith("2", space + 1);
+    }
+
+    private static boolean isHtml(String contentType) {
+        if (contentType == null)
+            return false;
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.contains("text/html") || type.contains("application/xhtml");
+    }
+
+    private static long parseLength(String value) throws IOException {
+        if (value == null)
+            return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Content-Length: " + value);
+        }
+    }
+
+    // Content block of a record, its declared length read and no further
+    private static final class Block extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+        private boolean truncated;
+
+        Block(InputStream in, long length) throws IOException {
+            if (length < 0)
+                throw new IOException("WARC record without a Content-Length");
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0)
+                return -1;
+            int c = in.read();
+            if (c < 0)
+                throw truncated();
+            remaining--;
+            return c;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0)
+                return -1;
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read < 0)
+                throw truncated();
+            remaining -= read;
+            return read;
+        }
+
+        void skipRest() throws IOException {
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    if (in.read() < 0)
+                        throw truncated();
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        private EOFException truncated() {
+            truncated = true;
+            return new EOFException("Archive ends within a record");
+        }
+
+        // Left open, the archive goes on after the block
+        @Override
+        public void close() {
+        }
+    }
+
+    // Body sent with Transfer-Encoding: chunked
+    private static final class ChunkedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long chunk;
+        private boolean done;
+
+        ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done)
+                return -1;
+            if (chunk == 0) {
+                String size = readLine(in);
+                if (size == null)
+                    return end();
+                int extension = size.indexOf(';');
+                try {
+                    chunk = Long.parseLong((extension >= 0 ? size.substring(0, extension) : size).trim(), 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid chunk size: " + size);
+                }
+                if (chunk == 0)
+                    return end();
+            }
+
+            int read = in.read(b, off, (int) Math.min(len, chunk));
+            if (read < 0)
+                return end();
+            chunk -= read;
+            // Line break after the chunk's data
+            if (chunk == 0)
+                readLine(in);
+            return read;
+        }
+
+        private int end() {
+            done = true;
+            return -1;
+        }
+    }
+}
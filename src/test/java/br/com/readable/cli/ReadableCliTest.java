@@ -0,0 +1,98 @@
+package br.com.readable.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import br.com.readable.warc.WarcReaderTest;
+
+import static org.junit.Assert.*;
+
+public class ReadableCliTest {
+
+    private Path dir;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("readable-cli");
+        Files.createDirectories(dir.resolve("pages/nested"));
+        try (InputStream in = getClass().getResourceAsStream("/germany_military.html")) {
+            Files.copy(in, dir.resolve("pages/nested/germany.html"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.write(dir.resolve("pages/notes.txt"), "not a page".getBytes(StandardCharsets.UTF_8));
+        String sample;
+        try (InputStream in = getClass().getResourceAsStream("/tm_sample1.html")) {
+            sample = IOUtils.toString(in, "UTF-8");
+        }
+        Files.write(dir.resolve("pages/crawl.warc.gz"), WarcReaderTest.warc(
+                WarcReaderTest.htmlResponse("http://a.org/", sample),
+                WarcReaderTest.response("http://b.org/", "HTTP/1.1 500 Error\r\nContent-Type: text/html\r\n",
+                        new byte[]{'x'})));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (java.util.stream.Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(java.util.Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private int run(String... args) {
+        return new ReadableCli(new PrintStream(out), new PrintStream(err)).run(args);
+    }
+
+    @Test
+    public void testDirectory() throws Exception {
+        assertEquals(0, run("-t", "2", "--unordered", dir.resolve("pages").toString()));
+
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(2, lines.length);
+        int pages = 0;
+        for (String line : lines) {
+            assertTrue(line, line.startsWith("{\"url\":\"") && line.endsWith("\"}"));
+            assertTrue(line, line.contains("\"images\":[") && line.contains(",\"text\":\""));
+            if (line.startsWith("{\"url\":\"http://a.org/\",") || line.contains("germany.html\",\"title\":\""))
+                pages++;
+        }
+        assertEquals(2, pages);
+        assertTrue(err.toString("UTF-8"), err.toString("UTF-8").startsWith("2 pages extracted, 0 failed, 0 skipped, 0 unreadable"));
+    }
+
+    @Test
+    public void testOutputFile() throws Exception {
+        Path output = dir.resolve("out.jsonl");
+        Path missing = dir.resolve("missing.html");
+        assertEquals(0, run("-f", "markdown", "-o", output.toString(), missing.toString(),
+                dir.resolve("pages/crawl.warc.gz").toString()));
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0), lines.get(0).startsWith("{\"url\":\"http://a.org/\""));
+        assertTrue(lines.get(0), lines.get(0).contains(",\"markdown\":\""));
+        assertEquals(0, out.size());
+        String stats = err.toString("UTF-8");
+        assertTrue(stats, stats.contains("Could not read " + missing));
+        assertTrue(stats, stats.contains("1 pages extracted, 0 failed, 0 skipped, 1 unreadable"));
+    }
+
+    @Test
+    public void testUsage() throws Exception {
+        assertEquals(2, run("--threads", "0", "x.html"));
+        assertEquals(2, run("--format", "pdf", "x.html"));
+        assertEquals(2, run("--bogus"));
+        assertEquals(2, run());
+        assertTrue(err.toString("UTF-8").contains("Usage: readable"));
+    }
+}
@@ -0,0 +1,222 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static br.com.readable.extractor.BatchPages.*;
+import static org.junit.Assert.*;
+
+public class AsyncExtractorTest {
+
+    @Test
+    public void testExtractAsync() throws Exception {
+        HtmlInput input = inputs(1).get(0);
+        try (AsyncExtractor async = AsyncExtractor.builder().parser(FAILING).threads(2).build()) {
+            ExtractionResult result = async.extractAsync(input).get(10, TimeUnit.SECONDS);
+            assertEquals(new ReadableContentExtractor().extractResult(input).getTitle(), result.getTitle());
+
+            try {
+                async.extractAsync(HtmlInput.of(new byte[0])).get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+    }
+
+    @Test
+    public void testProcessorFollowsDemand() throws Exception {
+        List<HtmlInput> inputs = inputs(12);
+        inputs.add(3, HtmlInput.of(new byte[0], "http://example.com/empty"));
+        Collector collector = new Collector();
+        ListPublisher publisher = new ListPublisher(inputs, null, collector);
+
+        try (AsyncExtractor async = AsyncExtractor.builder().parser(FAILING).threads(2).parallelism(3).build()) {
+            ExtractionProcessor processor = async.processor();
+            publisher.subscribe(processor);
+            processor.subscribe(collector);
+
+            // Two results asked for, two pages pulled and no more
+            collector.request(2);
+            collector.await(2);
+            Thread.sleep(50);
+            assertEquals(2, publisher.requested.get());
+
+            collector.request(Long.MAX_VALUE);
+            assertTrue(collector.done.await(30, TimeUnit.SECONDS));
+        }
+
+        assertNull(collector.error);
+        assertTrue(publisher.maxOutstanding <= 3);
+        assertEquals(inputs.size(), collector.results.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            BatchResult result = collector.results.get(i);
+            assertSame(inputs.get(i), result.getInput());
+            assertEquals(i != 3, result.isSuccess());
+        }
+    }
+
+    @Test
+    public void testUpstreamErrorFollowsResults() throws Exception {
+        List<HtmlInput> inputs = inputs(5);
+        IllegalStateException failure = new IllegalStateException("Source failed");
+        Collector collector = new Collector();
+        ListPublisher publisher = new ListPublisher(inputs, failure, collector);
+
+        try (AsyncExtractor async = AsyncExtractor.builder().threads(2).ordered(false).build()) {
+            ExtractionProcessor processor = async.processor();
+            processor.subscribe(collector);
+            publisher.subscribe(processor);
+            collector.request(Long.MAX_VALUE);
+            assertTrue(collector.done.await(30, TimeUnit.SECONDS));
+        }
+
+        assertSame(failure, collector.error);
+        Set<HtmlInput> received = new HashSet<>();
+        for (BatchResult result : collector.results) {
+            assertTrue(result.isSuccess());
+            received.add(result.getInput());
+        }
+        assertEquals(new HashSet<>(inputs), received);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Collector collector = new Collector();
+        ListPublisher publisher = new ListPublisher(inputs(20), null, collector);
+        try (AsyncExtractor async = AsyncExtractor.builder().threads(2).build()) {
+            ExtractionProcessor processor = async.processor();
+            publisher.subscribe(processor);
+            processor.subscribe(collector);
+            collector.request(1);
+            collector.await(1);
+            collector.subscription.cancel();
+            collector.request(5);
+            Thread.sleep(50);
+        }
+        assertTrue(publisher.cancelled);
+        assertEquals(1, collector.results.size());
+        assertEquals(1, publisher.requested.get());
+
+        // One subscriber per processor
+        Collector second = new Collector();
+        try (AsyncExtractor async = AsyncExtractor.builder().threads(1).build()) {
+            ExtractionProcessor processor = async.processor();
+            processor.subscribe(new Collector());
+            processor.subscribe(second);
+        }
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    // Emits on the thread that requests, completing or failing once the list is over. Keeps track of the most pages
+    // asked for and not yet delivered to the collector as results
+    private static final class ListPublisher implements ExtractionFlow.Publisher<HtmlInput> {
+
+        private final List<HtmlInput> items;
+        private final Throwable failure;
+        private final Collector collector;
+        private final AtomicInteger requested = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile int maxOutstanding;
+        private int emitted;
+        private long demand;
+        private boolean emitting;
+        private ExtractionFlow.Subscriber<? super HtmlInput> subscriber;
+
+        ListPublisher(List<HtmlInput> items, Throwable failure, Collector collector) {
+            this.items = items;
+            this.failure = failure;
+            this.collector = collector;
+        }
+
+        @Override
+        public void subscribe(ExtractionFlow.Subscriber<? super HtmlInput> subscriber) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(new ExtractionFlow.Subscription() {
+                @Override
+                public void request(long n) {
+                    int outstanding = requested.addAndGet((int) Math.min(n, 1000)) - collector.results.size();
+                    maxOutstanding = Math.max(maxOutstanding, outstanding);
+                    synchronized (ListPublisher.this) {
+                        demand += n;
+                        if (emitting)
+                            return;
+                        emitting = true;
+                    }
+                    emit();
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+
+        private void emit() {
+            while (true) {
+                synchronized (this) {
+                    if (demand == 0 || cancelled || emitted > items.size()) {
+                        emitting = false;
+                        return;
+                    }
+                    demand--;
+                }
+                if (emitted == items.size()) {
+                    emitted++;
+                    if (failure != null)
+                        subscriber.onError(failure);
+                    else
+                        subscriber.onComplete();
+                    return;
+                }
+                subscriber.onNext(items.get(emitted++));
+            }
+        }
+    }
+
+    private static final class Collector implements ExtractionFlow.Subscriber<BatchResult> {
+
+        private final List<BatchResult> results = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile ExtractionFlow.Subscription subscription;
+        private volatile Throwable error;
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 30000;
+            while (results.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, results.size());
+        }
+
+        @Override
+        public void onSubscribe(ExtractionFlow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(BatchResult item) {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static br.com.readable.extractor.BatchPages.*;
+import static org.junit.Assert.*;
+
+public class BatchExtractorTest {
+
+    @Test
+    public void testOrderedResults() throws Exception {
+        List<HtmlInput> inputs = inputs(16);
+        try (BatchExtractor batch = BatchExtractor.builder().threads(4).maxInFlight(6).build()) {
+            Iterator<BatchResult> results = batch.extract(inputs);
+            for (HtmlInput input : inputs) {
+                BatchResult result = results.next();
+                assertSame(input, result.getInput());
+                assertTrue(result.isSuccess());
+                assertNotNull(result.getContent());
+            }
+            assertFalse(results.hasNext());
+        }
+    }
+
+    @Test
+    public void testUnorderedStream() throws Exception {
+        List<HtmlInput> inputs = inputs(16);
+        try (BatchExtractor batch = BatchExtractor.builder().threads(4).ordered(false).virtualThreads().build();
+             Stream<BatchResult> results = batch.extract(inputs.stream())) {
+            Set<HtmlInput> seen = results.map(BatchResult::getInput).collect(Collectors.toSet());
+            assertEquals(new HashSet<>(inputs), seen);
+        }
+    }
+
+    @Test
+    public void testFailuresAreReturnedAsResults() throws Exception {
+        List<HtmlInput> inputs = inputs(4);
+        inputs.add(1, HtmlInput.of(new byte[0]));
+        try (BatchExtractor batch = BatchExtractor.builder().parser(FAILING).threads(2).build()) {
+            Iterator<BatchResult> results = batch.extract(inputs);
+            int failures = 0;
+            while (results.hasNext()) {
+                BatchResult result = results.next();
+                if (!result.isSuccess()) {
+                    failures++;
+                    assertTrue(result.getError() instanceof IOException);
+                    assertNull(result.getContent());
+                }
+            }
+            assertEquals(1, failures);
+        }
+    }
+
+    @Test
+    public void testInputsArePulledWithinTheWindow() throws Exception {
+        final List<HtmlInput> inputs = inputs(32);
+        final int[] pulled = {0};
+        Iterator<HtmlInput> counting = new Iterator<HtmlInput>() {
+            @Override
+            public boolean hasNext() {
+                return pulled[0] < inputs.size();
+            }
+
+            @Override
+            public HtmlInput next() {
+                return inputs.get(pulled[0]++);
+            }
+        };
+
+        try (BatchExtractor batch = BatchExtractor.builder().threads(2).maxInFlight(3).build()) {
+            Iterator<BatchResult> results = batch.extract(counting);
+            results.next();
+            assertTrue(pulled[0] <= 3);
+            results.next();
+            assertTrue(pulled[0] <= 4);
+        }
+    }
+
+    @Test
+    public void testInterruptCancelsUnorderedWindow() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger interrupted = new AtomicInteger();
+        HtmlDocumentParser blocking = new HtmlDocumentParser() {
+            @Override
+            public Document parse(HtmlInput input) throws IOException {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw new IOException("Interrupted");
+                }
+                return super.parse(input);
+            }
+        };
+
+        try (BatchExtractor batch = BatchExtractor.builder().parser(blocking).threads(2).ordered(false).build()) {
+            final Iterator<BatchResult> results = batch.extract(inputs(4));
+            final Throwable[] failure = new Throwable[1];
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        results.next();
+                    } catch (Throwable t) {
+                        failure[0] = t;
+                    }
+                }
+            });
+            consumer.start();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            consumer.interrupt();
+            consumer.join(10000);
+
+            // Both running extractions are interrupted, and the window is dropped
+            assertTrue(failure[0] instanceof CancellationException);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (interrupted.get() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(2, interrupted.get());
+            assertFalse(results.hasNext());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testClosingStreamCancelsWindow() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger interrupted = new AtomicInteger();
+        HtmlDocumentParser blocking = new HtmlDocumentParser() {
+            @Override
+            public Document parse(HtmlInput input) throws IOException {
+                // Only the first page goes through
+                if (!input.getBaseUri().endsWith("/0")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        interrupted.incrementAndGet();
+                        throw new IOException("Interrupted");
+                    }
+                }
+                return super.parse(input);
+            }
+        };
+
+        List<HtmlInput> inputs = inputs(8);
+        final AtomicInteger pulled = new AtomicInteger();
+        final boolean[] inputsClosed = {false};
+        try (BatchExtractor batch = BatchExtractor.builder().parser(blocking).threads(2).maxInFlight(2).build()) {
+            Stream<HtmlInput> source = inputs.stream().peek(input -> pulled.incrementAndGet())
+                    .onClose(() -> inputsClosed[0] = true);
+            try (Stream<BatchResult> results = batch.extract(source)) {
+                assertSame(inputs.get(0), results.findFirst().get().getInput());
+            }
+
+            // The consumer stopped after one result: the page still blocked is interrupted, no more are read
+            long deadline = System.currentTimeMillis() + 10000;
+            while (interrupted.get() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, interrupted.get());
+            assertTrue(pulled.get() <= 3);
+            assertTrue(inputsClosed[0]);
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.readable.extractor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.w3c.dom.Document;
+
+/**
+ * Pages and parsers shared by the tests of the batch and async extractors.
+ */
+final class BatchPages {
+
+    // Fails on empty pages and parses every other one
+    static final HtmlDocumentParser FAILING = new HtmlDocumentParser() {
+        @Override
+        public Document parse(HtmlInput input) throws IOException {
+            if (input.getBytes().length == 0)
+                throw new IOException("Empty page");
+            return super.parse(input);
+        }
+    };
+
+    private BatchPages() {
+    }
+
+    // The two sample pages in turn, each with a URI of its own
+    static List<HtmlInput> inputs(int count) throws IOException {
+        byte[][] pages = {load("/germany_military.html"), load("/tm_sample1.html")};
+        List<HtmlInput> inputs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            inputs.add(HtmlInput.of(pages[i % pages.length], "http://example.com/page/" + i));
+        }
+        return inputs;
+    }
+
+    private static byte[] load(String resource) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = BatchPages.class.getResourceAsStream(resource)) {
+            IOUtils.copy(in, out);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.readable.extractor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CharsetDetectorTest {
+
+    private static ByteBuffer bytes(String html) {
+        return ByteBuffer.wrap(html.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testByteOrderMarkWins() {
+        ByteBuffer utf8 = ByteBuffer.wrap(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<', 'p', '>'});
+        assertEquals("UTF-8", CharsetDetector.detect(utf8, "text/html; charset=ISO-8859-1"));
+        assertEquals(3, CharsetDetector.bomLength(utf8));
+
+        ByteBuffer utf16 = ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFE, '<', 0});
+        assertEquals("UTF-16LE", CharsetDetector.detect(utf16, null));
+        assertEquals(2, CharsetDetector.bomLength(utf16));
+    }
+
+    @Test
+    public void testContentTypeOverMeta() {
+        ByteBuffer html = bytes("<html><head><meta charset='windows-1252'></head></html>");
+        assertEquals("ISO-8859-1", CharsetDetector.detect(html, "text/html; charset=\"iso-8859-1\""));
+        assertEquals("windows-1252", CharsetDetector.detect(html, "text/html"));
+    }
+
+    @Test
+    public void testMetaDeclarations() {
+        assertEquals("ISO-8859-1", CharsetDetector.detect(bytes(
+                "<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=ISO-8859-1\">"), null));
+        assertEquals("UTF-8", CharsetDetector.detect(bytes("<meta charset=utf-16>"), null));
+        assertEquals("UTF-8", CharsetDetector.detect(bytes("<meta charset=no-such-charset>"), null));
+        assertEquals("UTF-8", CharsetDetector.detect(bytes("<body><meta charset=iso-8859-1>"), null));
+    }
+
+    @Test
+    public void testInputDecodesDetectedCharset() throws Exception {
+        byte[] html = "<html><head><meta charset='iso-8859-1'><title>Olá</title></head></html>"
+                .getBytes(StandardCharsets.ISO_8859_1);
+        HtmlInput input = HtmlInput.of(html);
+
+        assertEquals("ISO-8859-1", input.getCharset());
+        assertEquals("Olá", new MetadataExtractor().extract(input).getTitle());
+    }
+}
@@ -0,0 +1,159 @@
+package br.com.readable.extractor;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import static org.junit.Assert.*;
+
+public class CleaningPipelineTest {
+
+    private final ReadableContentExtractor extractor = new ReadableContentExtractor();
+
+    private static Element content(String html) throws Exception {
+        Document doc = new HtmlDocumentParser().parse("<html><body><div id='root'>" + html + "</div></body></html>",
+                "http://example.com/a/");
+        return (Element) doc.getElementsByTagName("body").item(0).getFirstChild();
+    }
+
+    private static String serialize(Node node) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(node), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private String clean(Element root, String title, String description, CleaningStage... stages) {
+        ExtractionContext ctx = extractor.newContext(root.getOwnerDocument());
+        CleaningPipeline.of(stages).run(new CleaningContext(ctx, extractor.getConfig(), root, title, description));
+        try {
+            return serialize(root);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void testDefaultPipelineFusesWalks() {
+        // One walk for the removals, one for the attribute rules, and the two tree stages
+        assertEquals(4, CleaningPipeline.DEFAULT.getPassCount());
+        assertEquals(9, CleaningPipeline.DEFAULT.getStages().size());
+
+        CleaningPipeline split = CleaningPipeline.builder()
+                .add(CleaningStages.cleanImages())
+                .newWalk()
+                .add(CleaningStages.cleanAttributes())
+                .build();
+        assertEquals(2, split.getPassCount());
+    }
+
+    @Test
+    public void testRemoveTags() throws Exception {
+        Element root = content("<p>Text<script>x()</script></p><form><input/></form><pre>code</pre>");
+        assertEquals("<div id=\"root\"><p>Text</p><pre>code</pre></div>",
+                clean(root, null, null, CleaningStages.removeTags("script", "form", "pre")));
+    }
+
+    @Test
+    public void testSmallTablesJudgedAfterJunk() throws Exception {
+        StringBuilder cells = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            cells.append("<td>").append(i).append("</td>");
+        }
+        Element root = content("<table id='big'><tr>" + cells + "</tr></table>"
+                + "<table id='small'><tr><td>a</td></tr></table>");
+        String cleaned = clean(root, null, null, CleaningStages.removeTags("form"), CleaningStages.removeSmallTables());
+        assertTrue(cleaned.contains("big"));
+        assertFalse(cleaned.contains("small"));
+    }
+
+    @Test
+    public void testBoilerplateDivsJudgedOnTheSameTree() throws Exception {
+        Element root = content("<div id='share'><div id='inner'><p>Text long enough to stay around</p></div></div>"
+                + "<div id='story'><p>Body</p></div>");
+        String cleaned = clean(root, null, null, CleaningStages.removeBoilerplateDivs());
+        assertFalse(cleaned.contains("share"));
+        assertFalse(cleaned.contains("inner"));
+        assertTrue(cleaned.contains("story"));
+    }
+
+    @Test
+    public void testImagesAndAttributes() throws Exception {
+        Element root = content("<img src='icon.png' width='16'/><img data-src='big.png' class='wide'/>"
+                + "<p style='x'>Some text that is long enough to be a paragraph</p><a href='javascript:go()'>go</a>");
+        ExtractionContext ctx = extractor.newContext(root.getOwnerDocument());
+        CleaningPipeline.of(CleaningStages.cleanImages(), CleaningStages.cleanAttributes())
+                .run(new CleaningContext(ctx, extractor.getConfig(), root, null, null));
+
+        assertEquals("<div id=\"root\"><img src=\"http://example.com/a/big.png\"/>"
+                + "<p>Some text that is long enough to be a paragraph</p><a>go</a></div>", serialize(root));
+        assertTrue(ctx.isImageBeforeText());
+    }
+
+    @Test
+    public void testStageOutsideAnExtraction() throws Exception {
+        Element root = content("<img src='big.png'/><p>Some text that is long enough to be a paragraph</p>");
+        CleaningContext ctx = new CleaningContext(ExtractorConfig.DEFAULT, root, null, null);
+        CleaningPipeline.of(CleaningStages.cleanAttributes()).run(ctx);
+        assertTrue(ctx.getExtraction().isImageBeforeText());
+        assertSame(root.getOwnerDocument(), ctx.getExtraction().getDocument());
+    }
+
+    @Test
+    public void testLegacyMethodsRunStages() throws Exception {
+        Element root = content("<table id='small'><tr><td>a</td></tr></table><form><input/></form>"
+                + "<div id='share'><p>Share this</p></div><div id='story'><p>Body</p></div>");
+        extractor.clean(root, "table", 8);
+        extractor.clean(root, "form");
+        extractor.killDivs(root);
+        assertEquals("<div id=\"root\"><div id=\"story\"><p>Body</p></div></div>", serialize(root));
+    }
+
+    @Test
+    public void testMoveLinksAndDuplicates() throws Exception {
+        Element root = content("<h1>Title</h1><p>Intro <a href='#top'>top</a></p><a href='#x'><h2>Title</h2></a>"
+                + "<p>Kept</p>");
+        assertEquals("<div id=\"root\"><p>Intro </p><p>Kept</p></div>", clean(root, "Title", null,
+                CleaningStages.removeMoveLinks(), CleaningStages.removeDuplicates()));
+    }
+
+    @Test
+    public void testCustomStage() throws Exception {
+        final List<String> seen = new ArrayList<>();
+        ElementStage dropAsides = new ElementStage() {
+            @Override
+            public Visitor begin(CleaningContext ctx) {
+                return new Visitor() {
+                    @Override
+                    public Verdict enter(Element element) {
+                        seen.add(element.getTagName());
+                        return "blockquote".equals(element.getTagName()) ? Verdict.REMOVE : Verdict.KEEP;
+                    }
+                };
+            }
+        };
+
+        ExtractorConfig config = ExtractorConfig.builder()
+                .cleaningPipeline(CleaningPipeline.DEFAULT.toBuilder().add(dropAsides).build())
+                .build();
+        Document doc = new HtmlDocumentParser().parse("<html><body><div class='content'>"
+                + "<p>A long enough paragraph, with commas, to be picked as the main content of the page.</p>"
+                + "<blockquote>Quoted</blockquote></div></body></html>", null);
+
+        Element main = new ReadableContentExtractor(config).getMainContent(doc, null, null);
+        assertEquals(0, main.getElementsByTagName("blockquote").getLength());
+        assertTrue(seen.contains("blockquote"));
+    }
+}
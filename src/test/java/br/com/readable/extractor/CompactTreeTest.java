@@ -0,0 +1,57 @@
+package br.com.readable.extractor;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.*;
+
+public class CompactTreeTest {
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    @Test
+    public void testPreOrderArrays() throws Exception {
+        Document doc = parse("<body><div> <p>one, two</p><!--c--><br/>tail</div><ARTICLE><a>x,</a></ARTICLE></body>");
+        CompactTree tree = new CompactTree(doc.getDocumentElement(), null);
+
+        // body, div, " ", p, "one, two", comment, br, "tail", ARTICLE, a, "x,"
+        assertEquals(11, tree.size());
+        assertEquals(10, tree.nodeCount());
+        short[] tags = {CompactTree.ELEMENT, CompactTree.DIV, CompactTree.TEXT, CompactTree.P, CompactTree.TEXT,
+                CompactTree.OTHER, CompactTree.BR, CompactTree.TEXT, CompactTree.ELEMENT, CompactTree.A, CompactTree.TEXT};
+        for (int ordinal = 0; ordinal < tags.length; ordinal++) {
+            assertEquals(tags[ordinal], tree.tag(ordinal));
+        }
+        assertTrue(tree.hasFlag(1, CompactTree.CONTAINER));
+        assertTrue(tree.hasFlag(8, CompactTree.CONTAINER));
+        assertFalse(tree.hasFlag(3, CompactTree.CONTAINER));
+
+        assertEquals(-1, tree.parent(0));
+        assertEquals(1, tree.parent(5));
+        assertEquals(3, tree.parent(4));
+        assertEquals(2, tree.firstChild(1));
+        assertEquals(3, tree.nextSibling(2));
+        assertEquals(5, tree.nextSibling(3));
+        assertEquals(-1, tree.nextSibling(7));
+        assertEquals(8, tree.nextSibling(1));
+        assertEquals(-1, tree.firstChild(6));
+
+        assertEquals(doc.getDocumentElement().getTextContent().length(), tree.textLength(0));
+        assertEquals(2, tree.commaCount(0));
+        assertEquals(1, tree.commaCount(8));
+
+        // Whitespace is not visible
+        assertEquals(4, tree.firstVisibleText(1));
+        assertEquals(10, tree.firstVisibleText(8));
+        assertEquals(-1, tree.firstVisibleText(6));
+        assertTrue(tree.hasFlag(1, CompactTree.DIRECT_VISIBLE));
+        assertFalse(tree.hasFlag(8, CompactTree.DIRECT_VISIBLE));
+    }
+}
@@ -0,0 +1,148 @@
+package br.com.readable.extractor;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.io.IOUtils;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.*;
+
+public class ContentSerializerTest {
+
+    private static Element parse(String xml) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+        return doc.getDocumentElement();
+    }
+
+    @Test
+    public void testHtml() throws Exception {
+        Element content = parse("<div class=\"a&quot;b\"><p>x &amp; y &lt; z</p><img src=\"i.png\"/><br/><!--c--></div>");
+        assertEquals("<div class=\"a&quot;b\"><p>x &amp; y &lt; z</p><img src=\"i.png\"><br></div>",
+                ContentSerializer.toHtml(content));
+    }
+
+    @Test
+    public void testText() throws Exception {
+        Element content = parse("<div> <h1>Title</h1><p>One   two\n three</p><p>Four<br/>five</p>"
+                + "<ul><li>a</li><li>b</li></ul><pre>  x\n  y</pre>tail </div>");
+        assertEquals("Title\n\nOne two three\n\nFour\nfive\n\na\nb\n\n  x\n  y\n\ntail", ContentSerializer.toText(content));
+    }
+
+    @Test
+    public void testMarkdown() throws Exception {
+        Element content = parse("<div><h2>Sub *title*</h2><p>Some <strong>bold</strong> and <em>soft</em> text,"
+                + " a <a href=\"http://x.org/a b\">link</a> and <code>a_b</code>.<br/>Next line</p>"
+                + "<blockquote><p>Quoted</p><p>twice</p></blockquote>"
+                + "<ul><li>one</li><li>two<ol><li>nested</li></ol></li></ul>"
+                + "<pre>if (a) {\n  b();\n}</pre><img src=\"i.png\" alt=\"pic\"/><p>- not a list</p></div>");
+        assertEquals("## Sub \\*title\\*\n\n"
+                + "Some **bold** and *soft* text, a [link](http://x.org/a%20b) and `a_b`.\\\nNext line\n\n"
+                + "> Quoted\n>\n> twice\n\n"
+                + "- one\n- two\n  1. nested\n\n"
+                + "```\nif (a) {\n  b();\n}\n```\n\n"
+                + "![pic](i.png)\n\n\\- not a list", ContentSerializer.toMarkdown(content));
+    }
+
+    @Test
+    public void testMarkdownCodeWithBackticks() throws Exception {
+        Element content = parse("<div><p>Run <code>a `b` *c*</code>, <code>`x</code> and <code>``</code></p>"
+                + "<pre>```\nfenced\n```</pre></div>");
+        assertEquals("Run ``a `b` *c*``, `` `x `` and ``` `` ```\n\n"
+                + "````\n```\nfenced\n```\n````", ContentSerializer.toMarkdown(content));
+    }
+
+    @Test
+    public void testResultFormats() throws Exception {
+        byte[] html;
+        try (InputStream in = getClass().getResourceAsStream("/germany_military.html")) {
+            html = IOUtils.toByteArray(in);
+        }
+        ExtractionResult result = new ReadableContentExtractor().extractResult(HtmlInput.of(html, "http://example.com/a"));
+
+        StringBuilder text = new StringBuilder();
+        ContentSerializer.writeText(result, text);
+        assertTrue(text.toString().startsWith(result.getTitle() + "\n\n" + result.getDescription() + "\n\n"));
+        assertTrue(text.toString().endsWith(ContentSerializer.toText(result.getContent())));
+
+        StringBuilder markdown = new StringBuilder();
+        ContentSerializer.writeMarkdown(result, markdown);
+        assertTrue(markdown.toString().startsWith("# " + result.getTitle() + "\n\n"));
+
+        StringBuilder images = new StringBuilder();
+        NodeList imgs = result.getContent().getElementsByTagName("img");
+        for (int i = 0; i < imgs.getLength(); i++) {
+            images.append(i > 0 ? "," : "").append('"').append(((Element) imgs.item(i)).getAttribute("src")).append('"');
+        }
+        String prefix = "{\"url\":\"http://example.com/a\",\"title\":\"" + result.getTitle() + "\",\"description\":\""
+                + result.getDescription() + "\",\"image\":" + (result.getImage() == null ? "null" : "\"" + result.getImage() + "\"")
+                + ",\"images\":[" + images + "],";
+
+        StringBuilder json = new StringBuilder();
+        ContentSerializer.writeJson(result, json);
+        assertEquals(prefix + "\"html\":\"" + jsonEscape(ContentSerializer.toHtml(result.getContent())) + "\"}", json.toString());
+
+        json.setLength(0);
+        ContentSerializer.writeJson(result, ContentFormat.TEXT, json);
+        assertEquals(prefix + "\"text\":\"" + jsonEscape(ContentSerializer.toText(result.getContent())) + "\"}", json.toString());
+    }
+
+    private static String jsonEscape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Test
+    public void testDestinationsAgree() throws Exception {
+        byte[] html;
+        try (InputStream in = getClass().getResourceAsStream("/germany_military.html")) {
+            html = IOUtils.toByteArray(in);
+        }
+        Element article = new ReadableContentExtractor().extract(html);
+
+        String expected = ContentSerializer.toHtml(article);
+        StringWriter writer = new StringWriter();
+        ContentSerializer.writeHtml(article, writer);
+        assertEquals(expected, writer.toString());
+
+        byte[] utf8 = expected.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(utf8.length);
+        ContentSerializer.writeHtml(article, buffer);
+        assertEquals(utf8.length, buffer.position());
+        assertArrayEquals(utf8, buffer.array());
+
+        String text = ContentSerializer.toText(article);
+        buffer = ByteBuffer.allocate(text.length() * 3);
+        ContentSerializer.writeText(article, buffer);
+        assertEquals(text, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+
+        try {
+            ContentSerializer.writeHtml(article, ByteBuffer.allocate(utf8.length - 1));
+            fail();
+        } catch (BufferOverflowException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testUtf8() throws Exception {
+        Element content = parse("<p>aé€𝄞</p>");
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        ContentSerializer.writeText(content, buffer);
+        byte[] expected = "aé€𝄞".getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, buffer.position());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], buffer.get(i));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.readable.extractor;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.*;
+
+public class ElementIndexTest {
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    @Test
+    public void testCountsMatchGetElementsByTagName() throws Exception {
+        Document doc = parse("<div id='root'><div id='a'><p>x</p><p><a>y</a><img/></p></div>"
+                + "<div id='b'><ul><li/><li/></ul><!-- sphereit start --><table><tr><td/><td/></tr></table></div></div>");
+        Element root = doc.getDocumentElement();
+        ElementIndex index = new ElementIndex(root, KeywordMatcher.of("sphereit"));
+
+        for (String id : new String[]{"root", "a", "b"}) {
+            Element el = id.equals("root") ? root : find(doc, id);
+            for (String tag : ElementIndex.TAGS) {
+                assertEquals(id + "/" + tag, el.getElementsByTagName(tag).getLength(), index.count(el, tag));
+            }
+        }
+
+        assertTrue(index.hasMatchingComment(root));
+        assertTrue(index.hasMatchingComment(find(doc, "b")));
+        assertFalse(index.hasMatchingComment(find(doc, "a")));
+        assertEquals(2, index.elements("p").size());
+    }
+
+    @Test
+    public void testRemoveUpdatesAncestors() throws Exception {
+        Document doc = parse("<div><div id='a'><form id='f'><p>ab</p><p/><form id='g'><p/></form></form><p>cde</p></div></div>");
+        Element root = doc.getDocumentElement();
+        ElementIndex index = new ElementIndex(root, null);
+
+        // Removing a nested element after its ancestor must not discount it twice
+        Element outer = find(doc, "f");
+        Element inner = find(doc, "g");
+        index.remove(outer);
+        index.remove(inner);
+
+        assertEquals(1, index.count(root, "p"));
+        assertEquals(1, index.count(find(doc, "a"), "p"));
+        assertEquals(1, root.getElementsByTagName("p").getLength());
+        assertEquals(3, index.textLength(root));
+    }
+
+    private static Element find(Document doc, String id) {
+        for (String tag : new String[]{"div", "form"}) {
+            for (int i = 0; i < doc.getElementsByTagName(tag).getLength(); i++) {
+                Element el = (Element) doc.getElementsByTagName(tag).item(i);
+                if (id.equals(el.getAttribute("id")))
+                    return el;
+            }
+        }
+        throw new IllegalArgumentException(id);
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.readable.extractor;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.Assert.*;
+
+public class ExtractionBudgetTest {
+
+    private static Document page(int divs, int depth) throws Exception {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < divs; i++) {
+            html.append("<div class='d").append(i).append("'><p>Paragraph ").append(i)
+                    .append(", with enough text in it to be worth a score of its own.</p></div>");
+        }
+        for (int i = 0; i < depth; i++) {
+            html.append("<div>");
+        }
+        html.append("deep");
+        for (int i = 0; i < depth; i++) {
+            html.append("</div>");
+        }
+        return new HtmlDocumentParser().parse(html.append("</body></html>").toString(), null);
+    }
+
+    private static BudgetExceededException.Limit exceeded(ExtractionBudget budget, Document doc) {
+        try {
+            new ReadableContentExtractor(ExtractorConfig.builder().budget(budget).build()).extract(doc);
+            fail("Budget not enforced");
+            return null;
+        } catch (BudgetExceededException e) {
+            return e.getLimit();
+        }
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        assertEquals(BudgetExceededException.Limit.NODES,
+                exceeded(ExtractionBudget.builder().maxNodes(100).build(), page(100, 0)));
+        assertEquals(BudgetExceededException.Limit.DEPTH,
+                exceeded(ExtractionBudget.builder().maxDepth(50).build(), page(1, 100)));
+        assertEquals(BudgetExceededException.Limit.CANDIDATES,
+                exceeded(ExtractionBudget.builder().maxCandidates(10).build(), page(20, 0)));
+        assertEquals(BudgetExceededException.Limit.TIME,
+                exceeded(ExtractionBudget.builder().maxTime(1, TimeUnit.NANOSECONDS).build(), page(200, 0)));
+
+        // Within budget, nothing changes
+        ExtractionBudget roomy = ExtractionBudget.builder().maxNodes(10000).maxDepth(200).maxCandidates(100)
+                .maxTime(1, TimeUnit.MINUTES).build();
+        assertNotNull(new ReadableContentExtractor(ExtractorConfig.builder().budget(roomy).build()).extract(page(20, 100)));
+    }
+
+    @Test
+    public void testCandidatesCountedOnce() throws Exception {
+        StringBuilder html = new StringBuilder("<html><body><div class='main'><p>The article, with enough text in it"
+                + " to be worth a score of its own.</p></div><div class='comments'>");
+        for (int i = 0; i < 20; i++) {
+            html.append("<p>Nice, ").append(i).append("</p>");
+        }
+        Document doc = new HtmlDocumentParser().parse(html.append("</div></body></html>").toString(), null);
+
+        // The comments keep a negative score through all of their paragraphs, and are still one candidate
+        ExtractionBudget budget = ExtractionBudget.builder().maxCandidates(5).build();
+        Element main = new ReadableContentExtractor(ExtractorConfig.builder().budget(budget).build()).extract(doc);
+        assertTrue(main.getTextContent().contains("The article"));
+    }
+
+    @Test
+    public void testInterruptCancels() throws Exception {
+        Document doc = page(300, 0);
+        Thread.currentThread().interrupt();
+        try {
+            new ReadableContentExtractor().extract(doc);
+            fail("Interrupt not honored");
+        } catch (CancellationException e) {
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.readable.extractor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ExtractionStatsTest {
+
+    @Test
+    public void testEveryPhaseIsReported() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = this.getClass().getResourceAsStream("/germany_military.html")) {
+            IOUtils.copy(in, out);
+        }
+
+        ExtractionStats stats = new ExtractionStats();
+        ReadableContentExtractor extractor = new ReadableContentExtractor(
+                ExtractorConfig.builder().listener(stats).build());
+        extractor.extract(HtmlInput.of(out.toByteArray(), "http://www.bbc.co.uk/portuguese/"));
+
+        for (ExtractionPhase phase : ExtractionPhase.values()) {
+            assertEquals(phase.name(), 1, stats.getPhase(phase).getCount());
+        }
+        assertEquals(CleaningPipeline.DEFAULT.getPassCount(), stats.getCleaningPasses().size());
+        assertTrue(stats.getNodesVisited(ExtractionPhase.SCORE) > stats.getNodesVisited(ExtractionPhase.CLEAN));
+        assertTrue(stats.getNodesVisited(ExtractionPhase.CLEAN) > 0);
+        assertTrue(stats.getCandidatesScored() > 0);
+        assertEquals(1, stats.getOutputBytes().getCount());
+
+        Map<String, Long> removed = stats.getNodesRemoved();
+        assertTrue(removed.containsKey("removeBoilerplateDivs"));
+        assertTrue(removed.containsKey("removeTags[aside, button, font, form, hr, iframe, nav, script]"));
+        assertFalse(removed.containsKey("normalize"));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+        assertEquals(500, histogram.getPercentile(50), 500 / 8);
+        assertEquals(990, histogram.getPercentile(99), 990 / 8);
+        assertTrue(histogram.getMax() >= 1000);
+        assertEquals(1, histogram.getPercentile(0));
+
+        for (long value : new long[]{0, 15, 16, 17, 1000, Long.MAX_VALUE}) {
+            assertTrue(Histogram.upperBound(Histogram.bucketOf(value)) >= value);
+        }
+    }
+}
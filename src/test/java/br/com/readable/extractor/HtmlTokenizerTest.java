@@ -0,0 +1,51 @@
+package br.com.readable.extractor;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import static br.com.readable.extractor.HtmlTokenizer.Token.*;
+import static org.junit.Assert.*;
+
+public class HtmlTokenizerTest {
+
+    @Test
+    public void testTokens() throws Exception {
+        String html = "<!DOCTYPE html><DIV Class=\"a b\" id=x data-y='1 > 0'>Hi, <br/>there<!-- note --></div>"
+                + "<script>if (a < b) { x = '</div>'; }</script><p>a < b</p>";
+        HtmlTokenizer tokenizer = new HtmlTokenizer(new StringReader(html));
+
+        assertEquals(OTHER, tokenizer.next());
+        assertEquals(START_TAG, tokenizer.next());
+        assertEquals("div", tokenizer.getTagName());
+        assertEquals("a b", tokenizer.getAttribute("class"));
+        assertEquals("x", tokenizer.getAttribute("id"));
+        assertEquals("1 > 0", tokenizer.getAttribute("data-y"));
+        assertEquals(html.indexOf("<DIV"), tokenizer.getStart());
+        assertEquals(html.indexOf("Hi"), tokenizer.getEnd());
+
+        assertEquals(TEXT, tokenizer.next());
+        assertEquals("Hi, ", tokenizer.getText().toString());
+        assertEquals(START_TAG, tokenizer.next());
+        assertTrue(tokenizer.isSelfClosing());
+        assertEquals(TEXT, tokenizer.next());
+        assertEquals(COMMENT, tokenizer.next());
+        assertEquals(" note ", tokenizer.getText().toString());
+        assertEquals(END_TAG, tokenizer.next());
+        assertEquals("div", tokenizer.getTagName());
+
+        // Script content is text up to its own end tag
+        assertEquals(START_TAG, tokenizer.next());
+        assertEquals(TEXT, tokenizer.next());
+        assertEquals("if (a < b) { x = '</div>'; }", tokenizer.getText().toString());
+        assertEquals(END_TAG, tokenizer.next());
+        assertEquals("script", tokenizer.getTagName());
+
+        assertEquals(START_TAG, tokenizer.next());
+        assertEquals(TEXT, tokenizer.next());
+        assertEquals("a < b", tokenizer.getText().toString());
+        assertEquals(END_TAG, tokenizer.next());
+        assertEquals(html.length(), tokenizer.getEnd());
+        assertEquals(EOF, tokenizer.next());
+    }
+}
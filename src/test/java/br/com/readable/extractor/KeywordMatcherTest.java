@@ -0,0 +1,52 @@
+package br.com.readable.extractor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeywordMatcherTest {
+
+    @Test
+    public void testFindsAnyKeywordIgnoringCase() {
+        KeywordMatcher matcher = KeywordMatcher.of("post", "entry", "content", "comment");
+        assertTrue(matcher.find("main-Content"));
+        assertTrue(matcher.find("ENTRY"));
+        assertTrue(matcher.find("xx-posting"));
+        assertTrue(matcher.find("commcomment"));
+        assertFalse(matcher.find("sidebar"));
+        assertFalse(matcher.find("conten"));
+        assertFalse(matcher.find(""));
+        assertFalse(matcher.find(null));
+    }
+
+    @Test
+    public void testOverlappingKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.of("coment", "comment", "koment", "komment");
+        assertTrue(matcher.find("kommentar"));
+        assertTrue(matcher.find("xkomentx"));
+        assertFalse(matcher.find("comet"));
+    }
+
+    @Test
+    public void testAnchoredKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.of("^ad", "menu");
+        assertTrue(matcher.find("ad-banner"));
+        assertTrue(matcher.find("Advert"));
+        assertFalse(matcher.find("head"));
+        assertFalse(matcher.find("a"));
+        assertTrue(matcher.find("headmenu"));
+    }
+
+    @Test
+    public void testNonAsciiKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.of("notícia", "Статья");
+        assertTrue(matcher.find("bloco-NOTÍCIA"));
+        assertTrue(matcher.find("статья"));
+        assertFalse(matcher.find("noticia"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyKeywords() {
+        KeywordMatcher.of("post", "^");
+    }
+}
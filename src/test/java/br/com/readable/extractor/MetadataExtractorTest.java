@@ -0,0 +1,68 @@
+package br.com.readable.extractor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetadataExtractorTest {
+
+    private static byte[] load(String resource) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = MetadataExtractorTest.class.getResourceAsStream(resource)) {
+            IOUtils.copy(in, out);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testOpenGraphMetadata() throws Exception {
+        PageMetadata metadata = new MetadataExtractor().extract(load("/germany_military.html"));
+
+        assertEquals("Germany Is Sending a Military Training Mission to Northern Iraq", metadata.getTitle());
+        assertEquals("Germany Is Sending a Military Training Mission to Northern Iraq - NYTimes.com",
+                metadata.getDocumentTitle());
+        assertTrue(metadata.getDescription().startsWith("The foreign minister said the move"));
+        assertEquals("article", metadata.get("og:type"));
+    }
+
+    @Test
+    public void testDocumentTitleFallback() throws Exception {
+        PageMetadata metadata = new MetadataExtractor().extract(load("/tm_sample1.html"));
+
+        assertEquals("Update auf Serendipity 0.8.1. | Nur ein Blog", metadata.getTitle());
+        assertNull(metadata.getImage());
+    }
+
+    @Test
+    public void testStopsAtEndOfHead() throws Exception {
+        String html = "<html><head><title> A &amp;\n B </title>"
+                + "<meta property='og:image' content='/a.png'><meta property='og:image' content='/b.png'>"
+                + "<meta name='twitter:description' content='Tweet &quot;text&quot;'></head>"
+                + "<body><meta property='og:title' content='In the body'></body></html>";
+        PageMetadata metadata = new MetadataExtractor().extract(html.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("A & B", metadata.getTitle());
+        assertEquals("Tweet \"text\"", metadata.getDescription());
+        assertEquals("/a.png", metadata.getImage());
+        assertEquals(2, metadata.getAll("og:image").size());
+        assertNull(metadata.get("og:title"));
+    }
+
+    @Test
+    public void testBodyIsNotRead() throws Exception {
+        byte[] head = "<html><head><title>Head</title></head>".getBytes(StandardCharsets.UTF_8);
+        byte[] html = new byte[head.length + 1 << 20];
+        System.arraycopy(head, 0, html, 0, head.length);
+        ByteArrayInputStream in = new ByteArrayInputStream(html);
+
+        assertEquals("Head", new MetadataExtractor().extract(in, "UTF-8").getTitle());
+        assertTrue(in.available() > 0);
+    }
+}
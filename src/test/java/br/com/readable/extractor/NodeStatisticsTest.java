@@ -0,0 +1,39 @@
+package br.com.readable.extractor;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.*;
+
+public class NodeStatisticsTest {
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    @Test
+    public void testSubtreeStatistics() throws Exception {
+        Document doc = parse("<div>  <p>one, two, three</p><div> <a>link, text</a></div></div>");
+        Element root = doc.getDocumentElement();
+        Element inner = (Element) root.getElementsByTagName("div").item(0);
+        NodeStatistics stats = new NodeStatistics(root);
+
+        assertEquals(root.getTextContent().length(), stats.textLength(root));
+        assertEquals(3, stats.commaCount(root));
+        assertEquals("link, text".length(), stats.linkTextLength(root));
+        assertEquals(1, stats.commaCount(inner));
+
+        // Whitespace and non-breaking spaces are not visible
+        assertTrue(stats.hasVisibleChar(inner));
+        assertFalse(stats.hasVisibleOwnText(inner));
+        assertFalse(stats.hasVisibleOwnText(root));
+        assertEquals("one, two, three", stats.firstVisibleText(root).getData());
+        assertEquals("link, text", stats.firstVisibleText(inner).getData());
+    }
+}
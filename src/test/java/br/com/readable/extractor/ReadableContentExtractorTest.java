@@ -1,6 +1,15 @@
 package br.com.readable.extractor;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 
@@ -11,6 +20,8 @@ import org.htmlcleaner.TagNode;
 import org.junit.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
@@ -18,6 +29,8 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
+import static org.junit.Assert.*;
+
 public class ReadableContentExtractorTest {
 
     private final static CleanerProperties props = new CleanerProperties();
@@ -75,4 +88,259 @@ public class ReadableContentExtractorTest {
         FileUtils.writeStringToFile(htmlFile, writer.toString());
         Desktop.getDesktop().browse(htmlFile.toURI());*/
     }
+
+    @Test
+    public void testSharedExtractorAcrossThreads() throws Exception {
+        final ReadableContentExtractor extractor = new ReadableContentExtractor();
+        String[] pages = {"/germany_military.html", "/tm_sample1.html"};
+
+        List<String> expected = new ArrayList<>();
+        for (String page : pages) {
+            expected.add(serialize(extractor.extract(parse(page))));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final Document document = parse(pages[i % pages.length]);
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return serialize(extractor.extract(document));
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(expected.get(i % pages.length), futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRawInputEntryPoints() throws Exception {
+        ReadableContentExtractor extractor = new ReadableContentExtractor();
+        Path file = Paths.get(getClass().getResource("/germany_military.html").toURI());
+        byte[] html = Files.readAllBytes(file);
+        String expected = serialize(extractor.extract(new HtmlDocumentParser().parse(HtmlInput.of(html, "UTF-8", null))));
+
+        assertEquals(expected, serialize(extractor.extract(html)));
+        try (InputStream in = getClass().getResourceAsStream("/germany_military.html")) {
+            assertEquals(expected, serialize(extractor.extract(in)));
+        }
+        // Large enough to be memory-mapped
+        assertEquals(expected, serialize(extractor.extract(file)));
+    }
+
+    @Test
+    public void testPreserveDocument() throws Exception {
+        ReadableContentExtractor destructive = new ReadableContentExtractor();
+        ReadableContentExtractor preserving = new ReadableContentExtractor(
+                ExtractorConfig.builder().preserveDocument(true).build());
+
+        for (String page : new String[]{"/germany_military.html", "/tm_sample1.html"}) {
+            Document document = parse(page);
+            String before = serialize(document);
+
+            String expected = serialize(destructive.extract(parse(page)));
+            assertEquals(expected, serialize(preserving.extract(document)));
+            assertEquals(before, serialize(document));
+
+            // The same document can be extracted again
+            assertEquals(expected, serialize(preserving.extract(document)));
+        }
+
+        String html = "<html><body><div class='story'>First line, with a comma, and enough text to score.<br>"
+                + "Second line, also long enough to count for something.<br><br>Third</div>"
+                + "<div><div><p>A paragraph that is long enough, with commas, to score both levels.</p></div>"
+                + "<br><p>After a break, long enough to score on its own, and with a comma.</p></div></body></html>";
+        HtmlDocumentParser parser = new HtmlDocumentParser();
+        Document document = parser.parse(html, null);
+        String before = serialize(document);
+        assertEquals(serialize(destructive.getMainContent(parser.parse(html, null), null, null)),
+                serialize(preserving.getMainContent(document, null, null)));
+        assertEquals(before, serialize(document));
+    }
+
+    @Test
+    public void testRankCandidates() throws Exception {
+        ReadableContentExtractor destructive = new ReadableContentExtractor();
+        ReadableContentExtractor preserving = new ReadableContentExtractor(
+                ExtractorConfig.builder().preserveDocument(true).build());
+
+        for (String page : new String[]{"/germany_military.html", "/tm_sample1.html"}) {
+            List<Candidate> candidates = destructive.rankCandidates(parse(page), 5);
+            assertFalse(candidates.isEmpty());
+            assertTrue(candidates.size() <= 5);
+            for (int i = 0; i < candidates.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                assertEquals(candidate.toString(), candidate.getScore(), candidate.getClassIdScore()
+                        + candidate.getLengthScore() + candidate.getCommaScore() + candidate.getGrandparentScore());
+                if (i > 0)
+                    assertTrue(candidates.get(i - 1).getScore() >= candidate.getScore());
+            }
+
+            // The best candidate cleans up to the main content, and the runner-up can be tried after it
+            String expected = serialize(destructive.getMainContent(parse(page), null, null));
+            assertEquals(expected, serialize(destructive.getMainContent(candidates.get(0), null, null)));
+            assertEquals(expected, serialize(destructive.getMainContent(candidates.get(0), null, null)));
+            if (candidates.size() > 1)
+                assertNotNull(destructive.getMainContent(candidates.get(1), null, null));
+
+            Document document = parse(page);
+            String before = serialize(document);
+            List<Candidate> readOnly = preserving.rankCandidates(document, 5);
+            assertEquals(before, serialize(document));
+            assertEquals(candidates.size(), readOnly.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                assertEquals(candidates.get(i).toString(), readOnly.get(i).toString());
+            }
+            assertEquals(expected, serialize(preserving.getMainContent(readOnly.get(0), null, null)));
+            assertEquals(before, serialize(document));
+        }
+    }
+
+    @Test
+    public void testDetachedResult() throws Exception {
+        ReadableContentExtractor extractor = new ReadableContentExtractor();
+        Document document = parse("/germany_military.html");
+        String expected = serialize(extractor.extract(parse("/germany_military.html")));
+
+        ExtractionResult result = extractor.extractResult(document);
+        assertEquals(expected, serialize(result.getArticle()));
+        assertNotSame(document, result.getDocument());
+        assertSame(result.getDocument(), result.getContent().getOwnerDocument());
+        assertSame(result.getArticle(), result.getDocument().getDocumentElement());
+        assertEquals("Germany Is Sending a Military Training Mission to Northern Iraq", result.getTitle());
+        assertTrue(result.getDescription().startsWith("The foreign minister"));
+    }
+
+    @Test
+    public void testDeeplyNestedPage() throws Exception {
+        final Document document = javax.xml.parsers.DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element html = (Element) document.appendChild(document.createElement("html"));
+        Element current = (Element) html.appendChild(document.createElement("body"));
+        for (int i = 0; i < 10000; i++) {
+            current = (Element) current.appendChild(document.createElement("div"));
+            if (i % 500 == 0)
+                current.appendChild(document.createElement("br"));
+        }
+        current.appendChild(document.createElement("p")).setTextContent("Deep down, a paragraph with enough text, and commas.");
+
+        // A small stack, as virtual threads start with
+        final Element[] main = new Element[1];
+        final Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    main[0] = new ReadableContentExtractor().extract(document);
+                } catch (Throwable t) {
+                    failure[0] = t;
+                }
+            }
+        }, "deep", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        assertNull(failure[0]);
+        // The content itself is too deep for getTextContent, which recurses
+        NodeList paragraphs = main[0].getElementsByTagName("p");
+        assertTrue(paragraphs.item(paragraphs.getLength() - 1).getTextContent().contains("Deep down"));
+    }
+
+    @Test
+    public void testCollapseKeepsEveryChildOnce() throws Exception {
+        String html = "<html><body><div class=\"content\"><p><b>Bold</b>Alpha, beta, gamma, delta, epsilon, zeta"
+                + " and eta<i>I</i>tail two</p></div></body></html>";
+        Element main = new ReadableContentExtractor().extract(html.getBytes("UTF-8"));
+
+        NodeList paragraphs = main.getElementsByTagName("p");
+        assertEquals(1, paragraphs.getLength());
+        assertEquals("BoldAlpha, beta, gamma, delta, epsilon, zeta and etaItail two", paragraphs.item(0).getTextContent());
+        assertEquals(1, main.getElementsByTagName("b").getLength());
+        assertEquals(1, main.getElementsByTagName("i").getLength());
+    }
+
+    @Test
+    public void testLengthScoring() throws Exception {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            words.append("word ");
+        }
+        String html = "<html><body>"
+                + "<div id=\"long\"><p>" + words + "</p></div>"
+                + "<div id=\"short\"><p>One, two, three</p><p>Four, five, six</p></div>"
+                + "</body></html>";
+
+        // Lengths count as 0 by default, as they always did: the commas win
+        Element main = new ReadableContentExtractor().extract(html.getBytes("UTF-8"));
+        assertTrue(main.getTextContent(), main.getTextContent().contains("Four, five, six"));
+        assertFalse(main.getTextContent().contains("word"));
+
+        // The long paragraph's bonus outweighs them once lengths are scored
+        ExtractorConfig config = ExtractorConfig.builder().lengthScoring(true).build();
+        main = new ReadableContentExtractor(config).extract(html.getBytes("UTF-8"));
+        assertTrue(main.getTextContent(), main.getTextContent().contains("word word"));
+        assertFalse(main.getTextContent().contains("Four"));
+    }
+
+    @Test
+    public void testDeeplyNestedBytes() throws Exception {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 5000; i++) {
+            html.append("<div>");
+        }
+        html.append("<p>Deep down, a paragraph with enough text, and commas.</p>");
+        for (int i = 0; i < 5000; i++) {
+            html.append("</div>");
+        }
+        final byte[] page = html.append("</body></html>").toString().getBytes("UTF-8");
+
+        // Parsed, converted to a DOM and extracted on a small stack
+        final Element[] main = new Element[1];
+        final Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    main[0] = new ReadableContentExtractor().extract(page);
+                } catch (Throwable t) {
+                    failure[0] = t;
+                }
+            }
+        }, "deep", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        assertNull(failure[0]);
+        NodeList paragraphs = main[0].getElementsByTagName("p");
+        assertTrue(paragraphs.item(paragraphs.getLength() - 1).getTextContent().contains("Deep down"));
+    }
+
+    private Document parse(String resource) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(InputStream in = this.getClass().getResourceAsStream(resource)){
+            IOUtils.copy(in, out);
+        }
+
+        TagNode node = new HtmlCleaner(props).clean(new ByteArrayInputStream(out.toByteArray()), "UTF-8");
+        try {
+            Document document = new DomSerializer(new CleanerProperties(), false).createDOM(node);
+            document.setDocumentURI("http://www.bbc.co.uk/portuguese/noticias/2015/02/150203_presa_indonesia_brasil_pai");
+            return document;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String serialize(Node node) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(node), new StreamResult(writer));
+        return writer.toString();
+    }
 }
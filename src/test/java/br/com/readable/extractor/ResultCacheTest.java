@@ -0,0 +1,165 @@
+package br.com.readable.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    private static HtmlInput page(String story) {
+        String html = "<html><head><title>t</title></head><body><div class='story'><p>" + story
+                + ", lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor.</p></div></body></html>";
+        return HtmlInput.of(html.getBytes(StandardCharsets.UTF_8), "http://example.com/");
+    }
+
+    private static class CountingParser extends HtmlDocumentParser {
+
+        final AtomicInteger parsed = new AtomicInteger();
+
+        @Override
+        public Document parse(HtmlInput input) throws IOException {
+            parsed.incrementAndGet();
+            return super.parse(input);
+        }
+    }
+
+    @Test
+    public void testIdenticalPagesSkipParsing() throws Exception {
+        MemoryResultCache cache = new MemoryResultCache(1 << 20);
+        CountingParser parser = new CountingParser();
+        ReadableContentExtractor extractor = new ReadableContentExtractor(
+                ExtractorConfig.builder().resultCache(cache).build(), parser);
+
+        ExtractionResult first = extractor.extractResult(page("first"));
+        ExtractionResult again = extractor.extractResult(page("first"));
+        extractor.extractResult(page("second"));
+
+        assertEquals(2, parser.parsed.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(first.getArticle().getTextContent(), again.getArticle().getTextContent());
+        assertNotSame(first.getArticle(), again.getArticle());
+        assertSame(again.getDocument(), again.getContent().getOwnerDocument());
+
+        // Changing a returned result leaves the cached one alone
+        again.getContent().setTextContent("changed");
+        assertEquals(first.getContent().getTextContent(), extractor.extractResult(page("first")).getContent().getTextContent());
+    }
+
+    @Test
+    public void testKeyCoversSettingsAndBaseUri() {
+        HtmlInput input = page("x");
+        ExtractorConfig other = ExtractorConfig.builder().minImageSize(10).build();
+
+        assertEquals(ResultKey.of(input, ExtractorConfig.DEFAULT), ResultKey.of(page("x"), ExtractorConfig.DEFAULT));
+        assertNotEquals(ResultKey.of(input, ExtractorConfig.DEFAULT), ResultKey.of(input, other));
+        assertNotEquals(ResultKey.of(input, ExtractorConfig.DEFAULT),
+                ResultKey.of(HtmlInput.of(input.getBytes(), "http://example.org/"), ExtractorConfig.DEFAULT));
+        assertNotEquals(ResultKey.of(input, ExtractorConfig.DEFAULT), ResultKey.of(page("y"), ExtractorConfig.DEFAULT));
+    }
+
+    @Test
+    public void testEvictsByWeight() throws Exception {
+        ReadableContentExtractor extractor = new ReadableContentExtractor();
+        ExtractionResult result = extractor.extractResult(page("a"));
+        long weight = MemoryResultCache.weigh(result);
+
+        MemoryResultCache cache = new MemoryResultCache(weight * 2);
+        cache.put(ResultKey.of(page("a"), ExtractorConfig.DEFAULT), result);
+        cache.put(ResultKey.of(page("b"), ExtractorConfig.DEFAULT), extractor.extractResult(page("b")));
+        assertNotNull(cache.get(ResultKey.of(page("a"), ExtractorConfig.DEFAULT)));
+        cache.put(ResultKey.of(page("c"), ExtractorConfig.DEFAULT), extractor.extractResult(page("c")));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getWeight() <= weight * 2);
+        assertNull(cache.get(ResultKey.of(page("b"), ExtractorConfig.DEFAULT)));
+    }
+
+    @Test
+    public void testTiersPromoteHits() throws Exception {
+        MemoryResultCache near = new MemoryResultCache(1 << 20);
+        MemoryResultCache far = new MemoryResultCache(1 << 20);
+        ResultCache tiered = ResultCache.tiered(near, far);
+        ResultKey key = ResultKey.of(page("a"), ExtractorConfig.DEFAULT);
+
+        far.put(key, new ReadableContentExtractor().extractResult(page("a")));
+        assertNotNull(tiered.get(key));
+        assertEquals(1, near.size());
+        assertNotNull(tiered.get(key));
+        assertEquals(1, far.getHits());
+        assertEquals(1, near.getHits());
+    }
+
+    @Test
+    public void testResultsRebuiltFromStoredParts() throws Exception {
+        ResultCache stored = new SerializingCache();
+        ReadableContentExtractor extractor = new ReadableContentExtractor(
+                ExtractorConfig.builder().resultCache(stored).build());
+        byte[] html;
+        try (InputStream in = getClass().getResourceAsStream("/germany_military.html")) {
+            html = IOUtils.toByteArray(in);
+        }
+
+        ExtractionResult first = extractor.extractResult(HtmlInput.of(html, "http://example.com/"));
+        ExtractionResult again = extractor.extractResult(HtmlInput.of(html, "http://example.com/"));
+        assertEquals(serialize(first.getArticle()), serialize(again.getArticle()));
+        assertEquals(first.getImage(), again.getImage());
+        assertSame(again.getDocument(), again.getContent().getOwnerDocument());
+        assertSame(again.getArticle(), again.getDocument().getDocumentElement());
+    }
+
+    // Keeps every result as strings, the way a tier outside the heap would
+    private static final class SerializingCache implements ResultCache {
+
+        private final Map<ResultKey, String[]> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public ExtractionResult get(ResultKey key) {
+            String[] parts = entries.get(key);
+            if (parts == null)
+                return null;
+            try {
+                Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                        .parse(new InputSource(new StringReader(parts[3])));
+                return ExtractionResult.of(parts[0], parts[1], parts[2], document.getDocumentElement());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void put(ResultKey key, ExtractionResult result) {
+            try {
+                entries.put(key, new String[]{result.getTitle(), result.getDescription(), result.getImage(),
+                        serialize(result.getContent())});
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static String serialize(Node node) throws Exception {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(node), new StreamResult(writer));
+        return writer.toString();
+    }
+}
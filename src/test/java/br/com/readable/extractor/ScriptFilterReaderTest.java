@@ -0,0 +1,94 @@
+package br.com.readable.extractor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.apache.commons.io.IOUtils;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.junit.Assert.*;
+
+public class ScriptFilterReaderTest {
+
+    private static String filter(String html) throws IOException {
+        return IOUtils.toString(new ScriptFilterReader(new StringReader(html)));
+    }
+
+    // Hands out one character per read, so every decision has to wait for more input
+    private static String filterSlowly(String html) throws IOException {
+        Reader slow = new StringReader(html) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 1));
+            }
+        };
+        StringBuilder out = new StringBuilder();
+        Reader reader = new ScriptFilterReader(slow);
+        int c;
+        while ((c = reader.read()) >= 0) {
+            out.append((char) c);
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void testDropsElements() throws Exception {
+        String[][] cases = {
+                {"a<script>var x = '</div>';</script>b", "ab"},
+                {"a<SCRIPT src=x.js></Script >b", "ab"},
+                {"<p>a<style type=\"text/css\">p > a {}</style>b</p>", "<p>ab</p>"},
+                {"a<noscript><img src=x></noscript>b", "ab"},
+                {"a<svg viewBox='0 0 1 1'><path d='M0 0'/></svg>b", "ab"},
+                {"a<svg/>b<svg />c", "abc"},
+                {"a<scripts>b</scripts>", "a<scripts>b</scripts>"},
+                {"a<script>unclosed", "a"},
+        };
+        for (String[] c : cases) {
+            assertEquals(c[0], c[1], filter(c[0]));
+            assertEquals(c[0], c[1], filterSlowly(c[0]));
+        }
+    }
+
+    @Test
+    public void testKeepsMetadataAndText() throws Exception {
+        String[] kept = {
+                "<script type=\"application/ld+json\">{\"headline\": \"</p><style>\"}</script>",
+                "<meta property=\"og:title\" content=\"<script>\">",
+                "<!-- <script> --><p>text</p>",
+                "<title>a <script> b</title><textarea><svg></textarea>",
+                "<a title='x > <style>' href=\"#\">link</a>",
+                "1 < 2 <3",
+        };
+        for (String html : kept) {
+            assertEquals(html, filter(html));
+            assertEquals(html, filterSlowly(html));
+        }
+    }
+
+    @Test
+    public void testParserDropsElementsFromTheDom() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = getClass().getResourceAsStream("/germany_military.html")) {
+            IOUtils.copy(in, out);
+        }
+        HtmlInput input = HtmlInput.of(out.toByteArray(), "http://www.bbc.co.uk/portuguese/");
+
+        Document full = new HtmlDocumentParser().parse(input);
+        Document stripped = new HtmlDocumentParser(true).parse(input);
+        assertTrue(full.getElementsByTagName("script").getLength() > 0);
+        for (String tag : new String[]{"script", "style", "noscript", "svg"}) {
+            assertEquals(tag, 0, stripped.getElementsByTagName(tag).getLength());
+        }
+        assertEquals(full.getElementsByTagName("p").getLength(), stripped.getElementsByTagName("p").getLength());
+        assertEquals(full.getElementsByTagName("meta").getLength(), stripped.getElementsByTagName("meta").getLength());
+
+        ReadableContentExtractor extractor = new ReadableContentExtractor();
+        assertEquals(extractor.getTitle(full), extractor.getTitle(stripped));
+        assertEquals(extractor.getDescription(full), extractor.getDescription(stripped));
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.readable.extractor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import static org.junit.Assert.*;
+
+public class StreamingExtractorTest {
+
+    private static byte[] load(String resource) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = StreamingExtractorTest.class.getResourceAsStream(resource)) {
+            IOUtils.copy(in, out);
+        }
+        return out.toByteArray();
+    }
+
+    private static String serialize(Node node) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(node), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private static void assertSameAsDom(HtmlInput input) throws Exception {
+        Element dom = new ReadableContentExtractor().getMainContent(new HtmlDocumentParser().parse(input), null, null);
+        Element streamed = new StreamingExtractor().getMainContent(input);
+        assertEquals(serialize(dom), serialize(streamed));
+    }
+
+    @Test
+    public void testSameContentAsDomExtraction() throws Exception {
+        assertSameAsDom(HtmlInput.of(load("/germany_military.html"), "http://www.bbc.co.uk/portuguese/noticias/"));
+        assertSameAsDom(HtmlInput.of(load("/tm_sample1.html"), "http://blog.example.com/"));
+    }
+
+    @Test
+    public void testBrSeparatedText() throws Exception {
+        String html = "<html><body><div id='nav'><a href='/'>Home</a></div>"
+                + "<div class='story'>First line, with a comma, and enough text to score.<br>"
+                + "Second line, also long enough to count for something.<br><br>Third</div>"
+                + "<div><p>Short</p></div></body></html>";
+        HtmlInput input = HtmlInput.of(html.getBytes(StandardCharsets.UTF_8));
+
+        assertSameAsDom(input);
+        assertTrue(new StreamingExtractor().getMainContent(input).getTextContent().contains("Second line"));
+    }
+
+    @Test
+    public void testNoContent() throws Exception {
+        Element result = new StreamingExtractor().getMainContent("<html><body><span>x</span></body></html>", null);
+        assertEquals("p", result.getTagName());
+    }
+
+    @Test
+    public void testTieGoesToFirstInDocument() throws Exception {
+        String paragraph = "A paragraph with a comma, and enough words in it to be scored as content.";
+        String html = "<html><body><div><p>Outer: " + paragraph + "</p>"
+                + "<section><article><div><p>Inner: " + paragraph + "</p></div></article></section></div>"
+                + "</body></html>";
+        HtmlInput input = HtmlInput.of(html.getBytes(StandardCharsets.UTF_8));
+
+        assertSameAsDom(input);
+        assertTrue(new StreamingExtractor().getMainContent(input).getTextContent().startsWith("Outer"));
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.readable.extractor;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.Assert.*;
+
+public class TemplateCacheTest {
+
+    private static final String PARAGRAPH = "<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor "
+            + "incididunt ut labore et dolore magna aliqua, ut enim ad minim veniam.</p>";
+
+    private static String page(String story, int paragraphs) {
+        StringBuilder html = new StringBuilder("<html><head><title>t</title></head><body>"
+                + "<div id='menu'><a href='/'>Home</a></div><div id='main'><div class='story'>");
+        for (int i = 0; i < paragraphs; i++) {
+            html.append(PARAGRAPH);
+        }
+        return html.append("<p>").append(story).append("</p></div></div></body></html>").toString();
+    }
+
+    @Test
+    public void testLaterPagesOfASiteUseTheTemplate() throws Exception {
+        TemplateCache cache = new TemplateCache(10);
+        ReadableContentExtractor extractor = new ReadableContentExtractor(
+                ExtractorConfig.builder().templateCache(cache).build());
+        HtmlDocumentParser parser = extractor.getParser();
+
+        Element first = extractor.getMainContent(parser.parse(page("first", 3), "http://News.example.com/a"), null, null);
+        assertTrue(first.getTextContent().contains("first"));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals("div#main/div.story", cache.get("news.example.com"));
+
+        Element second = extractor.getMainContent(parser.parse(page("second", 3), "http://news.example.com/b"), null, null);
+        assertTrue(second.getTextContent().contains("second"));
+        assertEquals(1, cache.getHits());
+
+        // Too little text in the template's container, the page is scored again
+        Document thin = parser.parse(page("third", 0), "http://news.example.com/c");
+        extractor.getMainContent(thin, null, null);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getRejections());
+
+        // Pages without a site are never cached
+        extractor.getMainContent(parser.parse(page("fourth", 3), null), null, null);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testPerArticleIdsAndClasses() throws Exception {
+        TemplateCache cache = new TemplateCache(10);
+        ReadableContentExtractor extractor = new ReadableContentExtractor(
+                ExtractorConfig.builder().templateCache(cache).build());
+        HtmlDocumentParser parser = extractor.getParser();
+
+        for (int post = 123; post < 126; post++) {
+            StringBuilder html = new StringBuilder("<html><body><div id='content'><article id='post-" + post
+                    + "' class='post-" + post + " type-post  status-publish'>");
+            for (int i = 0; i < 3; i++) {
+                html.append(PARAGRAPH);
+            }
+            html.append("<p>Post ").append(post).append("</p></article></div></body></html>");
+            Element content = extractor.getMainContent(parser.parse(html.toString(), "http://blog.example.com/" + post),
+                    null, null);
+            assertTrue(content.getTextContent().contains("Post " + post));
+        }
+
+        assertEquals("div#content/article.type-post.status-publish", cache.get("blog.example.com"));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testTemplateLookup() throws Exception {
+        Document doc = new HtmlDocumentParser().parse(page("x", 1), null);
+        Element body = (Element) doc.getElementsByTagName("body").item(0);
+        Element story = (Element) doc.getElementsByTagName("div").item(2);
+
+        String template = TemplateCache.templateOf(body, story);
+        assertSame(story, TemplateCache.find(body, template));
+        assertNull(TemplateCache.find(body, "div#main/div.other"));
+        assertNull(TemplateCache.find(body, "div#main/div.story/div"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSitesAreEvicted() {
+        TemplateCache cache = new TemplateCache(2);
+        cache.put("a.com", "div");
+        cache.put("b.com", "div");
+        cache.get("a.com");
+        cache.put("c.com", "div");
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a.com"));
+        assertNull(cache.get("b.com"));
+        assertNotNull(cache.get("c.com"));
+    }
+}
@@ -0,0 +1,177 @@
+package br.com.readable.server;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ExtractionServerTest {
+
+    private ExtractionServer server;
+    private byte[] germany;
+    private byte[] sample;
+
+    @Before
+    public void setUp() throws Exception {
+        server = ExtractionServer.builder().port(0).threads(2).start();
+        try (InputStream in = getClass().getResourceAsStream("/germany_military.html")) {
+            germany = IOUtils.toByteArray(in);
+        }
+        try (InputStream in = getClass().getResourceAsStream("/tm_sample1.html")) {
+            sample = IOUtils.toByteArray(in);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private HttpURLConnection request(String method, String path, String contentType, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        return connection;
+    }
+
+    private static String read(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        try {
+            return IOUtils.toString(in, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        HttpURLConnection connection = request("POST", "/extract?url=http%3A%2F%2Fexample.com%2Fa&format=text",
+                "text/html; charset=utf-8", germany);
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("application/json"));
+        String json = read(connection);
+        assertTrue(json, json.startsWith("{\"url\":\"http://example.com/a\",\"title\":\"Germany Is Sending"));
+        assertTrue(json, json.contains("\"text\":\"") && json.endsWith("\"}"));
+
+        assertEquals(405, request("GET", "/extract", null, null).getResponseCode());
+        assertEquals(404, request("GET", "/extracts", null, null).getResponseCode());
+        connection = request("POST", "/extract?format=pdf", "text/html", germany);
+        assertEquals(400, connection.getResponseCode());
+        assertEquals("{\"url\":null,\"error\":\"Unknown format pdf\"}", read(connection));
+    }
+
+    @Test
+    public void testMaxPageSize() throws Exception {
+        server.close();
+        server = ExtractionServer.builder().port(0).threads(1).maxPageSize(1024).start();
+        assertEquals(413, request("POST", "/extract", "text/html", germany).getResponseCode());
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(archive)) {
+            out.write(response("http://a.org/", germany));
+            out.write(response("http://b.org/", sample));
+            out.write(response("http://c.org/", germany));
+        }
+
+        HttpURLConnection connection = request("POST", "/batch?format=markdown", "application/warc", archive.toByteArray());
+        assertEquals(200, connection.getResponseCode());
+        String[] lines = read(connection).split("\n");
+        assertEquals(3, lines.length);
+        String[] urls = {"http://a.org/", "http://b.org/", "http://c.org/"};
+        for (int i = 0; i < urls.length; i++) {
+            assertTrue(lines[i], lines[i].startsWith("{\"url\":\"" + urls[i] + "\","));
+            assertTrue(lines[i], lines[i].contains(",\"markdown\":\""));
+        }
+        assertEquals(3, server.getMetrics().getDocuments());
+        assertEquals(0, server.getMetrics().getFailures());
+        assertEquals(2L * germany.length + sample.length, server.getMetrics().getBytes());
+
+        connection = request("POST", "/batch", "application/warc", "not an archive\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("{\"url\":null,\"error\":\"Invalid archive: Not a WARC record: not an archive\"}\n", read(connection));
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        for (int i = 0; i < 2; i++) {
+            requests.write(("POST /extract?url=http://a.org/" + i + " HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/html\r\n"
+                    + "Content-Length: " + germany.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            requests.write(germany);
+        }
+        requests.write("GET /metrics HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+        // Every request written at once on one connection, the answers come back on it in order
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.getOutputStream().write(requests.toByteArray());
+            socket.getOutputStream().flush();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            assertTrue(readResponse(in).startsWith("{\"url\":\"http://a.org/0\""));
+            assertTrue(readResponse(in).startsWith("{\"url\":\"http://a.org/1\""));
+            String metrics = readResponse(in);
+            assertTrue(metrics, metrics.contains("\"documents\":2,\"failures\":0,\"bytes\":" + 2 * germany.length + ","));
+            // Requests are counted once answered, documents before
+            assertTrue(metrics, metrics.contains("\"requestLatencyMs\":{\"count\":"));
+            assertTrue(metrics, metrics.contains("\"extractLatencyMs\":{\"count\":2,"));
+        }
+    }
+
+    private static byte[] response(String uri, byte[] html) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        block.write(("HTTP/1.1 200 OK\r\nContent-Type: text/html; charset=utf-8\r\nContent-Length: " + html.length
+                + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        block.write(html);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.write(("WARC/1.0\r\nWARC-Type: response\r\nWARC-Target-URI: " + uri
+                + "\r\nContent-Type: application/http; msgtype=response\r\nContent-Length: " + block.size()
+                + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        block.writeTo(record);
+        record.write("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        return record.toByteArray();
+    }
+
+    // Body of the next 200 response with a Content-Length
+    private static String readResponse(InputStream in) throws IOException {
+        assertEquals("HTTP/1.1 200 OK", readLine(in));
+        int length = -1;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.toLowerCase().startsWith("content-length:"))
+                length = Integer.parseInt(line.substring(15).trim());
+        }
+        byte[] body = new byte[length];
+        IOUtils.readFully(in, body);
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0)
+                throw new EOFException();
+            if (c != '\r')
+                line.append((char) c);
+        }
+        return line.toString();
+    }
+}
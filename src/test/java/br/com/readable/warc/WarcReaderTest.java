@@ -0,0 +1,135 @@
+package br.com.readable.warc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import br.com.readable.extractor.HtmlInput;
+
+import static org.junit.Assert.*;
+
+public class WarcReaderTest {
+
+    static final String PAGE = "<html><head><title>Café</title></head><body><p>Hello</p></body></html>";
+
+    // One gzip member per record, as crawlers write them
+    public static byte[] warc(byte[]... records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] record : records) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(new NonClosing(out))) {
+                gzip.write(record);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] record(String type, String uri, String contentType, byte[] block) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("WARC/1.0\r\nWARC-Type: " + type + "\r\nWARC-Target-URI: " + uri + "\r\nContent-Type: " + contentType
+                + "\r\nContent-Length: " + block.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(block);
+        out.write("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    public static byte[] response(String uri, String headers, byte[] body) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        block.write(headers.getBytes(StandardCharsets.US_ASCII));
+        block.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        block.write(body);
+        return record("response", uri, "application/http; msgtype=response", block.toByteArray());
+    }
+
+    public static byte[] htmlResponse(String uri, String html) throws IOException {
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        return response(uri, "HTTP/1.1 200 OK\r\nContent-Type: text/html; charset=utf-8\r\nContent-Length: "
+                + body.length + "\r\n", body);
+    }
+
+    @Test
+    public void testPages() throws Exception {
+        byte[] utf8 = PAGE.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(utf8);
+        }
+        ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+        byte[] compressed = gzipped.toByteArray();
+        int half = compressed.length / 2;
+        chunked.write((Integer.toHexString(half) + ";ext=1\r\n").getBytes(StandardCharsets.US_ASCII));
+        chunked.write(compressed, 0, half);
+        chunked.write(("\r\n" + Integer.toHexString(compressed.length - half) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        chunked.write(compressed, half, compressed.length - half);
+        chunked.write("\r\n0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+        StringBuilder large = new StringBuilder("<html><body>");
+        while (large.length() < 4096) {
+            large.append("<p>filler</p>");
+        }
+
+        byte[] archive = warc(
+                record("warcinfo", "", "application/warc-fields", "software: test\r\n".getBytes(StandardCharsets.US_ASCII)),
+                record("request", "http://a.org/", "application/http; msgtype=request",
+                        "GET / HTTP/1.1\r\nHost: a.org\r\n\r\n".getBytes(StandardCharsets.US_ASCII)),
+                htmlResponse("http://a.org/", PAGE),
+                response("http://b.org/", "HTTP/1.1 200 OK\r\nContent-Type: text/html; charset=utf-8\r\n"
+                        + "Transfer-Encoding: chunked\r\nContent-Encoding: gzip\r\n", chunked.toByteArray()),
+                response("http://c.org/", "HTTP/1.1 404 Not Found\r\nContent-Type: text/html\r\n",
+                        utf8),
+                response("http://d.org/", "HTTP/1.1 200 OK\r\nContent-Type: image/png\r\n", new byte[]{1, 2, 3}),
+                response("http://e.org/", "HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Encoding: gzip\r\n",
+                        utf8),
+                htmlResponse("http://f.org/", large.toString()),
+                record("resource", "file:///g.html", "text/html; charset=utf-8", utf8));
+
+        try (WarcReader reader = new WarcReader(new ByteArrayInputStream(archive), 1024)) {
+            String[] uris = {"http://a.org/", "http://b.org/", "file:///g.html"};
+            for (String uri : uris) {
+                HtmlInput page = reader.next();
+                assertNotNull(uri, page);
+                assertEquals(uri, page.getBaseUri());
+                assertEquals("UTF-8", page.getCharset().toUpperCase());
+                assertArrayEquals(uri, utf8, page.getBytes());
+            }
+            assertNull(reader.next());
+            // The body that is not gzip at all and the page over 1024 bytes
+            assertEquals(2, reader.getSkipped());
+        }
+    }
+
+    @Test
+    public void testPlainArchive() throws Exception {
+        byte[] archive = htmlResponse("http://a.org/", PAGE);
+        try (WarcReader reader = new WarcReader(new ByteArrayInputStream(archive), 1024)) {
+            assertEquals("http://a.org/", reader.next().getBaseUri());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedArchive() throws Exception {
+        byte[] record = htmlResponse("http://a.org/", PAGE);
+        byte[] archive = new byte[record.length - 20];
+        System.arraycopy(record, 0, archive, 0, archive.length);
+        try (WarcReader reader = new WarcReader(new ByteArrayInputStream(archive), 1024)) {
+            reader.next();
+        }
+    }
+
+    private static final class NonClosing extends java.io.FilterOutputStream {
+
+        NonClosing(ByteArrayOutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}